@@ -0,0 +1,125 @@
+package persistence;
+
+import org.openjdk.jmh.annotations.*;
+import persistence.codec.ListCodec;
+import persistence.codec.ValueCodec;
+import persistence.codec.ValueCodecs;
+import stats.entry.impl.expense.ElectricityUsageStat;
+import util.DeflateCompressionProvider;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding and decoding a page of stat entries in the binary page format
+ * against the legacy Java serialization format. The size of each encoding, before
+ * and after compression, is printed when the benchmark is set up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PageCodecBenchmark {
+
+    /**
+     * The number of indices in a page, as in FileEntryDataStore.
+     */
+    private static final int PAGE_SIZE = 64;
+
+    /**
+     * The number of entries recorded per index.
+     */
+    @Param({"10", "100"})
+    public int entriesPerIndex;
+
+    /**
+     * The codec of the entry lists.
+     */
+    private final ValueCodec<List<ElectricityUsageStat>> codec =
+            new ListCodec<>(ValueCodecs.forClass(ElectricityUsageStat.class));
+
+    /**
+     * The page being encoded.
+     */
+    private Map<Long, List<ElectricityUsageStat>> page;
+
+    /**
+     * The page in the binary format.
+     */
+    private byte[] binary;
+
+    /**
+     * The page in the legacy format.
+     */
+    private byte[] legacy;
+
+    /**
+     * Builds the page and encodes it in both formats.
+     */
+    @Setup
+    public void setup() throws IOException {
+        page = new HashMap<>();
+        for (long index = 0; index < PAGE_SIZE; index++) {
+            List<ElectricityUsageStat> entries = new ArrayList<>();
+            for (int i = 0; i < entriesPerIndex; i++) {
+                entries.add(new ElectricityUsageStat(Math.random() * 100));
+            }
+            page.put(index, entries);
+        }
+
+        binary = PageFileUtils.encode(page, codec);
+        legacy = PageFileUtils.encodeLegacy(page);
+
+        DeflateCompressionProvider compression = new DeflateCompressionProvider();
+        System.out.printf("%nBinary: %d bytes, %d compressed. Legacy: %d bytes, %d compressed.%n",
+                binary.length, compression.compress(binary).length,
+                legacy.length, compression.compress(legacy).length);
+    }
+
+    /**
+     * Encodes the page in the binary format.
+     */
+    @Benchmark
+    public byte[] encodeBinary() throws IOException {
+        return PageFileUtils.encode(page, codec);
+    }
+
+    /**
+     * Encodes the page in the legacy format.
+     */
+    @Benchmark
+    public byte[] encodeLegacy() throws IOException {
+        return PageFileUtils.encodeLegacy(page);
+    }
+
+    /**
+     * Decodes the page from the binary format.
+     */
+    @Benchmark
+    public Map<Long, List<ElectricityUsageStat>> decodeBinary() throws IOException {
+        return PageFileUtils.decode(binary, codec, legacy -> null);
+    }
+
+    /**
+     * Decodes the page from the legacy format.
+     */
+    @Benchmark
+    public Map<Long, List<ElectricityUsageStat>> decodeLegacy() throws IOException {
+        return PageFileUtils.decode(legacy, codec, PageCodecBenchmark::toEntries);
+    }
+
+    /**
+     * Converts a deserialized entry list.
+     */
+    private static List<ElectricityUsageStat> toEntries(Object value) {
+        List<ElectricityUsageStat> entries = new ArrayList<>();
+        for (Object entry : (List<?>) value) {
+            entries.add((ElectricityUsageStat) entry);
+        }
+        return entries;
+    }
+
+}
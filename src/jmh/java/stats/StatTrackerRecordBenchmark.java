@@ -0,0 +1,67 @@
+package stats;
+
+import org.openjdk.jmh.annotations.*;
+import persistence.impl.memory.MemoryAggregateDataStore;
+import persistence.impl.memory.MemoryEntryDataStore;
+import stats.entry.impl.expense.ElectricityUsageStat;
+import stats.entry.impl.expense.MaintenanceStat;
+import stats.timing.BasicTimeIndexingStrategy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link StatTracker#record} when many threads record at once,
+ * as the simulation and ticket purchases do. This runs one thread per core by default, pass
+ * {@code -t} to the benchmark jar built by {@code ./gradlew jmhJar} to see how recording scales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StatTrackerRecordBenchmark {
+
+    /**
+     * The tracker being recorded to, shared by all benchmark threads.
+     */
+    private StatTracker tracker;
+
+    /**
+     * Creates a tracker backed by memory stores.
+     */
+    @Setup(Level.Iteration)
+    public void setup() {
+        tracker = new StatDataControllerImpl(
+                new BasicTimeIndexingStrategy(1000),
+                new MemoryEntryDataStore(),
+                new MemoryAggregateDataStore()
+        );
+    }
+
+    /**
+     * Writes the recorded entries and stops the tracker, so that neither memory nor threads
+     * build up between iterations.
+     */
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        tracker.close();
+    }
+
+    /**
+     * Records an entry of a single class.
+     */
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void recordOneClass() {
+        tracker.record(new ElectricityUsageStat(1.0));
+    }
+
+    /**
+     * Records entries of two different classes.
+     */
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void recordTwoClasses() {
+        tracker.record(new ElectricityUsageStat(1.0));
+        tracker.record(new MaintenanceStat(2.0));
+    }
+
+}
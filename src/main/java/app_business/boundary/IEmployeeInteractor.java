@@ -13,19 +13,20 @@ import java.util.Optional;
 public interface IEmployeeInteractor {
 
     /**
-     * Generate a random ID for an employee, as well as checking if the id is already taken.
-     * The default upper bound for the random number is 999999.
+     * Generate a unique ID for an employee, never handed out before.
+     * The default upper bound for the ID is 999999.
      *
      * @return The generated ID.
      */
     int idGenerator();
 
     /**
-     * Generate a random ID for an employee, as well as checking if the id is already taken.
+     * Generate a unique ID for an employee, never handed out before.
      * The bound specified overwrites the default value of 999999.
      *
-     * @param bound The upper bound for the random number.
+     * @param bound The upper bound for the ID, exclusive.
      * @return The generated ID.
+     * @throws IllegalStateException if every ID below the bound has been handed out.
      */
     int idGenerator(int bound);
 
@@ -1,6 +1,7 @@
 package app_business.boundary;
 
 import app_business.dto.TrainDTO;
+import app_business.dto.TrainSnapshot;
 
 import java.util.List;
 import java.util.Optional;
@@ -34,4 +35,18 @@ public interface ITrainInteractor {
      * @param needsMaintenance The value to set the needs maintenance flag to
      */
     void setNeedsMaintenance(String trainName, boolean needsMaintenance);
+
+    /**
+     * Publishes a snapshot of the positions of all trains, to be read with
+     * {@link #getSnapshot()}. This is called by the simulation once per tick.
+     */
+    void publishSnapshot();
+
+    /**
+     * Gets the latest published snapshot of the positions of all trains
+     *
+     * @return The latest snapshot, valid until the next call of this method
+     * @see TrainSnapshot
+     */
+    TrainSnapshot getSnapshot();
 }
@@ -0,0 +1,152 @@
+package app_business.dto;
+
+import entity.model.train.TrainStatus;
+import util.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * A snapshot of where every train is, laid out in primitive arrays so that it
+ * can be rewritten every tick and read every frame without creating garbage.
+ * <p>
+ * Snapshots are recycled: a snapshot is only ever written by the thread
+ * publishing it, and must not be read after it has been handed back to be
+ * rewritten.
+ */
+public class TrainSnapshot {
+
+    /**
+     * The train statuses, cached as {@link TrainStatus#values()} copies the array on every call.
+     */
+    private static final TrainStatus[] STATUSES = TrainStatus.values();
+
+    /**
+     * The number of times a snapshot has been published before this one.
+     */
+    private long version = -1;
+
+    /**
+     * The number of trains in this snapshot.
+     */
+    private int size = 0;
+
+    /**
+     * The names of the trains.
+     */
+    private String[] names = new String[0];
+
+    /**
+     * The x-coordinates of the trains in metres.
+     */
+    private double[] x = new double[0];
+
+    /**
+     * The y-coordinates of the trains in metres.
+     */
+    private double[] y = new double[0];
+
+    /**
+     * The ordinals of the statuses of the trains.
+     */
+    private byte[] statuses = new byte[0];
+
+    /**
+     * Whether each train is at a station.
+     */
+    private boolean[] atStation = new boolean[0];
+
+    /**
+     * Returns the number of times a snapshot had been published before this one,
+     * or -1 if this snapshot has never been published.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of trains in this snapshot.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the name of the train at the given index.
+     */
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * Returns the x-coordinate of the train at the given index in metres.
+     */
+    public double getX(int index) {
+        return x[index];
+    }
+
+    /**
+     * Returns the y-coordinate of the train at the given index in metres.
+     */
+    public double getY(int index) {
+        return y[index];
+    }
+
+    /**
+     * Returns the status of the train at the given index.
+     */
+    public TrainStatus getStatus(int index) {
+        return STATUSES[statuses[index]];
+    }
+
+    /**
+     * Returns whether the train at the given index is at a station.
+     */
+    public boolean isAtStation(int index) {
+        return atStation[index];
+    }
+
+    /**
+     * Clears this snapshot so that it can be rewritten, growing
+     * the arrays if needed to hold the given number of trains.
+     *
+     * @param version  The version of the snapshot being written.
+     * @param capacity The maximum number of trains that will be written.
+     */
+    public void reset(long version, int capacity) {
+        this.version = version;
+        this.size = 0;
+
+        if (names.length < capacity) {
+            int length = Math.max(capacity, names.length * 2);
+            names = new String[length];
+            x = new double[length];
+            y = new double[length];
+            statuses = new byte[length];
+            atStation = new boolean[length];
+        } else {
+            // Don't hold on to the names of removed trains
+            Arrays.fill(names, capacity, names.length, null);
+        }
+    }
+
+    /**
+     * Appends a train to this snapshot.
+     *
+     * @param name      The name of the train.
+     * @param x         The x-coordinate of the train in metres.
+     * @param y         The y-coordinate of the train in metres.
+     * @param status    The status of the train.
+     * @param atStation Whether the train is at a station.
+     * @throws IllegalStateException if the snapshot is already full.
+     */
+    public void add(String name, double x, double y, TrainStatus status, boolean atStation) {
+        Preconditions.checkState(size < names.length, "Snapshot is full");
+        this.names[size] = name;
+        this.x[size] = x;
+        this.y[size] = y;
+        this.statuses[size] = (byte) status.ordinal();
+        this.atStation[size] = atStation;
+        size++;
+    }
+
+}
@@ -9,6 +9,8 @@ import entity.model.control.TransitModel;
 import entity.model.train.Train;
 import entity.model.train.TrainRole;
 import persistence.boundary.EmployeeDataStore;
+import persistence.boundary.IdAllocator;
+import persistence.impl.memory.MemoryIdAllocator;
 import util.Preconditions;
 
 import java.util.*;
@@ -31,14 +33,33 @@ public class EmployeeInteractor implements IEmployeeInteractor {
     private final TransitModel model;
 
     /**
-     * Constructs an EmployeeInteractor instance.
+     * Hands out the staff numbers of new employees.
+     */
+    private final IdAllocator ids;
+
+    /**
+     * Constructs an EmployeeInteractor instance, numbering new employees from one past
+     * the largest staff number already in the repository.
      *
      * @param repo The employee repository.
      * @param model   The transit model.
      */
     public EmployeeInteractor(EmployeeDataStore repo, TransitModel model) {
+        this(repo, model, new MemoryIdAllocator(
+                repo.findAll().stream().mapToInt(Employee::getStaffNumber).max().orElse(0) + 1));
+    }
+
+    /**
+     * Constructs an EmployeeInteractor instance.
+     *
+     * @param repo  The employee repository.
+     * @param model The transit model.
+     * @param ids   Hands out the staff numbers of new employees.
+     */
+    public EmployeeInteractor(EmployeeDataStore repo, TransitModel model, IdAllocator ids) {
         this.repo = repo;
         this.model = model;
+        this.ids = ids;
     }
 
     // Javadocs are in the interface. This method overload only exists as default value for the bound.
@@ -48,13 +69,8 @@ public class EmployeeInteractor implements IEmployeeInteractor {
 
     // Javadocs are in the interface.
     public int idGenerator(int bound) {
-        int id;
-        int tries = 0;
-        Random random = new Random();
-        do {
-            id = random.nextInt(bound);
-            if (tries++ >= 10) throw new IllegalStateException("Could not generate a unique ID");
-        } while (repo.find(id).isPresent());
+        int id = ids.nextId();
+        Preconditions.checkState(id < bound, "Could not generate a unique ID");
         return id;
     }
 
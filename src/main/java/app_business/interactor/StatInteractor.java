@@ -4,10 +4,15 @@ import app_business.boundary.IStatInteractor;
 import stats.StatTracker;
 import stats.aggregate.ExpenseAggregate;
 import stats.aggregate.RevenueAggregate;
+import stats.aggregator.RollupLevel;
+import stats.aggregator.RollupTier;
 import stats.aggregator.StatAggregator;
 import stats.aggregator.impl.ExpenseAggregator;
 import stats.aggregator.impl.RevenueAggregator;
 import stats.entry.StatEntry;
+import stats.entry.impl.expense.ExpenseStat;
+import stats.entry.impl.revenue.RevenueStat;
+import stats.timing.TimeIndexingStrategy;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -26,6 +31,22 @@ public class StatInteractor implements IStatInteractor {
      */
     private final StatTracker stats;
 
+    /**
+     * The minimum number of aggregates to return over a horizon, which decides
+     * how coarse the aggregates can be.
+     */
+    private static final int MIN_POINTS = 60;
+
+    /**
+     * The rolled up revenue aggregates.
+     */
+    private final RollupTier<RevenueStat, RevenueAggregate> revenue;
+
+    /**
+     * The rolled up expense aggregates.
+     */
+    private final RollupTier<ExpenseStat, ExpenseAggregate> expenses;
+
     /**
      * Constructs a StatInteractor instance.
      *
@@ -33,32 +54,48 @@ public class StatInteractor implements IStatInteractor {
      */
     public StatInteractor(StatTracker stats) {
         this.stats = stats;
+        this.revenue = new RollupTier<>(stats, new RevenueAggregator());
+        this.expenses = new RollupTier<>(stats, new ExpenseAggregator());
     }
 
     /**
-     * Returns a list of aggregates of the given type, one for each minute in the given horizon.
+     * Returns a list of aggregates of the given type over the given horizon, one for each bucket
+     * of the coarsest {@link RollupLevel} that still gives at least {@link #MIN_POINTS} of them.
      *
      * @param horizonMinutes   The horizon in minutes.
-     * @param aggregator       The aggregator to use.
-     * @param defaultAggregate The default aggregate to use if no aggregate is found for a given minute.
+     * @param tier             The rolled up aggregates to use.
+     * @param defaultAggregate The default aggregate to use if no aggregate is found for a given bucket.
      * @param <A>              The type of entries this aggregator operates on, which must extend {@link StatEntry}.
      * @param <B>              The type of aggregates this aggregator produces, which must be {@link Serializable}.
      * @return A list of aggregates.
      */
     private <A extends StatEntry, B extends Serializable> List<B> getAggregates(long horizonMinutes,
-                                                                                StatAggregator<A, B> aggregator,
+                                                                                RollupTier<A, B> tier,
                                                                                 B defaultAggregate) {
-        long currIndex = stats.getIndexingStrategy().getTimeIndex();
+        TimeIndexingStrategy strategy = stats.getIndexingStrategy();
+        long currIndex = strategy.getTimeIndex();
+        long indexLength = strategy.getIndexLength();
+        StatAggregator<A, B> aggregator = tier.getAggregator();
+
+        // Plan which level to read from
+        long horizonIndices = Math.max(1, horizonMinutes * 60_000 / indexLength);
+        RollupLevel level = RollupLevel.coarsestFor(horizonIndices, indexLength, MIN_POINTS);
+        long indicesPerBucket = level.getIndicesPerBucket(indexLength);
+
+        long fromBucket = Math.floorDiv(currIndex - horizonIndices, indicesPerBucket);
+        long currBucket = Math.floorDiv(currIndex, indicesPerBucket);
 
         List<B> aggregatesList = new ArrayList<>();
 
-        Map<Long, B> aggregateMap = stats.getOrAggregate(aggregator,
-                currIndex - horizonMinutes,
-                currIndex);
+        Map<Long, B> aggregateMap = tier.getRollups(level, fromBucket, currBucket);
 
-        stats.aggregateCurrent(aggregator).ifPresent(a -> aggregateMap.put(currIndex, a));
+        // Add what has been recorded since the last flush to the current bucket,
+        // which is kept up to date as stats are recorded once registered
+        stats.registerAggregator(aggregator);
+        stats.aggregateCurrent(aggregator).ifPresent(a -> aggregateMap.merge(currBucket, a,
+                (stored, current) -> aggregator.aggregateExisting(List.of(stored, current))));
 
-        for (long i = currIndex - horizonMinutes; i <= currIndex; i++) {
+        for (long i = fromBucket; i <= currBucket; i++) {
             Optional<B> aggregate = Optional.ofNullable(aggregateMap.get(i));
 
             aggregate.ifPresentOrElse(aggregatesList::add, () -> aggregatesList.add(defaultAggregate));
@@ -68,11 +105,11 @@ public class StatInteractor implements IStatInteractor {
 
     @Override
     public List<RevenueAggregate> getRevenue(long horizon) {
-        return getAggregates(horizon, new RevenueAggregator(), new RevenueAggregate(0));
+        return getAggregates(horizon, revenue, new RevenueAggregate(0));
     }
 
     @Override
     public List<ExpenseAggregate> getExpenses(long horizon) {
-        return getAggregates(horizon, new ExpenseAggregator(), new ExpenseAggregate(0));
+        return getAggregates(horizon, expenses, new ExpenseAggregate(0));
     }
 }
@@ -5,7 +5,9 @@ import app_business.dto.TicketDTO;
 import stats.StatTracker;
 import stats.entry.impl.revenue.TicketSaleStat;
 import entity.ticket.Ticket;
+import persistence.boundary.IdAllocator;
 import persistence.boundary.TicketDataStore;
+import persistence.impl.memory.MemoryIdAllocator;
 import entity.ticket.TicketType;
 
 import java.util.ArrayList;
@@ -24,15 +26,32 @@ public class TicketInteractor implements ITicketInteractor {
     /** Data storage for tickets. */
     private final TicketDataStore dataStore;
 
+    /** Hands out the ids of new tickets. */
+    private final IdAllocator ids;
+
     /**
-     * Constructs a TicketInteractor instance.
+     * Constructs a TicketInteractor instance, numbering new tickets from one past
+     * the largest id already in the data store.
      *
      * @param dataStore The ticket data store.
      * @param stats The statistics data controller.
      */
     public TicketInteractor(TicketDataStore dataStore, StatTracker stats) {
+        this(dataStore, stats, new MemoryIdAllocator(
+                dataStore.findAll().stream().mapToInt(Ticket::getId).max().orElse(0) + 1));
+    }
+
+    /**
+     * Constructs a TicketInteractor instance.
+     *
+     * @param dataStore The ticket data store.
+     * @param stats The statistics data controller.
+     * @param ids Hands out the ids of new tickets.
+     */
+    public TicketInteractor(TicketDataStore dataStore, StatTracker stats, IdAllocator ids) {
         this.dataStore = dataStore;
         this.stats = stats;
+        this.ids = ids;
     }
 
     /**
@@ -47,15 +66,14 @@ public class TicketInteractor implements ITicketInteractor {
         List<Ticket> tickets = new ArrayList<>();
 
         for (TicketType ticketType : ticketTypes) {
-            Ticket ticket = new Ticket(ticketType);
-            tickets.add(ticket);
-
-            dataStore.save(ticket);
+            tickets.add(new Ticket(ids.nextId(), ticketType));
         }
 
+        // Write the whole purchase at once
+        dataStore.saveAll(tickets);
+
         for (Ticket ticket : tickets) {
-            TicketSaleStat saleStat = new TicketSaleStat(ticket);
-            stats.record(saleStat);
+            stats.record(TicketSaleStat.class, ticket.getPrice());
         }
 
         List<TicketDTO> response = new ArrayList<>();
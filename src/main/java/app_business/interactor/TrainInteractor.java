@@ -3,15 +3,18 @@ package app_business.interactor;
 import app_business.dto.TrainArrivalDTO;
 import app_business.dto.TrainDTO;
 import app_business.dto.StationDTO;
+import app_business.dto.TrainSnapshot;
 import app_business.boundary.ITrainInteractor;
 import entity.model.Direction;
 import entity.model.control.TransitModel;
+import entity.model.node.Node;
 import entity.model.train.Train;
 import entity.model.train.TrainStatus;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * The interactor for the train.
@@ -23,6 +26,26 @@ public class TrainInteractor implements ITrainInteractor {
      */
     private final TransitModel model;
 
+    /**
+     * The snapshot being written by the publishing thread.
+     */
+    private TrainSnapshot back = new TrainSnapshot();
+
+    /**
+     * The most recently published snapshot, waiting to be picked up by the reading thread.
+     */
+    private final AtomicReference<TrainSnapshot> pending = new AtomicReference<>(new TrainSnapshot());
+
+    /**
+     * The snapshot being read by the reading thread.
+     */
+    private TrainSnapshot front = new TrainSnapshot();
+
+    /**
+     * The number of snapshots published.
+     */
+    private long publishedSnapshots = 0;
+
     /**
      * Constructs a new TrainInteractor with the given transit model.
      *
@@ -59,6 +82,79 @@ public class TrainInteractor implements ITrainInteractor {
         return trains;
     }
 
+    /**
+     * Publishes a snapshot of where every train is. The snapshots are triple
+     * buffered: the publishing thread writes into its own buffer and swaps it
+     * with the pending one, and the reading thread swaps the pending buffer
+     * with its own when there is a newer one. Neither thread ever waits for
+     * the other, and no buffer is read and written at the same time.
+     * <p>
+     * This should only ever be called from the thread that moves the trains.
+     */
+    @Override
+    public void publishSnapshot() {
+        List<Train> trains = model.getTrainList();
+
+        TrainSnapshot snapshot = back;
+        snapshot.reset(publishedSnapshots++, trains.size());
+
+        for (Train train : trains) {
+            addToSnapshot(snapshot, train);
+        }
+
+        back = pending.getAndSet(snapshot);
+    }
+
+    /**
+     * Returns the latest published snapshot. The returned snapshot may be read
+     * until the next call of this method, after which it may be rewritten.
+     * <p>
+     * This should only ever be called from a single reading thread, such as the UI thread.
+     *
+     * @return The latest snapshot.
+     */
+    @Override
+    public TrainSnapshot getSnapshot() {
+        if (pending.get().getVersion() > front.getVersion()) {
+            front = pending.getAndSet(front);
+        }
+        return front;
+    }
+
+    /**
+     * Adds the position of the given train to the snapshot. A train that is
+     * between stations is placed along the straight line between them.
+     *
+     * @param snapshot The snapshot to add to.
+     * @param train    The train to add.
+     */
+    private static void addToSnapshot(TrainSnapshot snapshot, Train train) {
+
+        Optional<Node> currentNode = train.getPosition().getTrack().getNode();
+        if (currentNode.isPresent()) {
+            Node node = currentNode.get();
+            snapshot.add(train.getName(), node.getX(), node.getY(), train.getStatus(), true);
+            return;
+        }
+
+        Node next = train.getNextNode(Direction.FORWARD).orElse(null);
+        Node previous = train.getNextNode(Direction.BACKWARD).orElse(null);
+        if (next == null || previous == null) return;
+
+        double dx = next.getX() - previous.getX();
+        double dy = next.getY() - previous.getY();
+
+        double length = Math.sqrt(dx * dx + dy * dy);
+        if (length == 0.0) return;
+
+        double distance = train.getDistanceToNextNode(Direction.BACKWARD).orElse(0.0);
+
+        double x = previous.getX() + dx / length * distance;
+        double y = previous.getY() + dy / length * distance;
+
+        snapshot.add(train.getName(), x, y, train.getStatus(), false);
+    }
+
     @Override
     public void setNeedsMaintenance(String trainName, boolean needsMaintenance) {
         Train train = model.getTrain(trainName);
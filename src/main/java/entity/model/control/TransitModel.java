@@ -8,25 +8,57 @@ import entity.model.train.*;
 import entity.model.train.repo.TrackRepo;
 import entity.model.train.repo.TrainRepo;
 import entity.model.train.repo.impl.MemoryTrackRepo;
+import entity.model.train.track.TrackLoop;
 import entity.model.train.track.TrackSegment;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class is the basis for representing the transit system and its state.
  * It contains the list of trains, the map of nodes, and the track repository.
+ * <p>
+ * Concurrency model: the nodes and tracks are built up front on a single thread,
+ * and are only read once the model is shared. Creating and removing trains is
+ * serialized on a lock. {@link #getTrainList()} returns an immutable snapshot, rebuilt
+ * on the first call after the trains change, so any thread may iterate it without
+ * locking, seeing the trains as they were when it was called. Trains are indexed by
+ * name in a concurrent map, so {@link #getTrain(String)} never blocks. Trains are only moved
+ * and boarded by the simulation, and their status and position are volatile, so other
+ * threads always read a complete, if possibly stale, value.
  */
 public class TransitModel implements NodeTracker, TrainRepo {
 
     /**
-     * List of trains in the transit system
+     * Guards changes to the list of trains.
      */
-    private final List<Train> trainList = new ArrayList<>();
+    private final Object trainLock = new Object();
+
+    /**
+     * Trains in the transit system indexed by their ids, with null for removed trains. Guarded by the train lock.
+     */
+    private final List<Train> trainsById = new ArrayList<>();
+
+    /**
+     * The ids of removed trains, which are given to new trains before the list of trains is grown,
+     * so that it never holds more ids than there have been trains at once. Guarded by the train lock.
+     */
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+
+    /**
+     * Trains in the transit system, mapped by their names
+     */
+    private final Map<String, Train> trainsByName = new ConcurrentHashMap<>();
+
+    /**
+     * Immutable list of trains in the transit system, or null if it needs to be rebuilt
+     */
+    private volatile List<Train> trainList = List.of();
 
     /**
      * Map of nodes in the transit system, mapped by their identifiers
      */
-    private final Map<String, Node> nodeMap = new HashMap<>();
+    private final Map<String, Node> nodeMap = new ConcurrentHashMap<>();
 
     /**
      * Repository of tracks in the transit system
@@ -47,21 +79,32 @@ public class TransitModel implements NodeTracker, TrainRepo {
             throw new IllegalArgumentException("Track " + trackSegment.getId() + " created with wrong model");
         }
 
-        if (trainList.stream().anyMatch(train -> train.getName().equals(name))) {
-            throw new IllegalArgumentException("Train with name " + name + " already exists");
-        }
+        synchronized (trainLock) {
+            if (trainsByName.containsKey(name)) {
+                throw new IllegalArgumentException("Train with name " + name + " already exists");
+            }
 
-        TrainPosition position = TrainPosition.entryPoint(trackSegment, Direction.FORWARD);
+            TrainPosition position = TrainPosition.entryPoint(trackSegment, Direction.FORWARD);
 
-        if (!trackSegment.isEmpty()) {
-            throw new IllegalStateException("Track " + trackSegment.getId() + " is occupied");
-        }
+            if (!trackSegment.isEmpty()) {
+                throw new IllegalStateException("Track " + trackSegment.getId() + " is occupied");
+            }
 
-        // This also adds the train to the track segment
-        Train train = new Train(this, name, position, capacity);
-        trainList.add(train);
+            // This also adds the train to the track segment
+            Integer freeId = freeIds.poll();
+            int id = freeId != null ? freeId : trainsById.size();
+            Train train = new Train(this, id, name, position, capacity);
 
-        return train;
+            if (freeId != null) {
+                trainsById.set(id, train);
+            } else {
+                trainsById.add(train);
+            }
+            trainsByName.put(name, train);
+            trainList = null;
+
+            return train;
+        }
     }
 
     /**
@@ -113,13 +156,37 @@ public class TransitModel implements NodeTracker, TrainRepo {
     }
 
     /**
-     * Returns an unmodifiable view of the list of trains in the transit system.
+     * Compiles the track segments into loops, so that trains can move along them
+     * and find their next nodes without walking the segments. This should be called
+     * once the track layout is complete, and again after it is changed.
+     *
+     * @see TrackLoop
+     */
+    public void compileTrackLoops() {
+        TrackLoop.compile(trackRepo.getTracks().values());
+    }
+
+    /**
+     * Returns an immutable snapshot of the list of trains in the transit system.
+     * It is safe to iterate from any thread, and does not see trains added or removed later.
      *
      * @return List of Train objects.
      */
     @Override
     public List<Train> getTrainList() {
-        return trainList;
+        List<Train> trains = trainList;
+        if (trains != null) return trains;
+
+        synchronized (trainLock) {
+            if (trainList == null) {
+                List<Train> list = new ArrayList<>(trainsByName.size());
+                for (Train train : trainsById) {
+                    if (train != null) list.add(train);
+                }
+                trainList = Collections.unmodifiableList(list);
+            }
+            return trainList;
+        }
     }
 
     /**
@@ -130,7 +197,20 @@ public class TransitModel implements NodeTracker, TrainRepo {
      */
     @Override
     public Train getTrain(String name) {
-        return trainList.stream().filter(train -> train.getName().equals(name)).findFirst().orElse(null);
+        return trainsByName.get(name);
+    }
+
+    /**
+     * Returns the train with the given id from the transit system.
+     *
+     * @param id The id of the train.
+     * @return The Train object with the given id. Null if no such train exists.
+     */
+    @Override
+    public Train getTrainById(int id) {
+        synchronized (trainLock) {
+            return id >= 0 && id < trainsById.size() ? trainsById.get(id) : null;
+        }
     }
 
     /**
@@ -140,7 +220,14 @@ public class TransitModel implements NodeTracker, TrainRepo {
      */
     @Override
     public void removeTrain(String name) {
-        trainList.removeIf(train -> train.getName().equals(name));
+        synchronized (trainLock) {
+            Train train = trainsByName.remove(name);
+            if (train != null) {
+                trainsById.set(train.getId(), null);
+                freeIds.push(train.getId());
+                trainList = null;
+            }
+        }
     }
 
     /**
@@ -148,7 +235,12 @@ public class TransitModel implements NodeTracker, TrainRepo {
      */
     @Override
     public void clearTrains() {
-        trainList.clear();
+        synchronized (trainLock) {
+            trainsById.clear();
+            freeIds.clear();
+            trainsByName.clear();
+            trainList = List.of();
+        }
     }
 
 }
@@ -185,7 +185,13 @@ public class TransitModelBuilder {
         repo.addTrack(interBack);
     }
 
+    /**
+     * Finishes building the model, compiling its track loops.
+     *
+     * @return The built model
+     */
     public TransitModel build() {
+        model.compileTrackLoops();
         return model;
     }
 }
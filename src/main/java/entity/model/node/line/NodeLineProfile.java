@@ -5,7 +5,9 @@ import entity.model.node.Node;
 import entity.model.train.repo.TrackRepo;
 import entity.model.train.Train;
 import entity.model.train.TrainPosition;
+import entity.model.train.track.ArrivalIndex;
 import entity.model.train.track.NodeTrackSegment;
+import entity.model.train.track.TrackLoop;
 import entity.model.train.track.TrackSegment;
 import org.jetbrains.annotations.NotNull;
 
@@ -66,6 +68,14 @@ public class NodeLineProfile {
      * @return an Optional containing the next Node, or empty if there is no next Node
      */
     public Optional<Node> getNextNode(Direction direction) {
+        TrackSegment track = getTrack(direction);
+        TrackLoop loop = track.getLoop();
+        if (loop != null) {
+            int next = loop.nextNodeIndex(track.getLoopIndex(), Direction.FORWARD);
+            if (next == -1) return Optional.empty();
+            return loop.getSegment(next).getNode();
+        }
+
         List<TrackSegment> next = getTrack(direction).getNextTrackSegments();
         if (next.isEmpty()) return Optional.empty();
 
@@ -112,6 +122,12 @@ public class NodeLineProfile {
      * @return a List of TrainArrival objects
      */
     public List<TrainArrival> nextArrivals(Direction direction, int numTrains) {
+        TrackSegment track = getTrack(direction);
+        TrackLoop loop = track.getLoop();
+        if (loop != null) {
+            return nextArrivals(loop, track.getLoopIndex(), numTrains);
+        }
+
         List<TrackSegment> trackSegments = getTrack(direction)
                 .getNextTrackSegments(Direction.BACKWARD);
 
@@ -140,4 +156,44 @@ public class NodeLineProfile {
         return arrivals;
     }
 
+    /**
+     * Returns a list of TrainArrival objects for the next arriving trains, using
+     * the arrival index of the compiled loop the track is part of.
+     *
+     * @param loop      the loop the track is part of
+     * @param index     the index of the track in the loop
+     * @param numTrains the number of arriving trains to return
+     * @return a List of TrainArrival objects
+     */
+    private List<TrainArrival> nextArrivals(TrackLoop loop, int index, int numTrains) {
+        ArrivalIndex arrivalIndex = loop.getArrivalIndex();
+
+        List<TrainArrival> arrivals = new ArrayList<>();
+
+        double waitTime = 0;
+
+        // The segment the last train found was on, starting with this track
+        int ahead = index;
+        int occupied = arrivalIndex.incoming(index);
+
+        while (occupied != -1 && arrivals.size() < numTrains) {
+            Train train = loop.getSegment(occupied).getTrain();
+            if (train == null) break; // The train moved on while looking
+
+            // The empty track between this train and the one ahead of it
+            double gap = loop.getOffset(ahead) - loop.getOffset(occupied + 1);
+            if (gap < 0) gap += loop.getLength();
+
+            double distanceToGo = gap + train.getPosition().distanceToEndOfTrack(Direction.FORWARD);
+            waitTime += distanceToGo / Train.MAX_SPEED;
+
+            arrivals.add(new TrainArrival(train, node, (long) (waitTime * 1000)));
+
+            ahead = occupied;
+            occupied = arrivalIndex.nextIncoming(index, occupied);
+        }
+
+        return arrivals;
+    }
+
 }
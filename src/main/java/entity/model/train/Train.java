@@ -3,10 +3,12 @@ package entity.model.train;
 import entity.model.Direction;
 import entity.model.control.TransitModel;
 import entity.model.node.Node;
+import entity.model.train.track.TrackLoop;
 import entity.model.train.track.TrackSegment;
 import util.Preconditions;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The Train class represents a train in a transportation system.
@@ -35,6 +37,11 @@ public class Train {
      */
     private final TransitModel transitModel;
 
+    /**
+     * The id of this train within its transit model, or -1 if it has none.
+     */
+    private final int id;
+
     /**
      * The name of this train.
      */
@@ -43,7 +50,7 @@ public class Train {
     /**
      * The set containing the list of passengers currently on this train.
      */
-    private final Set<Passenger> passengerList = new HashSet<>();
+    private final Set<Passenger> passengerList = ConcurrentHashMap.newKeySet();
 
     /**
      * The maximum capacity of this train, representing the maximum number of passengers it can carry.
@@ -54,12 +61,12 @@ public class Train {
      * The current status of this train (IN_SERVICE, SCHEDULED_MAINTENANCE, UNDER_MAINTENANCE, OUT_OF_SERVICE).
      * Default status is OUT_OF_SERVICE.
      */
-    private TrainStatus status = TrainStatus.OUT_OF_SERVICE;
+    private volatile TrainStatus status = TrainStatus.OUT_OF_SERVICE;
 
     /**
      * The current position of this train represented by a TrainPosition object.
      */
-    private TrainPosition position;
+    private volatile TrainPosition position;
 
     /**
      * Creates a train associated with the given TransitTracker, positioned at the given TrainPosition, and with the given capacity.
@@ -69,7 +76,20 @@ public class Train {
      * @param capacity     The capacity of this train.
      */
     public Train(TransitModel transitModel, String name, TrainPosition position, int capacity) {
+        this(transitModel, -1, name, position, capacity);
+    }
+
+    /**
+     * Creates a train with the given id in its TransitTracker, positioned at the given TrainPosition, and with the given capacity.
+     *
+     * @param transitModel The TransitTracker that this train is associated with.
+     * @param id           The id of this train within the TransitTracker.
+     * @param position     The position of this train.
+     * @param capacity     The capacity of this train.
+     */
+    public Train(TransitModel transitModel, int id, String name, TrainPosition position, int capacity) {
         this.transitModel = transitModel;
+        this.id = id;
         this.name = name;
         this.position = position;
         this.capacity = capacity;
@@ -80,6 +100,15 @@ public class Train {
         position.getTrack().setTrain(this);
     }
 
+    /**
+     * Gets the id of this train within its transit model.
+     *
+     * @return The id of this train, or -1 if it was not created by a transit model.
+     */
+    public int getId() {
+        return id;
+    }
+
     public String getName() {
         return name;
     }
@@ -174,6 +203,12 @@ public class Train {
             }
         }
 
+        // Only update the tracks if the train has actually changed tracks
+        if (position.getTrack() == this.position.getTrack()) {
+            this.position = position;
+            return;
+        }
+
         this.position.getTrack().setTrain(null);
         this.position = position;
         this.position.getTrack().setTrain(this);
@@ -193,6 +228,13 @@ public class Train {
         TrackSegment track = position.getTrack();
         if (track == null) return Optional.empty();
 
+        TrackLoop loop = track.getLoop();
+        if (loop != null) {
+            int next = loop.nextNodeIndex(track.getLoopIndex(), direction);
+            if (next == -1) return Optional.empty();
+            return loop.getSegment(next).getNode();
+        }
+
         List<TrackSegment> nextSegments = track.getNextTrackSegments(direction);
         for (TrackSegment nextSegment : nextSegments) {
             Optional<Node> node = nextSegment.getNode();
@@ -222,6 +264,14 @@ public class Train {
         TrackSegment track = position.getTrack();
         if (track == null) return Optional.empty();
 
+        TrackLoop loop = track.getLoop();
+        if (loop != null) {
+            int index = track.getLoopIndex();
+            int next = loop.nextNodeIndex(index, direction);
+            if (next == -1) return Optional.empty();
+            return Optional.of(loop.distanceTo(index, position.getPositionOnTrack(), next, direction));
+        }
+
         double distance = position.distanceToEndOfTrack(direction);
 
         List<TrackSegment> nextSegments = track.getNextTrackSegments(direction);
@@ -1,6 +1,7 @@
 package entity.model.train;
 
 import entity.model.Direction;
+import entity.model.train.track.TrackLoop;
 import entity.model.train.track.TrackSegment;
 import util.Preconditions;
 
@@ -126,6 +127,23 @@ public class TrainPosition {
     public Optional<TrainPosition> move(double amount, boolean noClip) {
         if (amount == 0.0) return Optional.of(this);
 
+        // Staying on the same track is by far the most common case
+        double sameTrackTarget = positionOnTrack + amount;
+        if (sameTrackTarget >= 0 && sameTrackTarget < track.getLength()) {
+            return Optional.of(withOffset(sameTrackTarget));
+        }
+
+        // If the track has been compiled into a loop, jump straight to the target
+        TrackLoop loop = track.getLoop();
+        if (loop != null) {
+            int from = track.getLoopIndex();
+            int to = loop.moveIndex(from, positionOnTrack, amount, noClip);
+            if (to == -1) return Optional.empty(); // Endpoint reached or collision
+
+            double offset = loop.movePosition(from, positionOnTrack, amount, to);
+            return Optional.of(new TrainPosition(loop.getSegment(to), offset));
+        }
+
         Direction direction = amount < 0.0 ? Direction.BACKWARD : Direction.FORWARD;
 
 
@@ -36,6 +36,18 @@ public interface TrainRepo {
      */
     Train getTrain(String name);
 
+    /**
+     * Retrieves the train with the specified id, if it exists in the train tracker.
+     * Ids are small and dense, not unique over time: a new train takes the id of the last
+     * removed train that has not been reused, and only takes the next unused id when there
+     * is none. An id may therefore refer to a different train after its train is removed,
+     * so callers should not rely on ids growing in the order trains are created.
+     *
+     * @param id The id of the train to retrieve.
+     * @return The Train object with the specified id if found, or null otherwise.
+     */
+    Train getTrainById(int id);
+
     /**
      * Removes the train with the specified name from the train tracker.
      *
@@ -0,0 +1,156 @@
+package entity.model.train.track;
+
+import entity.model.Direction;
+
+import java.util.BitSet;
+
+/**
+ * An index of which segments of a {@link TrackLoop} are occupied, kept up to date
+ * as trains move between segments. For every node segment it keeps the nearest
+ * occupied segment behind it, so that the next train to arrive at a node can be
+ * found without walking the track.
+ * <p>
+ * When a segment becomes occupied or vacant, only the node segments between it and
+ * the next occupied segment ahead of it need updating.
+ */
+public class ArrivalIndex {
+
+    /**
+     * The loop this index is over.
+     */
+    private final TrackLoop loop;
+
+    /**
+     * Which segments of the loop have a train on them.
+     */
+    private final BitSet occupied = new BitSet();
+
+    /**
+     * For each node segment, the index of the nearest occupied segment strictly behind it,
+     * or -1 if there is none. In a cyclic loop this may be the node segment itself, if
+     * it is the only occupied segment.
+     */
+    private final int[] incoming;
+
+    /**
+     * Creates the arrival index of a loop from the current occupancy of its segments.
+     *
+     * @param loop The loop to index.
+     */
+    ArrivalIndex(TrackLoop loop) {
+        this.loop = loop;
+
+        int n = loop.size();
+        incoming = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            if (!loop.getSegment(i).isEmpty()) {
+                occupied.set(i);
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            incoming[i] = previousOccupied(i);
+        }
+    }
+
+    /**
+     * Records whether a segment has a train on it, updating the nodes it precedes.
+     *
+     * @param index      The index of the segment in the loop.
+     * @param isOccupied Whether the segment has a train on it.
+     */
+    synchronized void setOccupied(int index, boolean isOccupied) {
+        if (occupied.get(index) == isOccupied) return;
+
+        occupied.set(index, isOccupied);
+
+        // The nodes up to and including the next occupied segment ahead
+        // now see either this segment, or whatever is behind it
+        int value = isOccupied ? index : previousOccupied(index);
+        int rangeEnd = nextOccupied(index);
+
+        int n = loop.size();
+        int range = rangeEnd == -1 ? n : distance(index, rangeEnd);
+
+        int node = loop.nextNodeIndex(index, Direction.FORWARD);
+        int lastDistance = 0;
+        while (node != -1) {
+            int nodeDistance = distance(index, node);
+            if (nodeDistance > range || nodeDistance <= lastDistance) break;
+
+            incoming[node] = value;
+
+            lastDistance = nodeDistance;
+            node = loop.nextNodeIndex(node, Direction.FORWARD);
+        }
+    }
+
+    /**
+     * Returns the index of the nearest occupied segment strictly behind the given segment.
+     * In a cyclic loop this will be the segment itself if it is the only one occupied.
+     *
+     * @param index The index of the segment in the loop.
+     * @return The index of the nearest occupied segment behind it, or -1 if there is none.
+     */
+    public synchronized int incoming(int index) {
+        if (loop.getSegment(index).getNode().isPresent()) {
+            return incoming[index];
+        }
+        return previousOccupied(index);
+    }
+
+    /**
+     * Returns the index of the nearest occupied segment behind another occupied segment,
+     * without going further back than once around the loop from a starting segment.
+     *
+     * @param from  The index of the segment the search started from.
+     * @param after The index of an occupied segment behind {@code from}.
+     * @return The index of the next occupied segment behind {@code after}, or -1 if there is none.
+     */
+    public synchronized int nextIncoming(int from, int after) {
+        int candidate = previousOccupied(after);
+        if (candidate == -1) return -1;
+
+        int n = loop.size();
+        int afterDistance = after == from ? n : Math.floorMod(from - after, n);
+        int candidateDistance = candidate == from ? n : Math.floorMod(from - candidate, n);
+
+        return candidateDistance > afterDistance ? candidate : -1;
+    }
+
+    /**
+     * Finds the nearest occupied segment strictly behind the given segment.
+     */
+    private int previousOccupied(int index) {
+        int found = index > 0 ? occupied.previousSetBit(index - 1) : -1;
+        if (found == -1 && loop.isCyclic()) {
+            found = occupied.previousSetBit(loop.size() - 1);
+        }
+        return found;
+    }
+
+    /**
+     * Finds the nearest occupied segment strictly ahead of the given segment.
+     */
+    private int nextOccupied(int index) {
+        int found = occupied.nextSetBit(index + 1);
+        if (found >= loop.size()) found = -1;
+        if (found == -1 && loop.isCyclic()) {
+            found = occupied.nextSetBit(0);
+        }
+        return found;
+    }
+
+    /**
+     * The number of segments going forward from one segment to another,
+     * a full loop if they are the same.
+     */
+    private int distance(int from, int to) {
+        int n = loop.size();
+        if (!loop.isCyclic()) return to - from;
+        int distance = Math.floorMod(to - from, n);
+        return distance == 0 ? n : distance;
+    }
+
+}
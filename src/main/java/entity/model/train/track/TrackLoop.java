@@ -0,0 +1,323 @@
+package entity.model.train.track;
+
+import entity.model.Direction;
+import util.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A compiled index over a chain of linked track segments, either a cycle
+ * or a line with two endpoints. The segments are laid out in forward order
+ * along with their cumulative offsets, so that positions along the loop can
+ * be found by binary search and distances computed by subtraction, instead
+ * of walking the linked segments.
+ * <p>
+ * A loop becomes invalid as soon as any of its segments is linked or unlinked,
+ * at which point callers should fall back to walking the segments.
+ */
+public class TrackLoop {
+
+    /**
+     * The segments of this loop in forward order.
+     */
+    private final TrackSegment[] segments;
+
+    /**
+     * The offset of the start of each segment from the start of the loop.
+     * This has one more entry than there are segments, the last being the
+     * total length of the loop.
+     */
+    private final double[] offsets;
+
+    /**
+     * For each segment, the index of the next segment with a node going forward,
+     * excluding the segment itself unless it is the only one, or -1 if there is none.
+     */
+    private final int[] nextNodeForward;
+
+    /**
+     * For each segment, the index of the next segment with a node going backward,
+     * excluding the segment itself unless it is the only one, or -1 if there is none.
+     */
+    private final int[] nextNodeBackward;
+
+    /**
+     * Whether the last segment is linked back to the first.
+     */
+    private final boolean cyclic;
+
+    /**
+     * Whether the segments have not been relinked since this loop was compiled.
+     */
+    private volatile boolean valid = true;
+
+    /**
+     * The index of which segments of this loop are occupied.
+     */
+    private final ArrivalIndex arrivalIndex;
+
+    /**
+     * Compiles the loop containing the given segment, and attaches it to all of its segments.
+     *
+     * @param root Any segment of the loop.
+     */
+    private TrackLoop(TrackSegment root) {
+
+        // Find the first segment, or notice that there is no first segment
+        TrackSegment first = root;
+        while (first.getPrev() != null && first.getPrev() != root) {
+            first = first.getPrev();
+        }
+
+        cyclic = first.getPrev() == root;
+        if (cyclic) first = root;
+
+        List<TrackSegment> list = new ArrayList<>();
+        TrackSegment curr = first;
+        do {
+            list.add(curr);
+            curr = curr.getNext();
+        } while (curr != null && curr != first);
+
+        int n = list.size();
+        segments = list.toArray(new TrackSegment[0]);
+        offsets = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = offsets[i] + segments[i].getLength();
+        }
+
+        nextNodeForward = new int[n];
+        nextNodeBackward = new int[n];
+        for (int i = 0; i < n; i++) {
+            nextNodeForward[i] = findNextNode(i, 1);
+            nextNodeBackward[i] = findNextNode(i, -1);
+        }
+
+        arrivalIndex = new ArrivalIndex(this);
+
+        for (int i = 0; i < n; i++) {
+            segments[i].attachLoop(this, i);
+        }
+    }
+
+    /**
+     * Walks the segments from the given index to find the next one with a node.
+     * This is only done while compiling the loop.
+     */
+    private int findNextNode(int from, int step) {
+        int n = segments.length;
+        for (int hops = 1; hops <= n; hops++) {
+            int index = from + hops * step;
+            if (cyclic) {
+                index = Math.floorMod(index, n);
+            } else if (index < 0 || index >= n) {
+                return -1;
+            }
+            if (segments[index].getNode().isPresent()) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compiles the loops of all the given segments, replacing any loops they were part of.
+     *
+     * @param tracks The segments to compile.
+     * @return The compiled loops.
+     */
+    public static List<TrackLoop> compile(Collection<TrackSegment> tracks) {
+        Set<TrackSegment> compiled = new HashSet<>();
+        List<TrackLoop> loops = new ArrayList<>();
+
+        for (TrackSegment track : tracks) {
+            if (compiled.contains(track)) continue;
+
+            TrackLoop loop = new TrackLoop(track);
+            compiled.addAll(List.of(loop.segments));
+            loops.add(loop);
+        }
+
+        return loops;
+    }
+
+    /**
+     * Marks this loop as invalid, as its segments have been relinked.
+     */
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Returns whether the segments have not been relinked since this loop was compiled.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Returns whether the last segment of this loop is linked back to the first.
+     */
+    public boolean isCyclic() {
+        return cyclic;
+    }
+
+    /**
+     * Returns the index of which segments of this loop are occupied.
+     */
+    public ArrivalIndex getArrivalIndex() {
+        return arrivalIndex;
+    }
+
+    /**
+     * Returns the number of segments in this loop.
+     */
+    public int size() {
+        return segments.length;
+    }
+
+    /**
+     * Returns the total length of this loop.
+     */
+    public double getLength() {
+        return offsets[segments.length];
+    }
+
+    /**
+     * Returns the segment at the given index.
+     *
+     * @param index The index of the segment, in forward order.
+     */
+    public TrackSegment getSegment(int index) {
+        return segments[index];
+    }
+
+    /**
+     * Returns the offset of the start of the segment at the given index from the start of the loop.
+     *
+     * @param index The index of the segment, in forward order.
+     */
+    public double getOffset(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Returns the index of the segment containing the given offset from the start of the loop.
+     * The offset must be within [0, {@link #getLength()}).
+     *
+     * @param offset The offset from the start of the loop.
+     * @return The index of the segment containing the offset.
+     */
+    public int indexOf(double offset) {
+        int low = 0;
+        int high = segments.length - 1;
+
+        // Find the last segment starting at or before the offset
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns the index of the next segment with a node from the given segment,
+     * not counting the segment itself unless it is the only one in a cyclic loop.
+     *
+     * @param index     The index of the segment to look from.
+     * @param direction The direction to look towards.
+     * @return The index of the next segment with a node, or -1 if there is none.
+     */
+    public int nextNodeIndex(int index, Direction direction) {
+        return direction == Direction.FORWARD ? nextNodeForward[index] : nextNodeBackward[index];
+    }
+
+    /**
+     * Returns the distance from a position on one segment to the near end of another,
+     * segment ahead of it, that is, the start of the other segment going forward, or
+     * its end going backward.
+     *
+     * @param from            The index of the segment the position is on.
+     * @param positionOnTrack The position on that segment.
+     * @param to              The index of the segment to measure to.
+     * @param direction       The direction to measure in.
+     * @return The distance between them.
+     */
+    public double distanceTo(int from, double positionOnTrack, int to, Direction direction) {
+        double total = getLength();
+        if (direction == Direction.FORWARD) {
+            double distance = offsets[to] - offsets[from] - positionOnTrack;
+            return to <= from ? distance + total : distance;
+        } else {
+            double distance = positionOnTrack + offsets[from] - offsets[to + 1];
+            return to >= from ? distance + total : distance;
+        }
+    }
+
+    /**
+     * Computes the segment a position lands on after moving along this loop. This
+     * does not allocate, and does not walk the segments unless checking for collisions.
+     *
+     * @param from            The index of the segment the position is on.
+     * @param positionOnTrack The position on that segment.
+     * @param amount          The amount to move by, negative to move backward.
+     * @param noClip          Whether to ignore occupied segments in the way.
+     * @return The index of the segment landed on, or -1 if an endpoint or an
+     * occupied segment is in the way.
+     */
+    public int moveIndex(int from, double positionOnTrack, double amount, boolean noClip) {
+        Preconditions.checkState(valid, "Track loop is no longer valid");
+
+        int n = segments.length;
+        double total = getLength();
+        double target = offsets[from] + positionOnTrack + amount;
+
+        // The number of whole loops moved, and the index of the landing
+        // segment relative to the segment at the start of this loop
+        long laps = (long) Math.floor(target / total);
+        if (!cyclic && laps != 0) return -1;
+
+        int to = indexOf(target - laps * total);
+        long hops = Math.abs(laps * n + to - from);
+
+        if (!noClip) {
+            // Going all the way around runs into the train itself
+            if (hops >= n) return -1;
+
+            int step = amount < 0 ? -1 : 1;
+            for (int i = 1; i <= hops; i++) {
+                if (!segments[Math.floorMod(from + i * step, n)].isEmpty()) return -1;
+            }
+        }
+
+        return to;
+    }
+
+    /**
+     * Returns the position on the landing segment after moving along this loop.
+     *
+     * @param from            The index of the segment the position is on.
+     * @param positionOnTrack The position on that segment.
+     * @param amount          The amount to move by, negative to move backward.
+     * @param to              The index returned by {@link #moveIndex(int, double, double, boolean)}.
+     * @return The position on the landing segment.
+     */
+    public double movePosition(int from, double positionOnTrack, double amount, int to) {
+        double total = getLength();
+        double target = offsets[from] + positionOnTrack + amount;
+        target -= Math.floor(target / total) * total;
+
+        double position = target - offsets[to];
+        return Math.max(0.0, Math.min(position, segments[to].getLength()));
+    }
+
+}
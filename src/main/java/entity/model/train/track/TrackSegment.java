@@ -37,7 +37,15 @@ public class TrackSegment {
     /**
      * The Train object representing the train on the track segment.
      */
-    private Train train = null;
+    private volatile Train train = null;
+    /**
+     * The compiled loop this track segment is part of, or null if it has not been compiled.
+     */
+    private TrackLoop loop = null;
+    /**
+     * The index of this track segment in its compiled loop.
+     */
+    private int loopIndex = -1;
 
     /**
      * Constructs a new TrackSegment object with the specified track repository, ID, and length.
@@ -211,6 +219,53 @@ public class TrackSegment {
                 "Track already has a train"
         );
         this.train = train;
+
+        TrackLoop loop = getLoop();
+        if (loop != null) {
+            loop.getArrivalIndex().setOccupied(loopIndex, train != null);
+        }
+    }
+
+    /**
+     * Retrieves the compiled loop this track segment is part of.
+     *
+     * @return The loop of this track segment, or null if it has not been compiled
+     * or the segments have been relinked since.
+     */
+    public TrackLoop getLoop() {
+        TrackLoop loop = this.loop;
+        return loop != null && loop.isValid() ? loop : null;
+    }
+
+    /**
+     * Retrieves the index of this track segment in its compiled loop.
+     *
+     * @return The index of this track segment in the loop returned by {@link #getLoop()}.
+     */
+    public int getLoopIndex() {
+        return loopIndex;
+    }
+
+    /**
+     * Attaches this track segment to a newly compiled loop.
+     *
+     * @param loop  The loop this track segment is part of.
+     * @param index The index of this track segment in the loop.
+     */
+    void attachLoop(TrackLoop loop, int index) {
+        this.loop = loop;
+        this.loopIndex = index;
+    }
+
+    /**
+     * Invalidates the compiled loop this track segment is part of, if any.
+     */
+    private void invalidateLoop() {
+        if (loop != null) {
+            loop.invalidate();
+            loop = null;
+            loopIndex = -1;
+        }
     }
 
     /**
@@ -281,6 +336,9 @@ public class TrackSegment {
         Preconditions.checkState(next.prev == null,
                 "next is linked to a different track!");
 
+        prev.invalidateLoop();
+        next.invalidateLoop();
+
         prev.next = next;
         next.prev = prev;
     }
@@ -302,6 +360,9 @@ public class TrackSegment {
         Preconditions.checkState(prev.next == next, "prev is not linked to next!");
         Preconditions.checkState(next.prev == prev, "next is not linked to prev!");
 
+        prev.invalidateLoop();
+        next.invalidateLoop();
+
         prev.next = null;
         next.prev = null;
     }
@@ -1,5 +1,7 @@
 package entity.ticket;
 
+import util.Clocks;
+
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -25,7 +27,7 @@ public class Ticket {
     /**
      * The time when the ticket was created in milliseconds.
      */
-    private long createdAt = System.currentTimeMillis();
+    private long createdAt = Clocks.millis();
 
     /**
      * The id of the ticket
@@ -46,8 +48,9 @@ public class Ticket {
     }
 
     /**
-     * Constructs a new Ticket object. The ticket's id is randomly generated.
-     * The ticket's type is given as a parameter.
+     * Constructs a new Ticket object. The ticket's id is randomly generated, and may
+     * collide with another ticket's, so tickets that are stored should be given an id
+     * from an id allocator instead. The ticket's type is given as a parameter.
      */
     public Ticket(TicketType type) {
         this(ThreadLocalRandom.current().nextInt(999999999), type);
@@ -138,7 +141,20 @@ public class Ticket {
      */
     public void activate() {
         activated = true;
-        this.expiry = System.currentTimeMillis() + type.getLifetime();
+        this.expiry = Clocks.millis() + type.getLifetime();
+    }
+
+    /**
+     * Returns a copy of this ticket, which changes independently of it.
+     *
+     * @return A ticket with the same id, type, state, and times.
+     */
+    public Ticket copy() {
+        Ticket copy = new Ticket(id, type);
+        copy.expiry = expiry;
+        copy.createdAt = createdAt;
+        copy.activated = activated;
+        return copy;
     }
 
     /**
@@ -156,10 +172,26 @@ public class Ticket {
         return false;
     }
 
+    /**
+     * Returns the time after which this ticket is expired, the earlier of its expiry time and the
+     * time it was created plus {@link #HARD_EXPIRY_TIME}, or {@link Long#MAX_VALUE} if it has neither.
+     *
+     * @return the expiry deadline of the ticket in milliseconds
+     */
+    public long getExpiryDeadline() {
+        long deadline = Long.MAX_VALUE;
+        if (expiry != -1) deadline = expiry;
+        if (createdAt != -1) deadline = Math.min(deadline, createdAt + Ticket.HARD_EXPIRY_TIME);
+        return deadline;
+    }
+
+    /**
+     * Returns whether the ticket is expired, that is, whether its expiry deadline has passed.
+     *
+     * @return whether the ticket is expired
+     */
     public boolean isExpired() {
-        long now = System.currentTimeMillis();
-        if (expiry != -1 && now > expiry) return true;
-        return createdAt != -1 && now > createdAt + Ticket.HARD_EXPIRY_TIME;
+        return Clocks.millis() > getExpiryDeadline();
     }
 
 }
\ No newline at end of file
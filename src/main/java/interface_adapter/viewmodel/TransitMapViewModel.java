@@ -3,8 +3,7 @@ package interface_adapter.viewmodel;
 import app_business.boundary.IStationInteractor;
 import app_business.dto.StationDTO;
 import app_business.boundary.ITrainInteractor;
-import app_business.dto.TrainArrivalDTO;
-import app_business.dto.TrainDTO;
+import app_business.dto.TrainSnapshot;
 import entity.model.Direction;
 
 import java.awt.*;
@@ -33,6 +32,37 @@ public class TransitMapViewModel {
      */
     private static final int STATION_ICON_SIZE = 7;
 
+    /**
+     * The colours of each line, by line number starting from 1.
+     */
+    private static final List<Color> LINE_COLOURS = List.of(
+            new Color(255, 206, 47),
+            new Color(113, 194, 113),
+            new Color(41, 163, 217),
+            new Color(192, 38, 192),
+            Color.PINK
+    );
+
+    /**
+     * The stroke used to draw the lines.
+     */
+    private static final Stroke LINE_STROKE = new BasicStroke(11, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+
+    /**
+     * The font used for station names.
+     */
+    private static final Font STATION_FONT = new Font("Arial", Font.BOLD, 12);
+
+    /**
+     * The font used for the names of trains at stations.
+     */
+    private static final Font STATION_TRAIN_FONT = new Font("Arial", Font.PLAIN, 12);
+
+    /**
+     * The font used for the names of trains between stations.
+     */
+    private static final Font TRAIN_FONT = new Font("Arial", Font.PLAIN, 10);
+
     /**
      * The station interactor.
      */
@@ -44,14 +74,15 @@ public class TransitMapViewModel {
     private final ITrainInteractor trainInteractor;
 
     /**
-     * The list of stations to draw.
+     * The list of stations to draw. Stations never change, so these are only loaded once.
      */
-    protected List<StationDTO> stations = new ArrayList<>();
+    protected List<StationDTO> stations = null;
 
     /**
-     * The list of trains to draw.
+     * The track between stations to draw, as the line number followed by the
+     * coordinates of both stations in metres, five entries per piece of track.
      */
-    protected List<TrainDTO> trains = new ArrayList<>();
+    private double[] lineSegments = new double[0];
 
     /**
      * The station that is currently highlighted.
@@ -98,25 +129,48 @@ public class TransitMapViewModel {
     }
 
     /**
-     * Presents (draws) the screen.
+     * Loads the stations and the track between them, if they have not been loaded yet.
+     */
+    private void loadStations() {
+        if (stations != null) return;
+
+        stations = stationInteractor.getStations();
+
+        // For each station, get the next station on each line
+        List<Double> segments = new ArrayList<>();
+        for (StationDTO station : stations) {
+            for (int line : station.getLines()) {
+                Optional<StationDTO> optNextStation = stationInteractor.getNextStation(station.getName(), line, Direction.FORWARD);
+                if (optNextStation.isEmpty()) continue;
+                StationDTO nextStation = optNextStation.get();
+
+                segments.add((double) line);
+                segments.add((double) station.getX());
+                segments.add((double) station.getY());
+                segments.add((double) nextStation.getX());
+                segments.add((double) nextStation.getY());
+            }
+        }
+
+        lineSegments = segments.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * Presents (draws) the screen. The stations are only loaded the first time,
+     * and the trains are read from the latest snapshot published by the simulation,
+     * so drawing does not need to look at the model at all.
      */
     public void present(Graphics2D graphics, int width, int height) {
 
-        this.stations = stationInteractor.getStations();
-        this.trains = trainInteractor.getTrains();
+        loadStations();
+
+        TrainSnapshot trains = trainInteractor.getSnapshot();
 
         this.width = width;
         this.height = height;
 
         graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        List<Color> lineColours = new ArrayList<>();
-        lineColours.add(new Color(255, 206, 47));
-        lineColours.add(new Color(113, 194, 113));
-        lineColours.add(new Color(41, 163, 217));
-        lineColours.add(new Color(192, 38, 192));
-        lineColours.add(Color.PINK);
-
         // Background
         graphics.setColor(Color.WHITE);
         graphics.fillRect(0, 0, width, height);
@@ -124,29 +178,25 @@ public class TransitMapViewModel {
         double scaleX = width / MAP_SIZE_X;
         double scaleY = height / MAP_SIZE_Y;
 
-        // For each station, get the next station and draw a line between them
-        for (StationDTO station : stations) {
-            for (int line : station.getLines()) {
-                Optional<StationDTO> optNextStation = stationInteractor.getNextStation(station.getName(), line, Direction.FORWARD);
-                if (optNextStation.isEmpty()) continue;
-                StationDTO nextStation = optNextStation.get();
-                int x = (int) (station.getX() * scaleX);
-                int y = (int) (station.getY() * scaleY);
-
-                int nextX = (int) (nextStation.getX() * scaleX);
-                int nextY = (int) (nextStation.getY() * scaleY);
+        // Draw a line between each station and the next
+        Stroke stroke = graphics.getStroke();
+        graphics.setStroke(LINE_STROKE);
+        for (int i = 0; i < lineSegments.length; i += 5) {
+            int line = (int) lineSegments[i];
+            int x = (int) (lineSegments[i + 1] * scaleX);
+            int y = (int) (lineSegments[i + 2] * scaleY);
 
-                graphics.setColor(lineColours.get(line - 1));
-                Stroke stroke = graphics.getStroke();
-                graphics.setStroke(new BasicStroke(11, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-                graphics.drawLine(x, y, nextX, nextY);
-                graphics.setStroke(stroke);
+            int nextX = (int) (lineSegments[i + 3] * scaleX);
+            int nextY = (int) (lineSegments[i + 4] * scaleY);
 
-                graphics.setColor(Color.BLACK);
-            }
+            graphics.setColor(LINE_COLOURS.get(line - 1));
+            graphics.drawLine(x, y, nextX, nextY);
         }
+        graphics.setStroke(stroke);
+        graphics.setColor(Color.BLACK);
 
         // Draw each station as a dark green circle with a black border
+        graphics.setFont(STATION_FONT);
         for (StationDTO station : stations) {
             int x = (int) (station.getX() * scaleX);
             int y = (int) (station.getY() * scaleY);
@@ -171,72 +221,32 @@ public class TransitMapViewModel {
                     STATION_ICON_SIZE * 2);
 
             // Draw their name to the upper-right
-            graphics.setFont(new Font("Arial", Font.BOLD, 12));
             AffineTransform transform = graphics.getTransform();
-            graphics.transform(AffineTransform.getRotateInstance(-Math.PI / 4, x, y));
+            graphics.rotate(-Math.PI / 4, x, y);
             graphics.drawString(station.getName(), x + STATION_ICON_SIZE + 5, y + STATION_ICON_SIZE / 2);
             graphics.setTransform(transform);
 
         }
 
         // Draw trains
-        for (TrainDTO train : trains) {
-
-            if (train.getCurrentStation().isPresent()) {
-
-                // At a station,
-                // draw the train at the station
-                StationDTO station = train.getCurrentStation().get();
-                double stationX = station.getX();
-                double stationY = station.getY();
+        if (trains == null) return;
 
-                stationX *= scaleX;
-                stationY *= scaleY;
+        for (int i = 0; i < trains.size(); i++) {
 
-                // Draw the train at the station
-                drawTrain(graphics, stationX, stationY);
-
-                // Draw the train's name
-                graphics.setFont(new Font("Arial", Font.PLAIN, 12));
-                graphics.drawString(train.getName(), (int) stationX + 5, (int) stationY - 5);
-
-                continue;
-            }
-
-            TrainArrivalDTO nextDistance = train.getNextNodeDistance().orElse(null);
-            if (nextDistance == null) continue;
-
-            TrainArrivalDTO prevDistance = train.getPreviousNodeDistance().orElse(null);
-            if (prevDistance == null) continue;
-
-            double nextXO = nextDistance.getStation().getX();
-            double nextYO = nextDistance.getStation().getY();
-
-            double prevXO = prevDistance.getStation().getX();
-            double prevYO = prevDistance.getStation().getY();
-
-            double dx = nextXO - prevXO;
-            double dy = nextYO - prevYO;
-
-            // Normalize
-            double length = Math.sqrt(dx * dx + dy * dy);
-            if (length == 0.0) continue;
-
-            dx /= length;
-            dy /= length;
-
-            double trainX = prevXO + dx * prevDistance.getDistance();
-            double trainY = prevYO + dy * prevDistance.getDistance();
-
-            trainX *= scaleX;
-            trainY *= scaleY;
+            double trainX = trains.getX(i) * scaleX;
+            double trainY = trains.getY(i) * scaleY;
 
             // Draw the train at its coordinates
             drawTrain(graphics, trainX, trainY);
 
             // Train's name
-            graphics.setFont(new Font("Arial", Font.PLAIN, 10));
-            graphics.drawString(train.getName(), (int) trainX + 6, (int) trainY - 6);
+            if (trains.isAtStation(i)) {
+                graphics.setFont(STATION_TRAIN_FONT);
+                graphics.drawString(trains.getName(i), (int) trainX + 5, (int) trainY - 5);
+            } else {
+                graphics.setFont(TRAIN_FONT);
+                graphics.drawString(trains.getName(i), (int) trainX + 6, (int) trainY - 6);
+            }
         }
     }
 
@@ -248,6 +258,8 @@ public class TransitMapViewModel {
      * @return The station at the given coordinates, if any.
      */
     private Optional<StationDTO> getStationAt(int x, int y) {
+        if (stations == null) return Optional.empty();
+
         double scaleX = width / MAP_SIZE_X;
         double scaleY = height / MAP_SIZE_Y;
 
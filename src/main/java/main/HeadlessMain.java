@@ -0,0 +1,136 @@
+package main;
+
+import app_business.interactor.EmployeeInteractor;
+import app_business.interactor.StatInteractor;
+import app_business.interactor.StationInteractor;
+import app_business.interactor.TicketInteractor;
+import app_business.interactor.TrainInteractor;
+import entity.model.control.TransitModel;
+import main.pool.InteractorPool;
+import persistence.boundary.ModelDataStore;
+import persistence.impl.file.JsonModelDataStore;
+import persistence.impl.memory.MemoryAggregateDataStore;
+import persistence.impl.memory.MemoryEmployeeDataStore;
+import persistence.impl.memory.MemoryEntryDataStore;
+import persistence.impl.memory.MemoryTicketDataStore;
+import simulation.Simulation;
+import simulation.api.TickMetrics;
+import simulation.schedulers.SimulatedTickScheduler;
+import simulation.simulators.TrainSimulator;
+import stats.StatDataControllerImpl;
+import stats.StatTracker;
+import stats.aggregate.SingletonAggregate;
+import stats.aggregator.impl.ExpenseAggregator;
+import stats.aggregator.impl.RevenueAggregator;
+import stats.timing.BasicTimeIndexingStrategy;
+import stats.timing.TimeIndexingStrategy;
+import util.Clocks;
+import util.SimulatedClock;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the simulation headless (without any UI) on a simulated clock, as fast
+ * as possible, and prints a summary once done. This is useful for capacity
+ * planning and benchmarking, as days of operation can be simulated in seconds.
+ * <p>
+ * Usage: {@code HeadlessMain [simulated hours] [ticks per second]}
+ */
+@SuppressWarnings("BlockingMethodInNonBlockingContext")
+public class HeadlessMain {
+
+    /**
+     * The default number of simulated hours to run for.
+     */
+    private static final long DEFAULT_HOURS = 24;
+
+    /**
+     * The main method that runs the headless simulation.
+     *
+     * @param args The command line arguments.
+     * @throws IOException If there is an error reading the model file.
+     */
+    public static void main(String[] args) throws IOException {
+
+        long hours = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_HOURS;
+        int ticksPerSecond = args.length > 1 ? Integer.parseInt(args[1]) : Simulation.TICK_SPEED;
+
+        File file = File.createTempFile("model", ".json");
+        file.deleteOnExit();
+        try (InputStream str = HeadlessMain.class.getClassLoader()
+                .getResourceAsStream("Model 2.json")) {
+            assert str != null;
+            Files.write(file.toPath(), str.readAllBytes());
+        }
+
+        // Everything reads the time from the simulated clock
+        SimulatedClock clock = new SimulatedClock(System.currentTimeMillis());
+        Clocks.set(clock);
+
+        // Create the model
+        ModelDataStore dataStore = new JsonModelDataStore(file);
+        TransitModel model = dataStore.readModel();
+
+        // Stats are kept in memory, nothing is persisted
+        TimeIndexingStrategy indexStrategy = new BasicTimeIndexingStrategy(4000, clock);
+        StatTracker stats = new StatDataControllerImpl(indexStrategy,
+                new MemoryEntryDataStore(), new MemoryAggregateDataStore());
+
+        InteractorPool pool = new InteractorPool(
+                new StationInteractor(model),
+                new TrainInteractor(model),
+                new TicketInteractor(new MemoryTicketDataStore(), stats),
+                new EmployeeInteractor(new MemoryEmployeeDataStore(), model),
+                new StatInteractor(stats)
+        );
+
+        SimulatedTickScheduler scheduler = new SimulatedTickScheduler(clock, ticksPerSecond, hours, TimeUnit.HOURS);
+
+        Simulation simulation = new Simulation(model, pool, stats, scheduler);
+        simulation.addSimulator(new TrainSimulator(stats, ForkJoinPool.commonPool()));
+
+        long startIndex = indexStrategy.getTimeIndex();
+        long realStart = System.nanoTime();
+
+        simulation.start();
+
+        long realMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - realStart);
+
+        stats.flush();
+        long endIndex = indexStrategy.getTimeIndex();
+
+        double revenue = total(stats.getOrAggregate(new RevenueAggregator(), startIndex, endIndex));
+        double expenses = total(stats.getOrAggregate(new ExpenseAggregator(), startIndex, endIndex));
+
+        TickMetrics metrics = simulation.getTickMetrics();
+        double simulatedMillis = TimeUnit.HOURS.toMillis(hours);
+
+        System.out.printf("Simulated %d hours in %.2f s (%.0fx real time)%n",
+                hours, realMillis / 1000.0, simulatedMillis / Math.max(1, realMillis));
+        System.out.printf("Ticks: %d, average %.1f us, max %.1f us%n",
+                metrics.getTickCount(),
+                metrics.getAverageTickNanos() / 1000.0,
+                metrics.getMaxTickNanos() / 1000.0);
+        System.out.printf("Trains: %d%n", model.getTrainList().size());
+        System.out.printf("Revenue: $%.2f, expenses: $%.2f%n", revenue, expenses);
+
+        stats.close();
+        System.exit(0);
+    }
+
+    /**
+     * Sums the values of the given aggregates.
+     */
+    private static double total(Map<Long, ? extends SingletonAggregate<Double>> aggregates) {
+        return aggregates.values().stream()
+                .mapToDouble(SingletonAggregate::getValue)
+                .sum();
+    }
+
+}
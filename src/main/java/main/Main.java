@@ -1,10 +1,13 @@
 package main;
 
 import entity.employee.Admin;
+import entity.employee.Employee;
 import entity.employee.TrainEngineer;
 import entity.employee.TrainOperator;
+import entity.ticket.Ticket;
 import persistence.boundary.*;
 import persistence.impl.file.FileEmployeeDataStore;
+import persistence.impl.file.FileIdAllocator;
 import app_business.interactor.EmployeeInteractor;
 import app_business.interactor.StatInteractor;
 import app_business.interactor.StationInteractor;
@@ -20,8 +23,9 @@ import simulation.simulators.TrainSimulator;
 import stats.StatDataControllerImpl;
 import stats.StatTracker;
 import persistence.impl.file.FileAggregateDataStore;
-import persistence.impl.file.FileEntryDataStore;
-import persistence.impl.file.JsonTicketDataStore;
+import persistence.impl.file.LogEntryDataStore;
+import persistence.impl.file.BinaryTicketDataStore;
+import persistence.impl.cache.CachedTicketDataStore;
 import stats.timing.BasicTimeIndexingStrategy;
 import stats.timing.TimeIndexingStrategy;
 import ui.UIController;
@@ -68,24 +72,53 @@ public class Main {
         TransitModel model = dataStore.readModel();
 
         // Stat data storage
-        StatEntryDataStore statDataStore = new FileEntryDataStore(new File("stat-entries"));
+        LogEntryDataStore statDataStore = new LogEntryDataStore(new File("stat-entries"));
         StatAggregateDataStore statAggregateDataStore = new FileAggregateDataStore(new File("stat-aggregates"));
         TimeIndexingStrategy indexStrategy = new BasicTimeIndexingStrategy(4000);
 
         StatTracker stats = new StatDataControllerImpl(indexStrategy, statDataStore, statAggregateDataStore);
 
+        // Write out the recorded stats when the program exits
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stats.close();
+            statDataStore.close();
+        }, "stat-shutdown"));
+
         // Ticket data store
-        TicketDataStore store = new JsonTicketDataStore(new File("tickets"));
+        BinaryTicketDataStore ticketFile = new BinaryTicketDataStore(new File("tickets.dat"));
+        TicketDataStore store = new CachedTicketDataStore(ticketFile);
+
+        // Close the ticket file when the program exits
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                ticketFile.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "ticket-shutdown"));
 
         // Employee data store
         EmployeeDataStore employeeDataStore = new FileEmployeeDataStore(new File("employees"));
 
+        // Default employees
+        employeeDataStore.save(new Admin(123, "Matt"));
+        employeeDataStore.save(new Admin(111, "Grace"));
+        employeeDataStore.save(new TrainEngineer(222, "Charles"));
+        employeeDataStore.save(new TrainEngineer(333, "Zoey"));
+        employeeDataStore.save(new TrainOperator(444, "Jarret"));
+
+        // New ids continue past every id already stored
+        IdAllocator ticketIds = new FileIdAllocator(new File("tickets.ids"),
+                store.findAll().stream().mapToInt(Ticket::getId).max().orElse(0) + 1);
+        IdAllocator staffNumbers = new FileIdAllocator(new File("employees.ids"),
+                employeeDataStore.findAll().stream().mapToInt(Employee::getStaffNumber).max().orElse(0) + 1);
+
         // Create the presenter
         InteractorPool pool = new InteractorPool(
                 new StationInteractor(model),
                 new TrainInteractor(model),
-                new TicketInteractor(store, stats),
-                new EmployeeInteractor(employeeDataStore, model),
+                new TicketInteractor(store, stats, ticketIds),
+                new EmployeeInteractor(employeeDataStore, model, staffNumbers),
                 new StatInteractor(stats)
         );
 
@@ -93,13 +126,6 @@ public class Main {
         UIController controller = new UIController(pool);
         controller.open(new WelcomePage(controller));
 
-        // Default employees
-        employeeDataStore.save(new Admin(123, "Matt"));
-        employeeDataStore.save(new Admin(111, "Grace"));
-        employeeDataStore.save(new TrainEngineer(222, "Charles"));
-        employeeDataStore.save(new TrainEngineer(333, "Zoey"));
-        employeeDataStore.save(new TrainOperator(444, "Jarret"));
-
         // Start the simulation
         Simulation simulation = new Simulation(model, pool, stats);
         simulation.addSimulator(new TrainSimulator(stats));
@@ -0,0 +1,145 @@
+package persistence;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * An index of ids ordered by the time they expire, so that the expired ids can be
+ * found without looking at those that have not expired.
+ * <p>
+ * Changing or removing the deadline of an id leaves its old entry in the queue, which is
+ * skipped when it is reached as it no longer matches the current deadline of the id. The
+ * queue is rebuilt once these stale entries outnumber the live ones.
+ * <p>
+ * This class is thread safe.
+ */
+public class ExpiryIndex {
+
+    /**
+     * The current deadline of every id in the index.
+     */
+    private final Map<Integer, Long> deadlines = new HashMap<>();
+
+    /**
+     * The entries of the index, the earliest deadline first, including stale entries.
+     */
+    private PriorityQueue<Entry> queue = new PriorityQueue<>();
+
+    /**
+     * Sets the deadline of an id, replacing any previous deadline.
+     *
+     * @param id       The id.
+     * @param deadline The time after which the id is expired, in milliseconds.
+     *                 {@link Long#MAX_VALUE} if it never expires.
+     */
+    public synchronized void update(int id, long deadline) {
+        Long previous = deadlines.put(id, deadline);
+        if (previous != null && previous == deadline) return;
+
+        if (deadline != Long.MAX_VALUE) {
+            queue.add(new Entry(id, deadline));
+        }
+        compactIfStale();
+    }
+
+    /**
+     * Removes an id from the index.
+     *
+     * @param id The id.
+     */
+    public synchronized void remove(int id) {
+        if (deadlines.remove(id) != null) {
+            compactIfStale();
+        }
+    }
+
+    /**
+     * Removes every id from the index.
+     */
+    public synchronized void clear() {
+        deadlines.clear();
+        queue.clear();
+    }
+
+    /**
+     * Returns the number of ids in the index.
+     */
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Removes the ids whose deadline has passed from the index, and returns them.
+     *
+     * @param now The current time in milliseconds.
+     * @return The ids that have expired, in the order they expired.
+     */
+    public synchronized int[] pollExpired(long now) {
+        int[] expired = new int[4];
+        int count = 0;
+
+        while (!queue.isEmpty() && queue.peek().deadline < now) {
+            Entry entry = queue.poll();
+
+            // Skip the entries left behind by updates and removals
+            Long deadline = deadlines.get(entry.id);
+            if (deadline == null || deadline != entry.deadline) continue;
+
+            deadlines.remove(entry.id);
+            if (count == expired.length) {
+                expired = Arrays.copyOf(expired, count * 2);
+            }
+            expired[count++] = entry.id;
+        }
+
+        return Arrays.copyOf(expired, count);
+    }
+
+    /**
+     * Rebuilds the queue from the current deadlines once most of its entries are stale.
+     */
+    private void compactIfStale() {
+        if (queue.size() < 64 || queue.size() <= deadlines.size() * 2) return;
+
+        PriorityQueue<Entry> live = new PriorityQueue<>(Math.max(1, deadlines.size()));
+        for (Map.Entry<Integer, Long> entry : deadlines.entrySet()) {
+            if (entry.getValue() != Long.MAX_VALUE) {
+                live.add(new Entry(entry.getKey(), entry.getValue()));
+            }
+        }
+        queue = live;
+    }
+
+    /**
+     * An entry of the queue, the deadline an id had when it was added.
+     */
+    private static class Entry implements Comparable<Entry> {
+
+        /**
+         * The id.
+         */
+        final int id;
+
+        /**
+         * The deadline of the id in milliseconds.
+         */
+        final long deadline;
+
+        /**
+         * Constructs an entry.
+         */
+        Entry(int id, long deadline) {
+            this.id = id;
+            this.deadline = deadline;
+        }
+
+        // Inherited javadoc
+        @Override
+        public int compareTo(Entry other) {
+            return Long.compare(deadline, other.deadline);
+        }
+    }
+
+}
@@ -1,21 +1,45 @@
 package persistence;
 
-import persistence.DataStorage;
+import persistence.codec.SerializableCodec;
+import persistence.codec.ValueCodec;
+import persistence.codec.ValueCodecs;
+import persistence.codec.VarInts;
 
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.LongBuffer;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.zip.DataFormatException;
 
 /**
  * A utility class for reading and writing page files that store a map
  * of long keys to a generic type.
+ * <p>
+ * Pages are written in a versioned binary format: a magic number and format version,
+ * the identifier of the codec the values were written with, the number of values, the
+ * keys in ascending order as variable length deltas, and then the values in key order,
+ * each written by its {@link ValueCodec}. The whole page is then compressed.
+ * <p>
+ * Pages written before this format existed, which hold the keys followed by a Java
+ * serialization stream, are still read, and are rewritten in the binary format the
+ * next time they are written.
  */
 @SuppressWarnings("BlockingMethodInNonBlockingContext")
 public class PageFileUtils {
 
+    /**
+     * The magic number at the start of every binary page, "PAGE" in ASCII. The legacy format starts
+     * with the number of values instead, which would never be this large.
+     */
+    static final int MAGIC = 0x50414745;
+
+    /**
+     * The version of the binary page format written.
+     */
+    static final int VERSION = 1;
+
     /**
      * Reads a page file from the file system. If there is a class issue with
      * deserialization, an empty map will be returned.
@@ -26,13 +50,178 @@ public class PageFileUtils {
      * @return The map of data read from the file.
      */
     public static <T> Map<Long, T> read(File pageFile, Class<T> typeClass) {
+        return read(pageFile, ValueCodecs.forClass(typeClass), typeClass::cast);
+    }
 
+    /**
+     * Reads a page file from the file system. If the page cannot be decoded,
+     * an empty map will be returned.
+     *
+     * @param pageFile        The page file to read.
+     * @param codec           The codec the values were written with.
+     * @param legacyConverter Converts a value read by Java serialization, from a legacy
+     *                        page or a page written without a codec, to the type of the data.
+     * @param <T>             The type of the data.
+     * @return The map of data read from the file.
+     */
+    public static <T> Map<Long, T> read(File pageFile, ValueCodec<T> codec, Function<Object, T> legacyConverter) {
         try {
-
             byte[] bytes = DataStorage.getIO().read(pageFile);
 
             // Decompress the buffer
             bytes = DataStorage.getCompression().decompress(bytes);
+
+            return decode(bytes, codec, legacyConverter);
+
+        } catch (IOException | DataFormatException | ClassCastException e) {
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * Writes a page file to the file system, using the codec registered for the type of the data.
+     *
+     * @param pageFile  The page file to write.
+     * @param map       The map of data to write.
+     * @param typeClass The type of the data.
+     * @param <T>       The type of the data.
+     * @return A future completed once the page has been written.
+     */
+    public static <T> CompletableFuture<Void> write(File pageFile, Map<Long, T> map, Class<T> typeClass) {
+        return write(pageFile, map, ValueCodecs.forClass(typeClass));
+    }
+
+    /**
+     * Writes a page file to the file system.
+     *
+     * @param pageFile The page file to write.
+     * @param map      The map of data to write.
+     * @param codec    The codec to write the values with.
+     * @param <T>      The type of the data.
+     * @return A future completed once the page has been written.
+     */
+    public static <T> CompletableFuture<Void> write(File pageFile, Map<Long, T> map, ValueCodec<T> codec) {
+        try {
+            byte[] bytes = encode(map, codec);
+
+            // Compress
+            bytes = DataStorage.getCompression().compress(bytes);
+
+            return DataStorage.getIO().write(pageFile, bytes);
+
+        } catch (IOException e) {
+            e.printStackTrace();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Encodes a page in the binary format, before compression.
+     *
+     * @param map   The map of data to encode.
+     * @param codec The codec to write the values with.
+     * @param <T>   The type of the data.
+     * @return The encoded page.
+     * @throws IOException if a value cannot be written.
+     */
+    public static <T> byte[] encode(Map<Long, T> map, ValueCodec<T> codec) throws IOException {
+        long[] keys = new long[map.size()];
+        int i = 0;
+        for (long key : map.keySet()) {
+            keys[i++] = key;
+        }
+        Arrays.sort(keys);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeUTF(codec.getId());
+        VarInts.writeUnsigned(out, keys.length);
+
+        // The first key in full, then the gaps between the sorted keys
+        for (i = 0; i < keys.length; i++) {
+            if (i == 0) {
+                VarInts.writeSigned(out, keys[0]);
+            } else {
+                VarInts.writeUnsigned(out, keys[i] - keys[i - 1]);
+            }
+        }
+
+        for (long key : keys) {
+            codec.write(out, map.get(key));
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a page, before compression, in either the binary or the legacy format.
+     *
+     * @param bytes           The encoded page.
+     * @param codec           The codec the values were written with.
+     * @param legacyConverter Converts a value read by Java serialization to the type of the data.
+     * @param <T>             The type of the data.
+     * @return The map of data in the page.
+     * @throws IOException if the page is malformed, or was written by a different codec.
+     */
+    public static <T> Map<Long, T> decode(byte[] bytes, ValueCodec<T> codec, Function<Object, T> legacyConverter)
+            throws IOException {
+
+        if (bytes.length < 4 || ByteBuffer.wrap(bytes).getInt() != MAGIC) {
+            return decodeLegacy(bytes, legacyConverter);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.readInt();
+
+        int version = in.readUnsignedByte();
+        if (version > VERSION) {
+            throw new IOException("Unsupported page format version " + version);
+        }
+
+        // Pages written before a codec was registered for the type are still readable
+        String codecId = in.readUTF();
+        ValueReader<T> reader;
+        if (codecId.equals(codec.getId())) {
+            reader = codec::read;
+        } else if (codecId.equals(SerializableCodec.ID)) {
+            reader = serializedReader(legacyConverter);
+        } else {
+            throw new IOException("Page written by codec " + codecId + ", expected " + codec.getId());
+        }
+
+        int size = VarInts.readLength(in);
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i == 0 ? VarInts.readSigned(in) : keys[i - 1] + VarInts.readUnsigned(in);
+        }
+
+        Map<Long, T> map = new HashMap<>();
+        for (long key : keys) {
+            map.put(key, reader.read(in));
+        }
+        return map;
+    }
+
+    /**
+     * Returns a reader of values written by Java serialization, converting them to the type of the data.
+     */
+    private static <T> ValueReader<T> serializedReader(Function<Object, T> converter) {
+        ValueCodec<Object> serialized = new SerializableCodec<>(Object.class);
+        return in -> converter.apply(serialized.read(in));
+    }
+
+    /**
+     * Decodes a page in the legacy format, the number of values, the keys as
+     * fixed width longs, and then a Java serialization stream of the values.
+     */
+    private static <T> Map<Long, T> decodeLegacy(byte[] bytes, Function<Object, T> legacyConverter)
+            throws IOException {
+
+        try {
             ByteBuffer buffer = ByteBuffer.wrap(bytes);
 
             // The first 4 bytes make an integer representing the number of elements
@@ -55,52 +244,64 @@ public class PageFileUtils {
             try (ObjectInputStream ois = new ObjectInputStream(inStream)) {
                 Map<Long, T> map = new HashMap<>();
                 for (long key : keys) {
-                    map.put(key, typeClass.cast(ois.readObject()));
+                    map.put(key, legacyConverter.apply(ois.readObject()));
                 }
                 return map;
             }
 
-        } catch (IOException | ClassNotFoundException | DataFormatException e) {
-            return new HashMap<>();
+        } catch (ClassNotFoundException | RuntimeException e) {
+            throw new IOException("Malformed legacy page", e);
         }
     }
 
-    public static <T> void write(File pageFile, Map<Long, T> map) {
-
-        try {
-
-            // The reverse of the reading process
-
-            ByteArrayOutputStream outStream = new ByteArrayOutputStream();
-            try (ObjectOutputStream oos = new ObjectOutputStream(outStream)) {
-                for (Map.Entry<Long, T> entry : map.entrySet()) {
-                    oos.writeObject(entry.getValue());
-                }
+    /**
+     * Encodes a page in the legacy format, before compression. This is only kept to
+     * test reading legacy pages and to compare the formats.
+     *
+     * @param map The map of data to encode.
+     * @param <T> The type of the data.
+     * @return The encoded page.
+     * @throws IOException if a value cannot be serialized.
+     */
+    static <T> byte[] encodeLegacy(Map<Long, T> map) throws IOException {
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(outStream)) {
+            for (Map.Entry<Long, T> entry : map.entrySet()) {
+                oos.writeObject(entry.getValue());
             }
+        }
 
-            byte[] entryData = outStream.toByteArray();
-            ByteBuffer buffer = ByteBuffer.allocate(4 + 8 * map.size() + entryData.length);
-            buffer.putInt(map.size());
+        byte[] entryData = outStream.toByteArray();
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 8 * map.size() + entryData.length);
+        buffer.putInt(map.size());
 
-            LongBuffer keyBuffer = buffer.asLongBuffer();
-            for (long key : map.keySet()) {
-                keyBuffer.put(key);
-            }
-
-            buffer.position(buffer.position() + map.size() * 8);
-            buffer.put(entryData);
+        LongBuffer keyBuffer = buffer.asLongBuffer();
+        for (long key : map.keySet()) {
+            keyBuffer.put(key);
+        }
 
-            buffer.flip();
-            byte[] bytes = new byte[buffer.remaining()];
-            buffer.get(bytes);
+        buffer.position(buffer.position() + map.size() * 8);
+        buffer.put(entryData);
 
-            // Compress
-            bytes = DataStorage.getCompression().compress(bytes);
+        return buffer.array();
+    }
 
-            DataStorage.getIO().write(pageFile, bytes);
+    /**
+     * Reads the values of a page, which may have been written by a codec other than the one
+     * pages are now written with.
+     *
+     * @param <T> The type of the values.
+     */
+    @FunctionalInterface
+    private interface ValueReader<T> {
 
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        /**
+         * Reads a value.
+         *
+         * @param in The input to read from.
+         * @return The value.
+         * @throws IOException if the value cannot be read.
+         */
+        T read(DataInput in) throws IOException;
     }
 }
@@ -0,0 +1,15 @@
+package persistence.boundary;
+
+/**
+ * Hands out unique ids for new entities, so that they never collide with an entity already stored.
+ */
+public interface IdAllocator {
+
+    /**
+     * Returns an id that has never been returned before. Ids only ever increase.
+     *
+     * @return The id.
+     * @throws IllegalStateException if every id has been used.
+     */
+    int nextId();
+}
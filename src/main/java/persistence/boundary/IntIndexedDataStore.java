@@ -1,5 +1,6 @@
 package persistence.boundary;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,6 +11,17 @@ public interface IntIndexedDataStore<T> {
      */
     void save(T entity);
 
+    /**
+     * Saves several entities to the data store. Implementations may write them
+     * together, which is cheaper than saving them one at a time.
+     * @param entities The entities to save.
+     */
+    default void saveAll(Collection<? extends T> entities) {
+        for (T entity : entities) {
+            save(entity);
+        }
+    }
+
     /**
      * Finds the entity with the given id.
      * @param id The id of the entity to find.
@@ -43,4 +43,27 @@ public interface StatAggregateDataStore {
                                                    long endIndex,
                                                    Class<E> entryClass,
                                                    Class<A> aggregateClass);
+
+    /**
+     * Store many stat aggregates of the same types at once. Implementations
+     * may group them to write each page they fall in once.
+     *
+     * @param entryClass     The type of stat entry that the aggregates were calculated from.
+     * @param aggregateClass The type of stat aggregate to store.
+     * @param aggregates     The stat aggregates to store, mapped by time index.
+     * @param <E>            The type of stat entry that the aggregates were calculated from.
+     * @param <A>            The type of stat aggregate to store.
+     */
+    default <E extends StatEntry, A> void storeAll(Class<E> entryClass,
+                                                   Class<A> aggregateClass,
+                                                   Map<Long, ? extends A> aggregates) {
+        aggregates.forEach((index, aggregate) -> store(index, entryClass, aggregateClass, aggregate));
+    }
+
+    /**
+     * Write any stat aggregates that are held in memory through to the underlying
+     * storage. Stores that write every aggregate as it is stored need not override this.
+     */
+    default void flush() {
+    }
 }
@@ -3,6 +3,10 @@ package persistence.boundary;
 import stats.entry.EntryHierarchy;
 import stats.entry.StatEntry;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -47,6 +51,37 @@ public interface StatEntryDataStore {
     <E extends StatEntry> Map<Long, List<E>> retrieve(List<Long> indices, Class<E> clazz)
     ; // clazz may not be an interface
 
+    /**
+     * Retrieve the stats of several concrete classes at a set of indices in one batch,
+     * merging the entries of every class recorded at the same index into one list.
+     * Implementations should read each page once for every class, rather than once
+     * for every class and index.
+     *
+     * @param baseIndex  The time index of bit 0 of {@code indices}.
+     * @param indices    The indices to retrieve, as offsets from {@code baseIndex}.
+     * @param classes    The concrete types of stat entries to retrieve.
+     * @param entryClass The common type of the stat entries, which may be an interface.
+     * @param <E>        The common type of the stat entries.
+     * @return A map of indices to the stat entries of every class, leaving out indices with none.
+     */
+    default <E extends StatEntry> Map<Long, List<E>> retrieveAll(long baseIndex, BitSet indices,
+                                                                 Collection<Class<? extends E>> classes,
+                                                                 Class<E> entryClass) {
+        List<Long> indexList = new ArrayList<>();
+        for (int bit = indices.nextSetBit(0); bit >= 0; bit = indices.nextSetBit(bit + 1)) {
+            indexList.add(baseIndex + bit);
+        }
+
+        Map<Long, List<E>> result = new HashMap<>();
+        for (Class<? extends E> clazz : classes) {
+            retrieve(indexList, clazz).forEach((index, list) -> {
+                if (list.isEmpty()) return;
+                result.computeIfAbsent(index, i -> new ArrayList<>()).addAll(list);
+            });
+        }
+        return result;
+    }
+
     /**
      * Store the entry hierarchy {@code hierarchy}.
      *
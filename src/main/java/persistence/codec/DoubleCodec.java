@@ -0,0 +1,62 @@
+package persistence.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.DoubleFunction;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A codec for values that consist of a single double, which is written as a fixed width eight bytes.
+ *
+ * @param <T> The type of the values.
+ */
+public class DoubleCodec<T> implements ValueCodec<T> {
+
+    /**
+     * The identifier of data written by this codec.
+     */
+    private final String id;
+
+    /**
+     * Gets the double of a value.
+     */
+    private final ToDoubleFunction<? super T> getter;
+
+    /**
+     * Creates a value from its double.
+     */
+    private final DoubleFunction<? extends T> factory;
+
+    /**
+     * Constructs a double codec.
+     *
+     * @param type    The type of the values, which identifies the data.
+     * @param getter  Gets the double of a value.
+     * @param factory Creates a value from its double.
+     */
+    public DoubleCodec(Class<T> type, ToDoubleFunction<? super T> getter, DoubleFunction<? extends T> factory) {
+        this.id = type.getName() + "/double";
+        this.getter = getter;
+        this.factory = factory;
+    }
+
+    // Inherited javadoc
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    // Inherited javadoc
+    @Override
+    public void write(DataOutput out, T value) throws IOException {
+        out.writeDouble(getter.applyAsDouble(value));
+    }
+
+    // Inherited javadoc
+    @Override
+    public T read(DataInput in) throws IOException {
+        return factory.apply(in.readDouble());
+    }
+
+}
@@ -0,0 +1,63 @@
+package persistence.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A codec for lists, writing the size of the list followed by each element.
+ *
+ * @param <T> The type of the elements.
+ */
+public class ListCodec<T> implements ValueCodec<List<T>> {
+
+    /**
+     * The codec of the elements.
+     */
+    private final ValueCodec<T> elementCodec;
+
+    /**
+     * Constructs a list codec.
+     *
+     * @param elementCodec The codec of the elements.
+     */
+    public ListCodec(ValueCodec<T> elementCodec) {
+        this.elementCodec = elementCodec;
+    }
+
+    /**
+     * Returns the codec of the elements.
+     */
+    public ValueCodec<T> getElementCodec() {
+        return elementCodec;
+    }
+
+    // Inherited javadoc
+    @Override
+    public String getId() {
+        return "list/" + elementCodec.getId();
+    }
+
+    // Inherited javadoc
+    @Override
+    public void write(DataOutput out, List<T> value) throws IOException {
+        VarInts.writeUnsigned(out, value.size());
+        for (T element : value) {
+            elementCodec.write(out, element);
+        }
+    }
+
+    // Inherited javadoc
+    @Override
+    public List<T> read(DataInput in) throws IOException {
+        int size = VarInts.readLength(in);
+        List<T> list = new ArrayList<>(Math.min(size, 1 << 16));
+        for (int i = 0; i < size; i++) {
+            list.add(elementCodec.read(in));
+        }
+        return list;
+    }
+
+}
@@ -0,0 +1,61 @@
+package persistence.codec;
+
+import java.io.*;
+
+/**
+ * A codec that falls back to Java serialization, for types without a binary codec.
+ * Each value is written as its own length-prefixed serialized object.
+ *
+ * @param <T> The type of the values.
+ */
+public class SerializableCodec<T> implements ValueCodec<T> {
+
+    /**
+     * The identifier of data written by this codec, whatever the type.
+     */
+    public static final String ID = "java-serialization";
+
+    /**
+     * The type of the values.
+     */
+    private final Class<T> type;
+
+    /**
+     * Constructs a serializable codec.
+     *
+     * @param type The type of the values.
+     */
+    public SerializableCodec(Class<T> type) {
+        this.type = type;
+    }
+
+    // Inherited javadoc
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    // Inherited javadoc
+    @Override
+    public void write(DataOutput out, T value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(value);
+        }
+        VarInts.writeUnsigned(out, bytes.size());
+        out.write(bytes.toByteArray());
+    }
+
+    // Inherited javadoc
+    @Override
+    public T read(DataInput in) throws IOException {
+        byte[] bytes = new byte[VarInts.readLength(in)];
+        in.readFully(bytes);
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return type.cast(ois.readObject());
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Cannot deserialize " + type.getName(), e);
+        }
+    }
+
+}
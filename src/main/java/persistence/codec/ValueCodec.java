@@ -0,0 +1,39 @@
+package persistence.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads values of a single type in a compact binary form.
+ * Codecs are looked up by type in {@link ValueCodecs}.
+ *
+ * @param <T> The type of the values.
+ */
+public interface ValueCodec<T> {
+
+    /**
+     * Returns the identifier written in front of data encoded by this codec, used to check
+     * that the data is decoded by the same codec. It should change whenever the encoding does.
+     */
+    String getId();
+
+    /**
+     * Writes a value.
+     *
+     * @param out   The output to write to.
+     * @param value The value to write.
+     * @throws IOException if the value cannot be written.
+     */
+    void write(DataOutput out, T value) throws IOException;
+
+    /**
+     * Reads a value written by {@link #write(DataOutput, Object)}.
+     *
+     * @param in The input to read from.
+     * @return The value read.
+     * @throws IOException if the value cannot be read.
+     */
+    T read(DataInput in) throws IOException;
+
+}
@@ -0,0 +1,87 @@
+package persistence.codec;
+
+import stats.aggregate.ExpenseAggregate;
+import stats.aggregate.RevenueAggregate;
+import stats.entry.NumericEntries;
+import stats.entry.NumericStatEntry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A registry of the codecs used to write each type of value to page files.
+ * Types without a registered codec fall back to Java serialization.
+ * <p>
+ * Numeric stat entries with a factory registered in {@link NumericEntries}
+ * are written as their value without needing a codec of their own.
+ */
+public class ValueCodecs {
+
+    /**
+     * The registered codecs, mapped by the type they encode.
+     */
+    private static final Map<Class<?>, ValueCodec<?>> CODECS = new ConcurrentHashMap<>();
+
+    static {
+        register(ExpenseAggregate.class, new DoubleCodec<>(ExpenseAggregate.class,
+                ExpenseAggregate::getValue, ExpenseAggregate::new));
+        register(RevenueAggregate.class, new DoubleCodec<>(RevenueAggregate.class,
+                RevenueAggregate::getValue, RevenueAggregate::new));
+    }
+
+    /**
+     * Registers the codec of a type, replacing any existing one. Changing the codec of a type
+     * whose data has already been written will make that data unreadable, unless the new codec
+     * has the same identifier and encoding.
+     *
+     * @param type  The type of the values, exactly.
+     * @param codec The codec of the type.
+     * @param <T>   The type of the values.
+     */
+    public static <T> void register(Class<T> type, ValueCodec<T> codec) {
+        CODECS.put(type, codec);
+    }
+
+    /**
+     * Returns the codec of the given type, falling back to Java serialization.
+     *
+     * @param type The type of the values, exactly.
+     * @param <T>  The type of the values.
+     * @return The codec of the type.
+     */
+    @SuppressWarnings("unchecked")  // Checked on registration
+    public static <T> ValueCodec<T> forClass(Class<T> type) {
+        ValueCodec<?> codec = CODECS.get(type);
+        if (codec != null) return (ValueCodec<T>) codec;
+
+        if (NumericStatEntry.class.isAssignableFrom(type)
+                && NumericEntries.isRegistered(type.asSubclass(NumericStatEntry.class))) {
+            Class<? extends NumericStatEntry> numericType = type.asSubclass(NumericStatEntry.class);
+            return new DoubleCodec<>(type,
+                    value -> ((NumericStatEntry) value).getValue(),
+                    value -> type.cast(NumericEntries.create(numericType, value)));
+        }
+
+        return new SerializableCodec<>(type);
+    }
+
+    /**
+     * Returns the codec of lists of the given type. Lists of types without a binary codec
+     * are serialized a list at a time, rather than an element at a time, so that a reader
+     * expecting Java serialization can still read them once a codec is registered.
+     *
+     * @param type The type of the elements, exactly.
+     * @param <T>  The type of the elements.
+     * @return The codec of lists of the type.
+     */
+    @SuppressWarnings("unchecked")  // Only used to cast the class of the list
+    public static <T> ValueCodec<List<T>> forList(Class<T> type) {
+        ValueCodec<T> codec = forClass(type);
+        if (codec instanceof SerializableCodec) {
+            return new SerializableCodec<>((Class<List<T>>) (Class<?>) List.class);
+        }
+        return new ListCodec<>(codec);
+    }
+
+}
@@ -0,0 +1,85 @@
+package persistence.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Utility methods for writing integers in a variable number of bytes, seven bits
+ * per byte with the high bit set on every byte but the last. Small non-negative
+ * numbers take a single byte. Signed numbers are zig-zag encoded first, so that
+ * small negative numbers are also short.
+ */
+public class VarInts {
+
+    /**
+     * Writes a non-negative long in as few bytes as possible.
+     *
+     * @param out   The output to write to.
+     * @param value The value to write, treated as unsigned.
+     * @throws IOException if the output cannot be written to.
+     */
+    public static void writeUnsigned(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Reads a long written by {@link #writeUnsigned(DataOutput, long)}.
+     *
+     * @param in The input to read from.
+     * @return The value read.
+     * @throws IOException if the input cannot be read, or the value is malformed.
+     */
+    public static long readUnsigned(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+
+    /**
+     * Writes a long, zig-zag encoded so that numbers close to zero are short.
+     *
+     * @param out   The output to write to.
+     * @param value The value to write.
+     * @throws IOException if the output cannot be written to.
+     */
+    public static void writeSigned(DataOutput out, long value) throws IOException {
+        writeUnsigned(out, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Reads a long written by {@link #writeSigned(DataOutput, long)}.
+     *
+     * @param in The input to read from.
+     * @return The value read.
+     * @throws IOException if the input cannot be read, or the value is malformed.
+     */
+    public static long readSigned(DataInput in) throws IOException {
+        long value = readUnsigned(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a non-negative int written by {@link #writeUnsigned(DataOutput, long)}.
+     *
+     * @param in The input to read from.
+     * @return The value read.
+     * @throws IOException if the input cannot be read, or the value does not fit in an int.
+     */
+    public static int readLength(DataInput in) throws IOException {
+        long value = readUnsigned(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Length out of range: " + value);
+        }
+        return (int) value;
+    }
+
+}
@@ -0,0 +1,329 @@
+package persistence.impl.cache;
+
+import persistence.boundary.IntIndexedDataStore;
+import util.Clocks;
+import util.Preconditions;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * A bounded, write-through cache in front of another {@link IntIndexedDataStore}, so that
+ * entities that are looked up repeatedly are only read from the underlying store once.
+ * <p>
+ * The cache is a segmented LRU. Entities enter a probation segment when they are first read,
+ * and are promoted to a protected segment if they are read again while still cached. Entities
+ * are evicted from the probation segment first, so a scan over many entities that are each read
+ * once does not push out those that are read often. The protected segment holds at most
+ * {@link #PROTECTED_RATIO} of the cache, demoting its least recently used entity to probation
+ * when it is full.
+ * <p>
+ * Every entity has a deadline after which it is no longer served from the cache. Writes go to
+ * both the cache and the underlying store, so the cache stays consistent as long as every write
+ * goes through it. The cache holds its own copies of the entities, and hands out copies of them,
+ * so that changing an entity that has not been saved, or whose save failed, never changes what
+ * the cache serves.
+ *
+ * @param <T> The type of the entities.
+ */
+public class CachedDataStore<T> implements IntIndexedDataStore<T> {
+
+    /**
+     * The default maximum number of cached entities.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * The share of the capacity that the protected segment may use.
+     */
+    public static final double PROTECTED_RATIO = 0.8;
+
+    /**
+     * The underlying store.
+     */
+    private final IntIndexedDataStore<T> delegate;
+
+    /**
+     * Returns the id of an entity.
+     */
+    private final ToIntFunction<T> idOf;
+
+    /**
+     * Returns the time in milliseconds after which an entity is no longer served from the cache.
+     */
+    private final ToLongFunction<T> deadlineOf;
+
+    /**
+     * Returns a copy of an entity, which changes independently of it.
+     */
+    private final UnaryOperator<T> copyOf;
+
+    /**
+     * The maximum number of cached entities.
+     */
+    private final int capacity;
+
+    /**
+     * The maximum number of entities in the protected segment.
+     */
+    private final int protectedCapacity;
+
+    /**
+     * The entities read once, least recently used first. Guarded by this store.
+     */
+    private final LinkedHashMap<Integer, Cached<T>> probation = new LinkedHashMap<>();
+
+    /**
+     * The entities read more than once, least recently used first. Guarded by this store.
+     */
+    private final LinkedHashMap<Integer, Cached<T>> protectedSegment = new LinkedHashMap<>();
+
+    /**
+     * The number of lookups served from the cache. Guarded by this store.
+     */
+    private long hits = 0;
+
+    /**
+     * The number of lookups that went to the underlying store. Guarded by this store.
+     */
+    private long misses = 0;
+
+    /**
+     * The number of entities evicted to make room. Guarded by this store.
+     */
+    private long evictions = 0;
+
+    /**
+     * Constructs a cache in front of a store.
+     *
+     * @param delegate   The underlying store.
+     * @param idOf       Returns the id of an entity.
+     * @param deadlineOf Returns the time in milliseconds after which an entity is no longer served
+     *                   from the cache, {@link Long#MAX_VALUE} if it may be cached indefinitely.
+     * @param copyOf     Returns a copy of an entity, which changes independently of it.
+     * @param capacity   The maximum number of cached entities.
+     */
+    public CachedDataStore(IntIndexedDataStore<T> delegate, ToIntFunction<T> idOf,
+                           ToLongFunction<T> deadlineOf, UnaryOperator<T> copyOf, int capacity) {
+        Preconditions.checkArgument(capacity > 0, "Capacity must be positive");
+
+        this.delegate = delegate;
+        this.idOf = idOf;
+        this.deadlineOf = deadlineOf;
+        this.copyOf = copyOf;
+        this.capacity = capacity;
+        this.protectedCapacity = Math.max(1, (int) (capacity * PROTECTED_RATIO));
+    }
+
+    /**
+     * Returns the cached entity with the given id, promoting it if it is on probation,
+     * or null if it is not cached or its deadline has passed.
+     */
+    private T lookup(int id) {
+        Cached<T> cached = protectedSegment.get(id);
+        if (cached != null) {
+            // Move it to the most recently used end
+            protectedSegment.remove(id);
+        } else {
+            cached = probation.remove(id);
+            if (cached == null) return null;
+        }
+
+        if (Clocks.millis() > cached.deadline) return null;
+
+        protectedSegment.put(id, cached);
+        if (protectedSegment.size() > protectedCapacity) {
+            Iterator<Map.Entry<Integer, Cached<T>>> eldest = protectedSegment.entrySet().iterator();
+            Map.Entry<Integer, Cached<T>> demoted = eldest.next();
+            eldest.remove();
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+        return cached.entity;
+    }
+
+    /**
+     * Caches a copy of an entity on probation, replacing any cached copy, and evicts entities
+     * if the cache is full.
+     */
+    private void admit(T entity) {
+        int id = idOf.applyAsInt(entity);
+        long deadline = deadlineOf.applyAsLong(entity);
+
+        invalidate(id);
+        if (Clocks.millis() > deadline) return;
+
+        probation.put(id, new Cached<>(copyOf.apply(entity), deadline));
+        while (size() > capacity) {
+            LinkedHashMap<Integer, Cached<T>> victims = probation.isEmpty() ? protectedSegment : probation;
+            Iterator<Integer> eldest = victims.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes an entity from the cache.
+     *
+     * @param id The id of the entity.
+     */
+    protected synchronized void invalidate(int id) {
+        if (probation.remove(id) == null) {
+            protectedSegment.remove(id);
+        }
+    }
+
+    /**
+     * Removes every entity whose deadline has passed from the cache.
+     */
+    protected synchronized void invalidateExpired() {
+        long now = Clocks.millis();
+        probation.values().removeIf(cached -> now > cached.deadline);
+        protectedSegment.values().removeIf(cached -> now > cached.deadline);
+    }
+
+    /**
+     * Returns the number of cached entities.
+     */
+    public synchronized int size() {
+        return probation.size() + protectedSegment.size();
+    }
+
+    /**
+     * Returns the number of lookups served from the cache.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that went to the underlying store.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of entities evicted to make room for others.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the share of lookups served from the cache, or 0 if there have been none.
+     */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized void save(T entity) {
+        try {
+            delegate.save(entity);
+        } catch (RuntimeException e) {
+            // The store may hold either copy now, so neither can be served
+            invalidate(idOf.applyAsInt(entity));
+            throw e;
+        }
+        admit(entity);
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized void saveAll(Collection<? extends T> entities) {
+        try {
+            delegate.saveAll(entities);
+        } catch (RuntimeException e) {
+            for (T entity : entities) {
+                invalidate(idOf.applyAsInt(entity));
+            }
+            throw e;
+        }
+        for (T entity : entities) {
+            admit(entity);
+        }
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized Optional<T> find(int id) {
+        T cached = lookup(id);
+        if (cached != null) {
+            hits++;
+            return Optional.of(copyOf.apply(cached));
+        }
+
+        misses++;
+        Optional<T> entity = delegate.find(id);
+        entity.ifPresent(this::admit);
+        return entity;
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized List<T> findAll() {
+        return delegate.findAll();
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized boolean existsById(int id) {
+        Cached<T> cached = probation.get(id);
+        if (cached == null) cached = protectedSegment.get(id);
+        if (cached != null && Clocks.millis() <= cached.deadline) return true;
+
+        return delegate.existsById(id);
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized void delete(int id) {
+        delegate.delete(id);
+        invalidate(id);
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized void deleteAll() {
+        delegate.deleteAll();
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    /**
+     * A cached entity, with the time after which it is no longer served.
+     *
+     * @param <T> The type of the entity.
+     */
+    private static class Cached<T> {
+
+        /**
+         * The entity.
+         */
+        final T entity;
+
+        /**
+         * The time in milliseconds after which the entity is no longer served.
+         */
+        final long deadline;
+
+        /**
+         * Constructs a cached entity.
+         */
+        Cached(T entity, long deadline) {
+            this.entity = entity;
+            this.deadline = deadline;
+        }
+    }
+
+}
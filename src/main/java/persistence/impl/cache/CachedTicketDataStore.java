@@ -0,0 +1,43 @@
+package persistence.impl.cache;
+
+import entity.ticket.Ticket;
+import persistence.boundary.TicketDataStore;
+
+/**
+ * A {@link CachedDataStore} of tickets, which stops serving a cached ticket once it has expired.
+ */
+public class CachedTicketDataStore extends CachedDataStore<Ticket> implements TicketDataStore {
+
+    /**
+     * The underlying store.
+     */
+    private final TicketDataStore tickets;
+
+    /**
+     * Constructs a cache of the default capacity in front of a ticket store.
+     *
+     * @param delegate The underlying store.
+     */
+    public CachedTicketDataStore(TicketDataStore delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a cache in front of a ticket store.
+     *
+     * @param delegate The underlying store.
+     * @param capacity The maximum number of cached tickets.
+     */
+    public CachedTicketDataStore(TicketDataStore delegate, int capacity) {
+        super(delegate, Ticket::getId, Ticket::getExpiryDeadline, Ticket::copy, capacity);
+        this.tickets = delegate;
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized void cleanExpiredTickets() {
+        tickets.cleanExpiredTickets();
+        invalidateExpired();
+    }
+
+}
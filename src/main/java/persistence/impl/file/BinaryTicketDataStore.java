@@ -0,0 +1,821 @@
+package persistence.impl.file;
+
+import entity.ticket.Ticket;
+import entity.ticket.TicketType;
+import persistence.ExpiryIndex;
+import persistence.boundary.TicketDataStore;
+import util.Clocks;
+import util.Preconditions;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * An implementation of the {@link TicketDataStore} interface that keeps every ticket
+ * in a single file of fixed size records.
+ * <p>
+ * The slot of every ticket is kept in an in-memory open addressing index, which is rebuilt
+ * by scanning the file on startup, so that finding a ticket reads only its own record.
+ * Deleted slots are kept on a free list and reused before the file is grown. The tickets are
+ * also indexed by the time they expire, so that cleaning expired tickets reads nothing.
+ * <p>
+ * A ticket is never overwritten in place. Saving a ticket writes it to a free slot with a
+ * new sequence number, forces it to the storage device, and only then clears its previous
+ * slot, so a crash part way through a save leaves either the old or the new record intact.
+ * Each record carries a checksum, and torn or corrupt records are treated as free slots when
+ * the file is scanned. If a crash leaves two records of the same ticket, the one with the
+ * higher sequence number is kept, so the previous slots cleared by a save are not forced.
+ * Deletes are forced like saves, with one force for all the tickets deleted at once.
+ * <p>
+ * Saves are group committed. Callers saving at the same time queue their tickets, and the first
+ * of them writes every queued ticket at once and forces them with a single force, while the rest
+ * wait for it. Each run of adjacent slots the tickets are given is written with a single write,
+ * so a burst of new tickets, which are appended to the end of the file, is one write and one
+ * force. If a commit fails, none of its tickets are saved, and every caller in it fails.
+ */
+public class BinaryTicketDataStore implements TicketDataStore, Closeable {
+
+    /**
+     * The magic number at the start of the file, "TKTS" in ASCII.
+     */
+    private static final int MAGIC = 0x544B5453;
+
+    /**
+     * The version of the file format written.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the file header: the magic number, version, and record size.
+     */
+    private static final int HEADER_BYTES = 16;
+
+    /**
+     * The size of every record, including the padding left for future fields.
+     */
+    static final int RECORD_BYTES = 48;
+
+    /**
+     * The size of the fields of a record covered by its checksum.
+     */
+    private static final int PAYLOAD_BYTES = 31;
+
+    /**
+     * The state of a record holding a ticket.
+     */
+    private static final byte LIVE = 1;
+
+    /**
+     * The ticket types, cached as {@link TicketType#values()} copies the array on every call.
+     */
+    private static final TicketType[] TYPES = TicketType.values();
+
+    /**
+     * The channel of the file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The slot of every ticket, by id. Guarded by this store.
+     */
+    private final SlotIndex index = new SlotIndex();
+
+    /**
+     * The ids of the tickets by the time they expire.
+     */
+    private final ExpiryIndex expiries = new ExpiryIndex();
+
+    /**
+     * The slots that are free to be reused, as a stack. Guarded by this store.
+     */
+    private int[] freeSlots = new int[16];
+
+    /**
+     * The number of free slots. Guarded by this store.
+     */
+    private int freeCount = 0;
+
+    /**
+     * The number of slots in the file. Guarded by this store.
+     */
+    private int slotCount = 0;
+
+    /**
+     * The sequence number of the next record written. Guarded by this store.
+     */
+    private long nextSequence = 1;
+
+    /**
+     * The saves waiting for the next commit, in the order they were made. Also the lock
+     * guarding itself and {@link #committing}.
+     */
+    private final ArrayDeque<PendingCommit> commitQueue = new ArrayDeque<>();
+
+    /**
+     * Whether a caller is writing a commit. Guarded by {@link #commitQueue}.
+     */
+    private boolean committing = false;
+
+    /**
+     * The number of commits written, each with one force. Guarded by this store.
+     */
+    private long commits = 0;
+
+    /**
+     * Opens a BinaryTicketDataStore on the given file, creating it if it does not exist,
+     * and recovering the tickets in it.
+     *
+     * @param file The file where the tickets are stored.
+     */
+    public BinaryTicketDataStore(File file) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
+
+        try {
+            this.channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open ticket file " + file, e);
+        }
+
+        try {
+            synchronized (this) {
+                if (!readHeader()) {
+                    writeHeader();
+                }
+                recover();
+            }
+        } catch (IOException e) {
+            try {
+                channel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new UncheckedIOException("Cannot read ticket file " + file, e);
+        }
+    }
+
+    /**
+     * Reads and checks the header of the file.
+     *
+     * @return Whether the file holds records of this format.
+     */
+    private boolean readHeader() throws IOException {
+        if (channel.size() < HEADER_BYTES) return false;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        header.flip();
+
+        return header.getInt() == MAGIC && header.getInt() == VERSION && header.getInt() == RECORD_BYTES;
+    }
+
+    /**
+     * Truncates the file and writes the header.
+     */
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(RECORD_BYTES);
+        header.flip();
+
+        channel.truncate(0);
+        writeFully(header, 0);
+    }
+
+    /**
+     * Scans every slot of the file, indexing the live records and freeing the rest.
+     * A record left incomplete at the end of the file is cut off.
+     */
+    private void recover() throws IOException {
+        long records = (channel.size() - HEADER_BYTES) / RECORD_BYTES;
+        Preconditions.checkState(records <= Integer.MAX_VALUE, "Ticket file is too large");
+
+        slotCount = (int) records;
+        channel.truncate(positionOf(slotCount));
+
+        long[] sequences = new long[slotCount];
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        for (int slot = 0; slot < slotCount; slot++) {
+            record.clear();
+            readFully(record, positionOf(slot));
+
+            if (!isLive(record)) {
+                pushFree(slot);
+                continue;
+            }
+
+            int id = record.getInt(1);
+            long sequence = record.getLong(5);
+            sequences[slot] = sequence;
+            nextSequence = Math.max(nextSequence, sequence + 1);
+
+            // A crash between writing a ticket and clearing its old slot leaves two records
+            int other = index.get(id);
+            if (other == -1) {
+                index.put(id, slot);
+                expiries.update(id, decode(record).getExpiryDeadline());
+            } else if (sequences[other] < sequence) {
+                index.put(id, slot);
+                expiries.update(id, decode(record).getExpiryDeadline());
+                clear(other);
+            } else {
+                clear(slot);
+            }
+        }
+    }
+
+    /**
+     * Returns the position of a slot in the file.
+     */
+    private static long positionOf(int slot) {
+        return HEADER_BYTES + (long) slot * RECORD_BYTES;
+    }
+
+    /**
+     * Returns whether a record holds a ticket with a valid checksum.
+     */
+    private static boolean isLive(ByteBuffer record) {
+        return record.get(0) == LIVE && record.getInt(PAYLOAD_BYTES) == checksum(record);
+    }
+
+    /**
+     * Returns the checksum of the fields of a record.
+     */
+    private static int checksum(ByteBuffer record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, PAYLOAD_BYTES);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Encodes a ticket as a record.
+     */
+    private static ByteBuffer encode(Ticket ticket, long sequence) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        record.put(LIVE);
+        record.putInt(ticket.getId());
+        record.putLong(sequence);
+        record.put((byte) ticket.getType().ordinal());
+        record.put((byte) (ticket.isActivated() ? 1 : 0));
+        record.putLong(ticket.getExpiry());
+        record.putLong(ticket.getCreatedAt());
+        record.putInt(checksum(record));
+        record.clear();
+        return record;
+    }
+
+    /**
+     * Decodes the ticket of a live record.
+     */
+    private static Ticket decode(ByteBuffer record) {
+        Ticket ticket = new Ticket(record.getInt(1), TYPES[record.get(13)]);
+        ticket.setActivated(record.get(14) != 0);
+        ticket.setExpiry(record.getLong(15));
+        ticket.setCreatedAt(record.getLong(23));
+        return ticket;
+    }
+
+    /**
+     * Reads the record in a slot.
+     */
+    private ByteBuffer readSlot(int slot) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        readFully(record, positionOf(slot));
+        return record;
+    }
+
+    /**
+     * Reads bytes from the file until the buffer is full.
+     */
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) throw new IOException("Unexpected end of ticket file");
+        }
+    }
+
+    /**
+     * Writes all the remaining bytes of a buffer to the file.
+     */
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * Overwrites a slot with an empty record and frees it.
+     */
+    private void clear(int slot) throws IOException {
+        writeFully(ByteBuffer.allocate(RECORD_BYTES), positionOf(slot));
+        pushFree(slot);
+    }
+
+    /**
+     * Adds a slot to the free list.
+     */
+    private void pushFree(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Takes a slot from the free list, or appends a new slot to the file if there is none.
+     */
+    private int allocateSlot() {
+        if (freeCount > 0) return freeSlots[--freeCount];
+        Preconditions.checkState(slotCount < Integer.MAX_VALUE, "Ticket file is full");
+        return slotCount++;
+    }
+
+    /**
+     * Returns the number of slots in the file, both used and free.
+     */
+    public synchronized int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Returns the number of free slots in the file.
+     */
+    public synchronized int getFreeSlotCount() {
+        return freeCount;
+    }
+
+    /**
+     * Returns the number of commits written, which is fewer than the number of saves
+     * when saves made at the same time were merged.
+     */
+    public synchronized long getCommitCount() {
+        return commits;
+    }
+
+    // Inherited javadoc
+    @Override
+    public void save(Ticket ticket) {
+        commit(List.of(ticket));
+    }
+
+    // Inherited javadoc
+    @Override
+    public void saveAll(Collection<? extends Ticket> tickets) {
+        if (tickets.isEmpty()) return;
+        commit(new ArrayList<>(tickets));
+    }
+
+    /**
+     * Queues tickets to be saved, and waits until they are. The first caller to find no commit
+     * in progress leads the next one, writing the tickets of every caller queued by then at once.
+     *
+     * @param tickets The tickets to save.
+     */
+    private void commit(List<? extends Ticket> tickets) {
+        PendingCommit pending = new PendingCommit(tickets);
+        List<PendingCommit> group;
+
+        synchronized (commitQueue) {
+            commitQueue.add(pending);
+
+            boolean interrupted = false;
+            while (committing && !pending.done) {
+                try {
+                    commitQueue.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+
+            // Committed by another caller's group
+            if (pending.done) {
+                if (pending.failure != null) throw pending.failure;
+                return;
+            }
+
+            committing = true;
+            group = new ArrayList<>(commitQueue);
+            commitQueue.clear();
+        }
+
+        List<Ticket> merged = new ArrayList<>();
+        for (PendingCommit member : group) {
+            merged.addAll(member.tickets);
+        }
+
+        RuntimeException failure = null;
+        try {
+            write(merged);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        synchronized (commitQueue) {
+            for (PendingCommit member : group) {
+                member.failure = failure;
+                member.done = true;
+            }
+            committing = false;
+            commitQueue.notifyAll();
+        }
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * Writes the tickets of a commit with one write for each run of adjacent slots and one force,
+     * and then clears their previous slots.
+     *
+     * @param tickets The tickets to write, in the order they were saved.
+     */
+    private synchronized void write(List<? extends Ticket> tickets) {
+        // Only the last copy of a ticket saved twice is kept
+        Map<Integer, Ticket> batch = new LinkedHashMap<>();
+        for (Ticket ticket : tickets) {
+            batch.put(ticket.getId(), ticket);
+        }
+        if (batch.isEmpty()) return;
+
+        // Give every ticket a slot, and sort them by slot, packed as the slot and then the position in the batch
+        Ticket[] ordered = batch.values().toArray(new Ticket[0]);
+        int appendedFrom = slotCount;
+        long[] bySlot = new long[ordered.length];
+        for (int i = 0; i < ordered.length; i++) {
+            bySlot[i] = (long) allocateSlot() << 32 | i;
+        }
+        Arrays.sort(bySlot);
+
+        ByteBuffer buffer = ByteBuffer.allocate(ordered.length * RECORD_BYTES);
+        try {
+            int start = 0;
+            while (start < bySlot.length) {
+                int end = start + 1;
+                while (end < bySlot.length && (int) (bySlot[end] >>> 32) == (int) (bySlot[end - 1] >>> 32) + 1) {
+                    end++;
+                }
+
+                buffer.clear();
+                for (int i = start; i < end; i++) {
+                    buffer.put(encode(ordered[(int) bySlot[i]], nextSequence++));
+                }
+                buffer.flip();
+                writeFully(buffer, positionOf((int) (bySlot[start] >>> 32)));
+
+                start = end;
+            }
+            channel.force(false);
+            commits++;
+        } catch (IOException e) {
+            discard(bySlot, appendedFrom, e);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            discard(bySlot, appendedFrom, e);
+            throw e;
+        }
+
+        // The new records are in place, so the old ones can go
+        try {
+            for (long packed : bySlot) {
+                Ticket ticket = ordered[(int) packed];
+                int previous = index.get(ticket.getId());
+
+                index.put(ticket.getId(), (int) (packed >>> 32));
+                expiries.update(ticket.getId(), ticket.getExpiryDeadline());
+                if (previous != -1) clear(previous);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Undoes a batch that failed part way through writing, so that none of its records are
+     * read back when the file is reopened. The slots it took from the free list are emptied
+     * and freed again, and the slots it appended are truncated away. A failure to do so is
+     * added to the failure of the batch.
+     *
+     * @param bySlot       The slots of the batch, packed as by {@link #write}.
+     * @param appendedFrom The number of slots before the batch, from which slots were appended.
+     * @param cause        The failure of the batch.
+     */
+    private void discard(long[] bySlot, int appendedFrom, Exception cause) {
+        slotCount = appendedFrom;
+        for (long packed : bySlot) {
+            int slot = (int) (packed >>> 32);
+            if (slot < appendedFrom) pushFree(slot);
+        }
+
+        try {
+            ByteBuffer empty = ByteBuffer.allocate(RECORD_BYTES);
+            for (long packed : bySlot) {
+                int slot = (int) (packed >>> 32);
+                if (slot >= appendedFrom) break;
+                empty.clear();
+                writeFully(empty, positionOf(slot));
+            }
+            channel.truncate(positionOf(appendedFrom));
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized Optional<Ticket> find(int id) {
+        int slot = index.get(id);
+        if (slot == -1) return Optional.empty();
+
+        try {
+            ByteBuffer record = readSlot(slot);
+            return isLive(record) ? Optional.of(decode(record)) : Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized List<Ticket> findAll() {
+        List<Ticket> tickets = new ArrayList<>(index.size());
+        if (slotCount == 0) return tickets;
+
+        try {
+            // Read every slot at once rather than one record at a time
+            ByteBuffer all = ByteBuffer.allocate(slotCount * RECORD_BYTES);
+            readFully(all, positionOf(0));
+
+            ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+            for (int slot = 0; slot < slotCount; slot++) {
+                record.clear();
+                record.put(all.array(), slot * RECORD_BYTES, RECORD_BYTES);
+                if (isLive(record) && index.get(record.getInt(1)) == slot) {
+                    tickets.add(decode(record));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tickets;
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized boolean existsById(int id) {
+        return index.get(id) != -1;
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized void delete(int id) {
+        try {
+            if (remove(id)) channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Clears the slot of a ticket and removes it from the indices, without forcing the clear.
+     *
+     * @param id The id of the ticket.
+     * @return Whether the ticket was stored.
+     * @throws IOException if the slot cannot be cleared.
+     */
+    private boolean remove(int id) throws IOException {
+        int slot = index.remove(id);
+        if (slot == -1) return false;
+        expiries.remove(id);
+
+        clear(slot);
+        return true;
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized void deleteAll() {
+        try {
+            channel.truncate(HEADER_BYTES);
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        index.clear();
+        expiries.clear();
+        freeCount = 0;
+        slotCount = 0;
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized void cleanExpiredTickets() {
+        try {
+            boolean removed = false;
+            for (int id : expiries.pollExpired(Clocks.millis())) {
+                removed |= remove(id);
+            }
+            if (removed) channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Forces any writes to the storage device and closes the file.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen()) return;
+        channel.force(false);
+        channel.close();
+    }
+
+    /**
+     * The tickets of a save waiting to be committed.
+     */
+    private static class PendingCommit {
+
+        /**
+         * The tickets to save.
+         */
+        final List<? extends Ticket> tickets;
+
+        /**
+         * Whether the commit holding the tickets has been written. Guarded by the commit queue.
+         */
+        boolean done = false;
+
+        /**
+         * The failure of the commit holding the tickets, or null if it succeeded. Guarded by the commit queue.
+         */
+        RuntimeException failure;
+
+        /**
+         * Constructs a pending save.
+         */
+        PendingCommit(List<? extends Ticket> tickets) {
+            this.tickets = tickets;
+        }
+    }
+
+    /**
+     * An open addressing hash map of ticket ids to slots, using linear probing,
+     * which avoids boxing both the ids and the slots.
+     */
+    private static class SlotIndex {
+
+        /**
+         * The marker of an empty bucket in {@link #slots}.
+         */
+        private static final int EMPTY = -1;
+
+        /**
+         * The id in each bucket.
+         */
+        private int[] ids = new int[64];
+
+        /**
+         * The slot in each bucket, or {@link #EMPTY}.
+         */
+        private int[] slots = newSlots(64);
+
+        /**
+         * The number of ids in the map.
+         */
+        private int size = 0;
+
+        /**
+         * Returns an array of empty buckets.
+         */
+        private static int[] newSlots(int capacity) {
+            int[] slots = new int[capacity];
+            Arrays.fill(slots, EMPTY);
+            return slots;
+        }
+
+        /**
+         * Returns the bucket an id hashes to.
+         */
+        private int home(int id) {
+            // Spread the bits, as ids are often sequential
+            int hash = id * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & (ids.length - 1);
+        }
+
+        /**
+         * Returns the bucket holding an id, or the empty bucket where it would go.
+         */
+        private int find(int id) {
+            int mask = ids.length - 1;
+            int bucket = home(id);
+            while (slots[bucket] != EMPTY && ids[bucket] != id) {
+                bucket = (bucket + 1) & mask;
+            }
+            return bucket;
+        }
+
+        /**
+         * Returns the number of ids in the map.
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Returns the slot of an id, or -1 if it is not in the map.
+         */
+        int get(int id) {
+            return slots[find(id)];
+        }
+
+        /**
+         * Maps an id to a slot, replacing any previous slot.
+         */
+        void put(int id, int slot) {
+            int bucket = find(id);
+            if (slots[bucket] == EMPTY) {
+                // Keep the load factor at or below a half
+                if ((size + 1) * 2 > ids.length) {
+                    resize(ids.length * 2);
+                    bucket = find(id);
+                }
+                size++;
+            }
+            ids[bucket] = id;
+            slots[bucket] = slot;
+        }
+
+        /**
+         * Removes an id from the map.
+         *
+         * @return The slot it was mapped to, or -1 if it was not in the map.
+         */
+        int remove(int id) {
+            int bucket = find(id);
+            int slot = slots[bucket];
+            if (slot == EMPTY) return EMPTY;
+
+            slots[bucket] = EMPTY;
+            size--;
+
+            // Shift back the ids after it that would no longer be found past the gap
+            int mask = ids.length - 1;
+            int gap = bucket;
+            int next = (gap + 1) & mask;
+            while (slots[next] != EMPTY) {
+                int home = home(ids[next]);
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    ids[gap] = ids[next];
+                    slots[gap] = slots[next];
+                    slots[next] = EMPTY;
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Removes every id from the map.
+         */
+        void clear() {
+            Arrays.fill(slots, EMPTY);
+            size = 0;
+        }
+
+        /**
+         * Rehashes every id into a table of the given capacity.
+         */
+        private void resize(int capacity) {
+            int[] oldIds = ids;
+            int[] oldSlots = slots;
+            ids = new int[capacity];
+            slots = newSlots(capacity);
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldSlots[i] != EMPTY) {
+                    int bucket = find(oldIds[i]);
+                    ids[bucket] = oldIds[i];
+                    slots[bucket] = oldSlots[i];
+                }
+            }
+        }
+    }
+
+}
@@ -3,14 +3,25 @@ package persistence.impl.file;
 import persistence.PageFileUtils;
 import stats.entry.StatEntry;
 import persistence.boundary.StatAggregateDataStore;
+import util.Preconditions;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A file-based implementation of the {@link StatAggregateDataStore} interface.
  * This class provides methods to store and retrieve aggregated statistic data from a file system.
+ * <p>
+ * Decoded pages are kept in a least recently used cache bounded by the number of aggregates
+ * they hold, so that repeatedly polling the same range does not touch the disk. Stored
+ * aggregates are written to the cached page, and the page is written back to the file
+ * system when it is evicted or the store is {@link #flush() flushed}.
  */
 @SuppressWarnings("ResultOfMethodCallIgnored")
 public class FileAggregateDataStore implements StatAggregateDataStore {
@@ -20,14 +31,57 @@ public class FileAggregateDataStore implements StatAggregateDataStore {
      */
     private final File directory;
 
+    /**
+     * The default maximum number of aggregates held by the cached pages.
+     */
+    public static final int DEFAULT_MAX_CACHED_AGGREGATES = 16384;
+
+    /**
+     * The maximum number of aggregates held by the cached pages. Each page
+     * counts as holding at least one, so that empty pages are bounded too.
+     */
+    private final int maxCachedAggregates;
+
+    /**
+     * The cached pages, mapped by their files, in order of least recent use. Guarded by this store.
+     */
+    private final LinkedHashMap<File, Page<?>> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The number of aggregates held by the cached pages, as counted against the maximum.
+     */
+    private int cachedAggregates = 0;
+
+    /**
+     * The number of page reads served from the cache.
+     */
+    private long hits = 0;
+
+    /**
+     * The number of page reads that had to read the file system.
+     */
+    private long misses = 0;
+
     /**
      * Constructs a FileAggregateDataStore instance with a specified directory.
      *
      * @param directory The directory where the aggregated data files are stored.
      */
     public FileAggregateDataStore(File directory) {
+        this(directory, DEFAULT_MAX_CACHED_AGGREGATES);
+    }
+
+    /**
+     * Constructs a FileAggregateDataStore instance with a specified directory and cache size.
+     *
+     * @param directory           The directory where the aggregated data files are stored.
+     * @param maxCachedAggregates The maximum number of aggregates held by the cached pages.
+     */
+    public FileAggregateDataStore(File directory, int maxCachedAggregates) {
+        Preconditions.checkArgument(maxCachedAggregates > 0, "Cache must hold at least one aggregate");
         directory.mkdirs();
         this.directory = directory;
+        this.maxCachedAggregates = maxCachedAggregates;
     }
 
     /**
@@ -43,33 +97,61 @@ public class FileAggregateDataStore implements StatAggregateDataStore {
     }
 
     /**
-     * Read a page of data from the file system.
+     * Returns a page of data, from the cache if it is there, or else read from the file system
+     * and added to the cache.
      *
      * @param pageNumber     The page number to read.
      * @param entryClass     The entry class.
      * @param aggregateClass The aggregate class.
      * @param <E>            The entry class.
      * @param <A>            The aggregate class.
-     * @return The map of data read from the file.
+     * @return The cached page.
      */
-    private synchronized <E extends StatEntry, A> Map<Long, A> read(long pageNumber, Class<E> entryClass, Class<A> aggregateClass) {
+    @SuppressWarnings("unchecked")  // The file of a page is unique to its aggregate class
+    private <E extends StatEntry, A> Page<A> read(long pageNumber, Class<E> entryClass, Class<A> aggregateClass) {
         File file = getFile(pageNumber, entryClass, aggregateClass);
-        return PageFileUtils.read(file, aggregateClass);
+
+        Page<?> page = cache.get(file);
+        if (page != null) {
+            hits++;
+            return (Page<A>) page;
+        }
+
+        misses++;
+        Page<A> read = new Page<>(aggregateClass, PageFileUtils.read(file, aggregateClass));
+        cache.put(file, read);
+        cachedAggregates += read.weight();
+        evict();
+        return read;
     }
 
     /**
      * Write a page of data to the file system.
      *
-     * @param pageNumber     The page number to write.
-     * @param entryClass     The entry class.
-     * @param aggregateClass The aggregate class.
-     * @param map            The map of data to write.
-     * @param <E>            The entry class.
-     * @param <A>            The aggregate class.
+     * @param file The file of the page.
+     * @param page The page to write.
+     * @param <A>  The aggregate class.
+     * @return A future that completes once the page is on the file system.
      */
-    private <E extends StatEntry, A> void write(long pageNumber, Class<E> entryClass, Class<A> aggregateClass, Map<Long, A> map) {
-        File file = getFile(pageNumber, entryClass, aggregateClass);
-        PageFileUtils.write(file, map);
+    private <A> CompletableFuture<Void> write(File file, Page<A> page) {
+        CompletableFuture<Void> written = PageFileUtils.write(file, page.values, page.aggregateClass);
+        page.dirty = false;
+        return written;
+    }
+
+    /**
+     * Evicts the least recently used pages until the cache is within its bounds,
+     * writing back any that have been stored to. The most recently used page is kept
+     * even if it is larger than the cache on its own.
+     */
+    private void evict() {
+        Iterator<Map.Entry<File, Page<?>>> iterator = cache.entrySet().iterator();
+        while (cachedAggregates > maxCachedAggregates && cache.size() > 1) {
+            Map.Entry<File, Page<?>> eldest = iterator.next();
+            if (eldest.getValue().dirty) write(eldest.getKey(), eldest.getValue());
+            cachedAggregates -= eldest.getValue().weight();
+            iterator.remove();
+        }
     }
 
     /**
@@ -103,7 +185,7 @@ public class FileAggregateDataStore implements StatAggregateDataStore {
         Map<Long, A> map = new HashMap<>();
 
         for (long page = startPage; page <= endPage; page++) {
-            Map<Long, A> pageMap = read(page, entryClass, aggregateClass);
+            Map<Long, A> pageMap = read(page, entryClass, aggregateClass).values;
             for (long index : pageMap.keySet()) {
                 if (index >= startIndex && index <= endIndex) {
                     map.put(index, pageMap.get(index));
@@ -126,10 +208,114 @@ public class FileAggregateDataStore implements StatAggregateDataStore {
      */
     @Override
     public synchronized <E extends StatEntry, A> void store(long index, Class<E> entryClass, Class<A> aggregateClass, A aggregate) {
-        long page = toPage(index);
-        Map<Long, A> map = read(page, entryClass, aggregateClass);
-        map.put(index, aggregate);
-        write(page, entryClass, aggregateClass, map);
+        Page<A> page = read(toPage(index), entryClass, aggregateClass);
+
+        int weight = page.weight();
+        page.values.put(index, aggregate);
+        page.dirty = true;
+
+        cachedAggregates += page.weight() - weight;
+        evict();
+    }
+
+    /**
+     * Stores many aggregates at once, looking up the cached page of each once.
+     *
+     * @param entryClass     The entry class of the data.
+     * @param aggregateClass The aggregate class of the data.
+     * @param aggregates     The aggregate values to store, mapped by index.
+     * @param <E>            The entry class.
+     * @param <A>            The aggregate class.
+     */
+    @Override
+    public synchronized <E extends StatEntry, A> void storeAll(Class<E> entryClass, Class<A> aggregateClass,
+                                                               Map<Long, ? extends A> aggregates) {
+        // Group by page
+        Map<Long, List<Long>> byPage = new HashMap<>();
+        for (long index : aggregates.keySet()) {
+            byPage.computeIfAbsent(toPage(index), page -> new ArrayList<>()).add(index);
+        }
+
+        for (Map.Entry<Long, List<Long>> pageIndices : byPage.entrySet()) {
+            Page<A> page = read(pageIndices.getKey(), entryClass, aggregateClass);
+
+            int weight = page.weight();
+            for (long index : pageIndices.getValue()) {
+                page.values.put(index, aggregates.get(index));
+            }
+            page.dirty = true;
+
+            cachedAggregates += page.weight() - weight;
+            evict();
+        }
+    }
+
+    /**
+     * Writes back every cached page that has been stored to since it was last written,
+     * and waits until they are on the file system. The pages stay in the cache.
+     */
+    @Override
+    public synchronized void flush() {
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (Map.Entry<File, Page<?>> entry : cache.entrySet()) {
+            if (entry.getValue().dirty) writes.add(write(entry.getKey(), entry.getValue()));
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    /**
+     * Returns the number of page reads served from the cache.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of page reads that had to read the file system.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * A decoded page held in the cache.
+     *
+     * @param <A> The aggregate class.
+     */
+    private static class Page<A> {
+
+        /**
+         * The aggregate class of the page.
+         */
+        private final Class<A> aggregateClass;
+
+        /**
+         * The aggregates in the page, mapped by index.
+         */
+        private final Map<Long, A> values;
+
+        /**
+         * Whether the page has been stored to since it was last written.
+         */
+        private boolean dirty = false;
+
+        /**
+         * Constructs a cached page.
+         *
+         * @param aggregateClass The aggregate class of the page.
+         * @param values         The aggregates in the page, mapped by index.
+         */
+        Page(Class<A> aggregateClass, Map<Long, A> values) {
+            this.aggregateClass = aggregateClass;
+            this.values = values;
+        }
+
+        /**
+         * Returns the number of aggregates this page counts as holding.
+         */
+        int weight() {
+            return Math.max(1, values.size());
+        }
     }
 
 }
@@ -2,6 +2,7 @@ package persistence.impl.file;
 
 import persistence.DataStorage;
 import persistence.PageFileUtils;
+import persistence.codec.ValueCodecs;
 import stats.entry.EntryHierarchy;
 import stats.entry.StatEntry;
 import persistence.boundary.StatEntryDataStore;
@@ -9,11 +10,18 @@ import util.Timing;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A file-based implementation of the {@link StatEntryDataStore} interface.
@@ -33,7 +41,8 @@ public class FileEntryDataStore implements StatEntryDataStore {
     private final int pageSize = 64;
 
     /**
-     * A list of entries.
+     * A list of entries. Pages written before the binary page format hold these,
+     * so the class must stay to read them.
      */
     private static class EntryList extends ArrayList<StatEntry> {
     }
@@ -48,19 +57,6 @@ public class FileEntryDataStore implements StatEntryDataStore {
         this.directory = directory;
     }
 
-    /**
-     * Returns a file instance pointing to the data file for the given index and class.
-     *
-     * @param index The index of the data.
-     * @param clazz The class of the data.
-     * @return A File instance.
-     */
-    private File getFile(long index, Class<? extends StatEntry> clazz) {
-        File classFolder = new File(directory, clazz.getSimpleName());
-        classFolder.mkdirs();
-        return new File(classFolder, (index / pageSize) + ".stat");
-    }
-
     /**
      * Returns a file instance pointing to the data file for the given page
      *
@@ -75,6 +71,23 @@ public class FileEntryDataStore implements StatEntryDataStore {
     }
 
 
+    /**
+     * Reads a page of entry lists.
+     *
+     * @param file  The page file.
+     * @param clazz The class of the entries.
+     * @return The entry lists in the page, mapped by index.
+     */
+    private <E extends StatEntry> Map<Long, List<E>> readPage(File file, Class<E> clazz) {
+        return PageFileUtils.read(file, ValueCodecs.forList(clazz), legacy -> {
+            List<E> converted = new ArrayList<>();
+            for (Object entry : (List<?>) legacy) {
+                converted.add(clazz.cast(entry));
+            }
+            return converted;
+        });
+    }
+
     /**
      * Stores the given list of entries into a file for the given index and class.
      *
@@ -85,13 +98,67 @@ public class FileEntryDataStore implements StatEntryDataStore {
      */
     @Override
     public <E extends StatEntry> void store(long index, Class<? extends StatEntry> clazz, List<E> entries) {
-        if (entries.isEmpty()) return;
-        File file = getFile(index, clazz);
-        Map<Long, EntryList> existingEntries = PageFileUtils.read(file, EntryList.class);
-        EntryList list = new EntryList();
-        list.addAll(entries);
-        existingEntries.put(index, list);
-        PageFileUtils.write(file, existingEntries);
+        storeAll(clazz, Map.of(index, entries));
+    }
+
+    /**
+     * Stores the lists of entries of the given class at many indices, reading
+     * and writing each page they fall in once.
+     *
+     * @param clazz   The class of the data.
+     * @param entries The lists of entries to store, mapped by index.
+     * @param <T>     The class of the entries.
+     * @return A future completed once every page has been written.
+     */
+    public <T extends StatEntry> CompletableFuture<Void> storeAll(Class<T> clazz,
+                                                                  Map<Long, ? extends List<? extends StatEntry>> entries) {
+        // Group by page
+        Map<Long, List<Long>> byPage = new HashMap<>();
+        for (long index : entries.keySet()) {
+            if (entries.get(index).isEmpty()) continue;
+            byPage.computeIfAbsent(index / pageSize, page -> new ArrayList<>()).add(index);
+        }
+
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (Map.Entry<Long, List<Long>> page : byPage.entrySet()) {
+            File file = getPageFile(page.getKey(), clazz);
+            Map<Long, List<T>> existingEntries = readPage(file, clazz);
+
+            for (long index : page.getValue()) {
+                List<T> list = new ArrayList<>();
+                for (StatEntry entry : entries.get(index)) {
+                    list.add(clazz.cast(entry));
+                }
+                existingEntries.put(index, list);
+            }
+
+            writes.add(PageFileUtils.write(file, existingEntries, ValueCodecs.forList(clazz)));
+        }
+
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Forces the pages holding the given indices of a class to the storage device, waiting
+     * for any write to them still in progress first. Pages that don't exist are skipped.
+     *
+     * @param clazz   The class of the data.
+     * @param indices The indices whose pages to force.
+     * @throws IOException if a page cannot be forced.
+     */
+    public void force(Class<? extends StatEntry> clazz, Collection<Long> indices) throws IOException {
+        Set<Long> pages = new HashSet<>();
+        for (long index : indices) {
+            pages.add(index / pageSize);
+        }
+
+        for (long page : pages) {
+            File file = getPageFile(page, clazz);
+            if (!DataStorage.getIO().exists(file)) continue;
+            try (FileChannel channel = DataStorage.getIO().openChannel(file, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+        }
     }
 
     // Inherited javadoc
@@ -99,22 +166,17 @@ public class FileEntryDataStore implements StatEntryDataStore {
     public <E extends StatEntry> Map<Long, List<E>> retrieve(long from, long to, Class<E> clazz) {
         Map<Long, List<E>> result = new HashMap<>();
 
-        Map<Long, EntryList> currPage = null;
+        Map<Long, List<E>> currPage = null;
         long currPageNum = -1;
 
         for (long i = from; i <= to; i++) {
             long page = i / pageSize;
             if (currPage == null || page != currPageNum) {
-                currPage = PageFileUtils.read(getPageFile(page, clazz), EntryList.class);
+                currPage = readPage(getPageFile(page, clazz), clazz);
                 currPageNum = page;
             }
 
-            List<E> converted = new ArrayList<>();
-            for (StatEntry entry : currPage.getOrDefault(i, new EntryList())) {
-                converted.add(clazz.cast(entry));
-            }
-
-            result.put(i, converted);
+            result.put(i, currPage.getOrDefault(i, new ArrayList<>()));
 
         }
 
@@ -142,16 +204,12 @@ public class FileEntryDataStore implements StatEntryDataStore {
         // Read pages
         Map<Long, List<E>> result = new HashMap<>();
         for (long page : byPage.keySet()) {
-            Map<Long, EntryList> pageData = PageFileUtils.read(getPageFile(page, clazz), EntryList.class);
+            Map<Long, List<E>> pageData = readPage(getPageFile(page, clazz), clazz);
             List<Long> pageIndices = byPage.get(page);
             for (long index : pageIndices) {
-                EntryList entries = pageData.getOrDefault(index, new EntryList());
-                if (entries.isEmpty()) continue;
-                List<E> converted = new ArrayList<>();
-                for (StatEntry entry : entries) {
-                    converted.add(clazz.cast(entry));
-                }
-                result.put(index, converted);
+                List<E> entries = pageData.get(index);
+                if (entries == null || entries.isEmpty()) continue;
+                result.put(index, entries);
             }
 
             timing.mark("page read");
@@ -160,6 +218,47 @@ public class FileEntryDataStore implements StatEntryDataStore {
         return result;
     }
 
+    /**
+     * Retrieves the stats of several classes at a set of indices, reading each page
+     * of each class once, and skipping pages with no indices in the set.
+     *
+     * @param baseIndex  The time index of bit 0 of {@code indices}.
+     * @param indices    The indices to retrieve, as offsets from {@code baseIndex}.
+     * @param classes    The concrete types of stat entries to retrieve.
+     * @param entryClass The common type of the stat entries.
+     * @param <E>        The common type of the stat entries.
+     * @return A map of indices to the stat entries of every class, leaving out indices with none.
+     */
+    @Override
+    public <E extends StatEntry> Map<Long, List<E>> retrieveAll(long baseIndex, BitSet indices,
+                                                                Collection<Class<? extends E>> classes,
+                                                                Class<E> entryClass) {
+        Map<Long, List<E>> result = new HashMap<>();
+
+        int bit = indices.nextSetBit(0);
+        while (bit >= 0) {
+            long page = Math.floorDiv(baseIndex + bit, pageSize);
+
+            // The offset of the first index of the next page
+            int pageEnd = (int) Math.min((page + 1) * pageSize - baseIndex, Integer.MAX_VALUE);
+
+            for (Class<? extends E> clazz : classes) {
+                Map<Long, ? extends List<? extends E>> pageData = readPage(getPageFile(page, clazz), clazz);
+                if (pageData.isEmpty()) continue;
+
+                for (int i = bit; i >= 0 && i < pageEnd; i = indices.nextSetBit(i + 1)) {
+                    List<? extends E> entries = pageData.get(baseIndex + i);
+                    if (entries == null || entries.isEmpty()) continue;
+                    result.computeIfAbsent(baseIndex + i, index -> new ArrayList<>()).addAll(entries);
+                }
+            }
+
+            bit = indices.nextSetBit(pageEnd);
+        }
+
+        return result;
+    }
+
     /**
      * Stores an EntryHierarchy into the file system.
      *
@@ -0,0 +1,146 @@
+package persistence.impl.file;
+
+import persistence.boundary.IdAllocator;
+import util.Preconditions;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An id allocator that leases blocks of ids, recording the end of the leased range in a file
+ * before handing out any id in it, so that no id is handed out twice, even across restarts.
+ * <p>
+ * Ids within a leased block are handed out without locking. Only leasing the next block takes
+ * a lock and writes the file, once every {@link #getBlockSize()} ids. The ids left in the block
+ * leased when the program exits are skipped, so ids are unique and increasing, but not dense.
+ */
+public class FileIdAllocator implements IdAllocator {
+
+    /**
+     * The default number of ids leased at a time.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 256;
+
+    /**
+     * The file holding the end of the leased range.
+     */
+    private final File file;
+
+    /**
+     * The number of ids leased at a time.
+     */
+    private final int blockSize;
+
+    /**
+     * The next id handed out. This never passes {@link #limit}.
+     */
+    private final AtomicInteger next;
+
+    /**
+     * The end of the leased range, exclusive. Only raised while holding the lock of this allocator,
+     * once the new end has been written to the file.
+     */
+    private volatile int limit;
+
+    /**
+     * Constructs an allocator with the default block size.
+     *
+     * @param file  The file holding the end of the leased range.
+     * @param floor The lowest id that may be handed out, such as one more than the largest id
+     *              already stored. Ids continue from the file if it is higher.
+     */
+    public FileIdAllocator(File file, int floor) {
+        this(file, floor, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructs an allocator.
+     *
+     * @param file      The file holding the end of the leased range.
+     * @param floor     The lowest id that may be handed out, such as one more than the largest id
+     *                  already stored. Ids continue from the file if it is higher.
+     * @param blockSize The number of ids leased at a time.
+     */
+    public FileIdAllocator(File file, int floor, int blockSize) {
+        Preconditions.checkArgument(blockSize > 0, "Block size must be positive");
+
+        this.file = file;
+        this.blockSize = blockSize;
+
+        int start = Math.max(floor, readLeased());
+        this.next = new AtomicInteger(start);
+        this.limit = start;
+    }
+
+    /**
+     * Reads the end of the range leased by the last run, or 0 if nothing has been leased.
+     */
+    private int readLeased() {
+        if (!file.exists()) return 0;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read leased ids from " + file, e);
+        }
+    }
+
+    /**
+     * Records the end of the leased range, replacing the file in one step so that
+     * a crash never leaves it half written.
+     */
+    private void writeLeased(int end) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
+
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            try (FileOutputStream stream = new FileOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(stream)) {
+                out.writeInt(end);
+                out.flush();
+                stream.getFD().sync();
+            }
+            Files.move(temp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot record leased ids in " + file, e);
+        }
+    }
+
+    /**
+     * Leases the next block of ids, unless another thread already has.
+     *
+     * @param seen The limit seen by the caller when it ran out of ids.
+     */
+    private synchronized void lease(int seen) {
+        if (limit != seen) return;
+        Preconditions.checkState(limit != Integer.MAX_VALUE, "Every id has been used");
+
+        int end = (int) Math.min((long) limit + blockSize, Integer.MAX_VALUE);
+        writeLeased(end);
+        limit = end;
+    }
+
+    /**
+     * Returns the number of ids leased at a time.
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    // Inherited javadoc
+    @Override
+    public int nextId() {
+        while (true) {
+            int seen = limit;
+            int id = next.get();
+            if (id < seen) {
+                if (next.compareAndSet(id, id + 1)) return id;
+            } else {
+                lease(seen);
+            }
+        }
+    }
+}
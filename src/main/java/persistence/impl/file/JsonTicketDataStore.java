@@ -4,6 +4,8 @@ import entity.ticket.Ticket;
 import persistence.boundary.TicketDataStore;
 import entity.ticket.TicketType;
 import persistence.DataStorage;
+import persistence.ExpiryIndex;
+import util.Clocks;
 import org.json.JSONObject;
 
 import java.io.File;
@@ -13,6 +15,10 @@ import java.util.Optional;
 
 /**
  * This class facilitates the storage and retrieval of ticket data in JSON format.
+ * <p>
+ * The tickets are indexed by the time they expire, which is built by reading every ticket
+ * when the store is opened, and then kept up to date as tickets are saved and deleted, so
+ * that cleaning expired tickets reads nothing.
  */
 @SuppressWarnings("ResultOfMethodCallIgnored")
 public class JsonTicketDataStore implements TicketDataStore {
@@ -23,13 +29,23 @@ public class JsonTicketDataStore implements TicketDataStore {
     private final File directory;
 
     /**
-     * Constructs a new JsonTicketDataStore with the given directory.
+     * The ids of the tickets by the time they expire.
+     */
+    private final ExpiryIndex expiries = new ExpiryIndex();
+
+    /**
+     * Constructs a new JsonTicketDataStore with the given directory, indexing
+     * the expiry of every ticket already in it.
      *
      * @param directory The directory where the ticket data files are stored.
      */
     public JsonTicketDataStore(File directory) {
         this.directory = directory;
         directory.mkdirs();
+
+        for (Ticket ticket : findAll()) {
+            expiries.update(ticket.getId(), ticket.getExpiryDeadline());
+        }
     }
 
     /**
@@ -96,12 +112,14 @@ public class JsonTicketDataStore implements TicketDataStore {
     @Override
     public void save(Ticket ticket) {
         write(getFile(ticket.getId()), ticket);
+        expiries.update(ticket.getId(), ticket.getExpiryDeadline());
     }
 
     // Inherited javadoc
     @Override
     public void delete(int id) {
         DataStorage.getIO().delete(getFile(id));
+        expiries.remove(id);
     }
 
     @Override
@@ -115,6 +133,7 @@ public class JsonTicketDataStore implements TicketDataStore {
         for (File file : files) {
             DataStorage.getIO().delete(file);
         }
+        expiries.clear();
     }
 
     // Inherited javadoc
@@ -132,8 +151,8 @@ public class JsonTicketDataStore implements TicketDataStore {
     // Inherited javadoc
     @Override
     public void cleanExpiredTickets() {
-        findAll().stream()
-                .filter(Ticket::isExpired)
-                .forEach(ticket -> delete(ticket.getId()));
+        for (int id : expiries.pollExpired(Clocks.millis())) {
+            delete(id);
+        }
     }
 }
@@ -0,0 +1,628 @@
+package persistence.impl.file;
+
+import persistence.DataStorage;
+import persistence.PageFileUtils;
+import persistence.boundary.StatEntryDataStore;
+import persistence.codec.ValueCodecs;
+import stats.entry.EntryHierarchy;
+import stats.entry.StatEntry;
+import util.Preconditions;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * A log-structured implementation of the {@link StatEntryDataStore} interface.
+ * <p>
+ * Stored entries are appended to a segment file as a single record, so the cost of
+ * storing is proportional to the entries stored, rather than to the page they fall in.
+ * The location of the latest record of every index is kept in an in-memory index, which
+ * is rebuilt by scanning the segments on startup. Each record carries its length and a
+ * checksum, and a segment is truncated at the first incomplete or corrupt record, which
+ * is what a crash in the middle of an append leaves behind. Every record is forced to the
+ * storage device before {@link #store} returns.
+ * <p>
+ * Segments are appended to and read in parts, so they are accessed through channels opened
+ * by {@link DataStorage#getIO()}, which also lists and deletes them.
+ * <p>
+ * Once the active segment grows past its maximum size it is sealed, and a background
+ * thread compacts it into the pages of a {@link FileEntryDataStore} in the same directory,
+ * forces those pages to the storage device, and then deletes it. Indices that are not in the
+ * log are read from those pages, so a directory written by a {@link FileEntryDataStore} can
+ * be opened by this store directly.
+ */
+@SuppressWarnings("ResultOfMethodCallIgnored")
+public class LogEntryDataStore implements StatEntryDataStore {
+
+    /**
+     * The default maximum size of a segment in bytes before it is sealed.
+     */
+    public static final long DEFAULT_MAX_SEGMENT_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * The size of the length and checksum before every record.
+     */
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    /**
+     * The location of a record in the log.
+     */
+    private static class Location {
+
+        /**
+         * The number of the segment the record is in.
+         */
+        final long segment;
+
+        /**
+         * The offset of the payload of the record in the segment.
+         */
+        final long offset;
+
+        /**
+         * The length of the payload of the record.
+         */
+        final int length;
+
+        /**
+         * Constructs a location.
+         */
+        Location(long segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * The directory of the segments.
+     */
+    private final File logDirectory;
+
+    /**
+     * The store that sealed segments are compacted into.
+     */
+    private final FileEntryDataStore pages;
+
+    /**
+     * The maximum size of a segment in bytes before it is sealed.
+     */
+    private final long maxSegmentBytes;
+
+    /**
+     * The thread compacting sealed segments.
+     */
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Entry Log Compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The location of the latest record of every index in the log, mapped by the name of the entry class.
+     * Guarded by this store.
+     */
+    private final Map<String, TreeMap<Long, Location>> index = new HashMap<>();
+
+    /**
+     * The numbers of the segments that have been sealed but not yet compacted. Guarded by this store.
+     */
+    private final SortedSet<Long> sealedSegments = new TreeSet<>();
+
+    /**
+     * Held while compacting, so that a direct call to {@link #compact()} and the background
+     * thread never compact the same segment at once.
+     */
+    private final Object compactionLock = new Object();
+
+    /**
+     * The number of the segment being appended to. Guarded by this store.
+     */
+    private long activeSegment;
+
+    /**
+     * The channel of the segment being appended to. Guarded by this store.
+     */
+    private FileChannel activeChannel;
+
+    /**
+     * Constructs a LogEntryDataStore instance with a specified directory and the default segment size.
+     *
+     * @param directory The directory where the entry data files are stored.
+     */
+    public LogEntryDataStore(File directory) {
+        this(directory, DEFAULT_MAX_SEGMENT_BYTES);
+    }
+
+    /**
+     * Constructs a LogEntryDataStore instance with a specified directory, recovering
+     * any segments left in it, and compacting those that are already sealed.
+     *
+     * @param directory       The directory where the entry data files are stored.
+     * @param maxSegmentBytes The maximum size of a segment in bytes before it is sealed.
+     */
+    public LogEntryDataStore(File directory, long maxSegmentBytes) {
+        Preconditions.checkArgument(maxSegmentBytes > 0, "Max segment size must be positive");
+
+        this.pages = new FileEntryDataStore(directory);
+        this.logDirectory = new File(directory, "log");
+        this.maxSegmentBytes = maxSegmentBytes;
+        logDirectory.mkdirs();
+
+        try {
+            synchronized (this) {
+                List<Long> segments = listSegments();
+                for (long segment : segments) {
+                    recover(segment);
+                }
+
+                // Keep appending to the last segment, the rest are sealed
+                activeSegment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+                sealedSegments.addAll(segments);
+                sealedSegments.remove(activeSegment);
+                activeChannel = openForAppend(activeSegment);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open entry log in " + logDirectory, e);
+        }
+
+        if (!sealedSegments.isEmpty()) {
+            compactor.execute(this::compactQuietly);
+        }
+    }
+
+    /**
+     * Returns the numbers of the segments in the log directory in ascending order.
+     */
+    private List<Long> listSegments() {
+        List<Long> segments = new ArrayList<>();
+        List<File> files = DataStorage.getIO().listFiles(logDirectory);
+        if (files == null) return segments;
+
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.endsWith(".log")) continue;
+            try {
+                segments.add(Long.parseLong(name.substring(0, name.length() - 4)));
+            } catch (NumberFormatException ignored) {
+                // Not a segment
+            }
+        }
+
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Returns the file of the given segment.
+     */
+    private File getSegmentFile(long segment) {
+        return new File(logDirectory, segment + ".log");
+    }
+
+    /**
+     * Opens a segment to append to, creating it if needed.
+     */
+    private FileChannel openForAppend(long segment) throws IOException {
+        return DataStorage.getIO().openChannel(getSegmentFile(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Indexes the records of a segment, truncating it at the first incomplete or corrupt record.
+     */
+    private void recover(long segment) throws IOException {
+        try (FileChannel channel = DataStorage.getIO().openChannel(getSegmentFile(segment),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            long size = channel.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+
+            while (position < size) {
+                header.clear();
+                if (channel.read(header, position) < RECORD_HEADER_BYTES) break;
+                header.flip();
+
+                int length = header.getInt();
+                int checksum = header.getInt();
+                long offset = position + RECORD_HEADER_BYTES;
+                if (length <= 0 || offset + length > size) break;
+
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                channel.read(payload, offset);
+                if (checksum(payload.array()) != checksum) break;
+
+                String className = new DataInputStream(new ByteArrayInputStream(payload.array())).readUTF();
+                long entryIndex = readIndex(payload.array());
+                index.computeIfAbsent(className, name -> new TreeMap<>())
+                        .put(entryIndex, new Location(segment, offset, length));
+
+                position = offset + length;
+            }
+
+            if (position < size) {
+                channel.truncate(position);
+            }
+        }
+    }
+
+    /**
+     * Returns the checksum of a record payload.
+     */
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Reads the index of the entries in a record payload, without decoding them.
+     */
+    private static long readIndex(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        in.readUTF();
+        return in.readLong();
+    }
+
+    /**
+     * Stores the given list of entries by appending them to the log.
+     *
+     * @param index   The index of the data.
+     * @param clazz   The class of the data.
+     * @param entries The list of entries to store.
+     * @param <E>     The class of the entries.
+     */
+    @Override
+    public <E extends StatEntry> void store(long index, Class<? extends StatEntry> clazz, List<E> entries) {
+        if (entries.isEmpty()) return;
+
+        byte[] payload;
+        try {
+            payload = encode(index, clazz, entries);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length);
+        record.putInt(payload.length);
+        record.putInt(checksum(payload));
+        record.put(payload);
+        record.flip();
+
+        synchronized (this) {
+            try {
+                long offset = activeChannel.size() + RECORD_HEADER_BYTES;
+                while (record.hasRemaining()) {
+                    activeChannel.write(record);
+                }
+                activeChannel.force(false);
+
+                this.index.computeIfAbsent(clazz.getName(), name -> new TreeMap<>())
+                        .put(index, new Location(activeSegment, offset, payload.length));
+
+                if (activeChannel.size() >= maxSegmentBytes) {
+                    seal();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Encodes the entries of an index as a record payload: the name of the entry
+     * class, the index, and then the entries as a single entry page.
+     */
+    private static <T extends StatEntry> byte[] encode(long index, Class<T> clazz, List<? extends StatEntry> entries)
+            throws IOException {
+        List<T> list = new ArrayList<>();
+        for (StatEntry entry : entries) {
+            list.add(clazz.cast(entry));
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(clazz.getName());
+        out.writeLong(index);
+        out.write(PageFileUtils.encode(Map.of(index, list), ValueCodecs.forList(clazz)));
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Seals the active segment and starts a new one, scheduling the sealed segment to be compacted.
+     */
+    private void seal() throws IOException {
+        activeChannel.close();
+        sealedSegments.add(activeSegment);
+
+        activeSegment++;
+        activeChannel = openForAppend(activeSegment);
+
+        compactor.execute(this::compactQuietly);
+    }
+
+    /**
+     * Compacts the sealed segments, logging rather than throwing any failure,
+     * as the segments will be compacted again on the next attempt.
+     */
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Compacts every sealed segment into the pages, and deletes it.
+     * This is done in the background as segments are sealed, but may also be called directly.
+     *
+     * @throws IOException if a segment cannot be read or the pages cannot be written.
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            while (true) {
+                long segment;
+                Map<String, Map<Long, Location>> live = new HashMap<>();
+
+                // Find the records in the segment that have not been overwritten by later ones
+                synchronized (this) {
+                    if (sealedSegments.isEmpty()) return;
+                    segment = sealedSegments.first();
+
+                    for (Map.Entry<String, TreeMap<Long, Location>> classIndex : index.entrySet()) {
+                        for (Map.Entry<Long, Location> entry : classIndex.getValue().entrySet()) {
+                            if (entry.getValue().segment != segment) continue;
+                            live.computeIfAbsent(classIndex.getKey(), name -> new HashMap<>())
+                                    .put(entry.getKey(), entry.getValue());
+                        }
+                    }
+                }
+
+                try (FileChannel channel = DataStorage.getIO().openChannel(getSegmentFile(segment),
+                        StandardOpenOption.READ)) {
+                    for (Map.Entry<String, Map<Long, Location>> classRecords : live.entrySet()) {
+                        Class<? extends StatEntry> clazz;
+                        try {
+                            clazz = Class.forName(classRecords.getKey()).asSubclass(StatEntry.class);
+                        } catch (ClassNotFoundException | ClassCastException e) {
+                            continue; // The class was removed, its entries can't be read anyway
+                        }
+                        compact(channel, clazz, classRecords.getValue());
+                    }
+                }
+
+                // The records are now in the pages, unless they were overwritten in the meantime
+                synchronized (this) {
+                    for (Map.Entry<String, Map<Long, Location>> classRecords : live.entrySet()) {
+                        TreeMap<Long, Location> classIndex = index.get(classRecords.getKey());
+                        classRecords.getValue().forEach(classIndex::remove);
+                        if (classIndex.isEmpty()) index.remove(classRecords.getKey());
+                    }
+                    sealedSegments.remove(segment);
+                }
+
+                // Nothing points into the segment any more, so it can go without holding up appends
+                DataStorage.getIO().delete(getSegmentFile(segment)).join();
+            }
+        }
+    }
+
+    /**
+     * Writes the records of one entry class in a segment into the pages, waiting for them to be
+     * written and forced to the storage device, so that the segment can be deleted safely.
+     */
+    private <E extends StatEntry> void compact(FileChannel channel, Class<E> clazz, Map<Long, Location> records)
+            throws IOException {
+        Map<Long, List<E>> entries = new HashMap<>();
+        for (Map.Entry<Long, Location> record : records.entrySet()) {
+            entries.put(record.getKey(), read(channel, record.getValue(), record.getKey(), clazz));
+        }
+
+        pages.storeAll(clazz, entries).join();
+        pages.force(clazz, entries.keySet());
+    }
+
+    /**
+     * Reads and decodes the entries of a record.
+     */
+    private static <E extends StatEntry> List<E> read(FileChannel channel, Location location, long entryIndex,
+                                                      Class<E> clazz) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(location.length);
+        while (payload.hasRemaining()) {
+            if (channel.read(payload, location.offset + payload.position()) < 0) {
+                throw new EOFException("Record truncated in " + channel);
+            }
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload.array()));
+        in.readUTF();
+        in.readLong();
+        byte[] page = in.readAllBytes();
+
+        Map<Long, List<E>> decoded = PageFileUtils.decode(page, ValueCodecs.forList(clazz), legacy -> {
+            List<E> converted = new ArrayList<>();
+            for (Object entry : (List<?>) legacy) {
+                converted.add(clazz.cast(entry));
+            }
+            return converted;
+        });
+        return decoded.getOrDefault(entryIndex, new ArrayList<>());
+    }
+
+    /**
+     * Reads the entries of the given indices that are in the log, in one pass over each segment.
+     * Only finding the records holds the lock of this store, so reading them never holds up appends.
+     *
+     * @param indices The indices to read.
+     * @param clazz   The class of the entries.
+     * @return The entries of those indices that are in the log, mapped by index.
+     */
+    private <E extends StatEntry> Map<Long, List<E>> readLog(Collection<Long> indices, Class<E> clazz) {
+        Map<Long, List<E>> result = new HashMap<>();
+
+        // Group by segment, so that each one is opened once
+        Map<Long, Map<Long, Location>> bySegment = new HashMap<>();
+        synchronized (this) {
+            TreeMap<Long, Location> classIndex = index.get(clazz.getName());
+            if (classIndex == null) return result;
+
+            for (long entryIndex : indices) {
+                Location location = classIndex.get(entryIndex);
+                if (location == null) continue;
+                bySegment.computeIfAbsent(location.segment, segment -> new HashMap<>()).put(entryIndex, location);
+            }
+        }
+
+        for (Map.Entry<Long, Map<Long, Location>> segment : bySegment.entrySet()) {
+            try (FileChannel channel = DataStorage.getIO().openChannel(getSegmentFile(segment.getKey()),
+                    StandardOpenOption.READ)) {
+                for (Map.Entry<Long, Location> record : segment.getValue().entrySet()) {
+                    result.put(record.getKey(), read(channel, record.getValue(), record.getKey(), clazz));
+                }
+            } catch (NoSuchFileException e) {
+                // Compacted since the records were found, so they are read from the pages instead
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return result;
+    }
+
+    // Inherited javadoc
+    @Override
+    public <E extends StatEntry> Map<Long, List<E>> retrieve(long from, long to, Class<E> clazz) {
+        List<Long> indices = new ArrayList<>();
+        for (long i = from; i <= to; i++) {
+            indices.add(i);
+        }
+
+        Map<Long, List<E>> inLog = readLog(indices, clazz);
+
+        Map<Long, List<E>> result = pages.retrieve(from, to, clazz);
+        result.putAll(inLog);
+        return result;
+    }
+
+    // Inherited javadoc
+    @Override
+    public <E extends StatEntry> Map<Long, List<E>> retrieve(List<Long> indices, Class<E> clazz) {
+        Map<Long, List<E>> inLog = readLog(indices, clazz);
+
+        List<Long> remaining = new ArrayList<>();
+        for (long i : indices) {
+            if (!inLog.containsKey(i)) remaining.add(i);
+        }
+
+        Map<Long, List<E>> result = remaining.isEmpty() ? new HashMap<>() : pages.retrieve(remaining, clazz);
+        result.putAll(inLog);
+        return result;
+    }
+
+    /**
+     * Retrieves the stats of several concrete classes at a set of indices, reading the indices
+     * of each class that are in the log from the log, and the rest from the pages, so that
+     * each page is still read once for every class.
+     *
+     * @param baseIndex  The time index of bit 0 of {@code indices}.
+     * @param indices    The indices to retrieve, as offsets from {@code baseIndex}.
+     * @param classes    The concrete types of stat entries to retrieve.
+     * @param entryClass The common type of the stat entries, which may be an interface.
+     * @param <E>        The common type of the stat entries.
+     * @return A map of indices to the stat entries of every class, leaving out indices with none.
+     */
+    @Override
+    public <E extends StatEntry> Map<Long, List<E>> retrieveAll(long baseIndex, BitSet indices,
+                                                                Collection<Class<? extends E>> classes,
+                                                                Class<E> entryClass) {
+        List<Long> indexList = new ArrayList<>();
+        for (int bit = indices.nextSetBit(0); bit >= 0; bit = indices.nextSetBit(bit + 1)) {
+            indexList.add(baseIndex + bit);
+        }
+
+        Map<Long, List<E>> result = new HashMap<>();
+        List<Class<? extends E>> notInLog = new ArrayList<>();
+        for (Class<? extends E> clazz : classes) {
+            Map<Long, ? extends List<? extends E>> inLog = readLog(indexList, clazz);
+            if (inLog.isEmpty()) {
+                notInLog.add(clazz);
+                continue;
+            }
+
+            // The log holds the latest entries of these indices, so the pages are only read for the rest
+            BitSet remaining = (BitSet) indices.clone();
+            for (Map.Entry<Long, ? extends List<? extends E>> entry : inLog.entrySet()) {
+                remaining.clear((int) (entry.getKey() - baseIndex));
+                merge(result, entry.getKey(), entry.getValue());
+            }
+            if (!remaining.isEmpty()) {
+                pages.retrieveAll(baseIndex, remaining, List.of(clazz), entryClass).forEach(
+                        (index, entries) -> merge(result, index, entries));
+            }
+        }
+
+        // Classes with nothing in the log are read from the pages together
+        if (!notInLog.isEmpty()) {
+            pages.retrieveAll(baseIndex, indices, notInLog, entryClass).forEach(
+                    (index, entries) -> merge(result, index, entries));
+        }
+        return result;
+    }
+
+    /**
+     * Adds the entries of an index to a result, leaving out indices with none.
+     */
+    private static <E extends StatEntry> void merge(Map<Long, List<E>> result, long index,
+                                                    List<? extends E> entries) {
+        if (entries.isEmpty()) return;
+        result.computeIfAbsent(index, i -> new ArrayList<>()).addAll(entries);
+    }
+
+    // Inherited javadoc
+    @Override
+    public void storeHierarchy(EntryHierarchy hierarchy) {
+        pages.storeHierarchy(hierarchy);
+    }
+
+    // Inherited javadoc
+    @Override
+    public EntryHierarchy retrieveHierarchy() {
+        return pages.retrieveHierarchy();
+    }
+
+    /**
+     * Stops compacting, waiting for a compaction in progress, and forces and closes the active
+     * segment. Sealed segments that have not been compacted are compacted the next time the
+     * store is opened.
+     */
+    public void close() {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            if (!activeChannel.isOpen()) return;
+            try {
+                activeChannel.force(false);
+                activeChannel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+}
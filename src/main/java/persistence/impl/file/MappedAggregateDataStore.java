@@ -0,0 +1,148 @@
+package persistence.impl.file;
+
+import persistence.boundary.StatAggregateDataStore;
+import persistence.codec.ValueCodecs;
+import stats.entry.StatEntry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A file-based implementation of the {@link StatAggregateDataStore} interface that reads
+ * its pages through memory mappings, so that a query over a long range only touches the
+ * bytes of the aggregates in it.
+ *
+ * @see MappedPageFile
+ */
+@SuppressWarnings("ResultOfMethodCallIgnored")
+public class MappedAggregateDataStore implements StatAggregateDataStore {
+
+    /**
+     * The page size, i.e. the number of aggregates per file.
+     */
+    private static final int PAGE_SIZE = 256;
+
+    /**
+     * The maximum number of pages kept open at once.
+     */
+    private static final int MAX_OPEN_PAGES = 64;
+
+    /**
+     * The directory where the aggregated data files are stored.
+     */
+    private final File directory;
+
+    /**
+     * The open pages, mapped by their files, closed once they are the least recently used
+     * of more than {@link #MAX_OPEN_PAGES}. Guarded by this store.
+     */
+    private final Map<File, MappedPageFile<?>> openPages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, MappedPageFile<?>> eldest) {
+            if (size() <= MAX_OPEN_PAGES) return false;
+            closeQuietly(eldest.getValue());
+            return true;
+        }
+    };
+
+    /**
+     * Constructs a MappedAggregateDataStore instance with a specified directory.
+     *
+     * @param directory The directory where the aggregated data files are stored.
+     */
+    public MappedAggregateDataStore(File directory) {
+        directory.mkdirs();
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the open page of the given classes, opening it if needed.
+     *
+     * @param page           The page number.
+     * @param entryClass     The entry class of the data.
+     * @param aggregateClass The aggregate class of the data.
+     * @param create         Whether the page is being written to, and should be created if it does not exist.
+     * @return The page, or null if it does not exist and is not being created.
+     * @throws IOException if the page cannot be opened.
+     */
+    @SuppressWarnings("unchecked")  // The file of a page is unique to its aggregate class
+    private <A> MappedPageFile<A> getPage(long page, Class<? extends StatEntry> entryClass, Class<A> aggregateClass,
+                                          boolean create) throws IOException {
+        File file = new File(directory,
+                entryClass.getSimpleName() + "-" + aggregateClass.getSimpleName() + "-" + page + ".mpage");
+
+        MappedPageFile<?> pageFile = openPages.get(file);
+        if (pageFile != null && create && !pageFile.isWritable()) {
+            // Reopen a page that has only been read for writing
+            openPages.remove(file);
+            closeQuietly(pageFile);
+            pageFile = null;
+        }
+
+        if (pageFile == null) {
+            if (create) {
+                pageFile = new MappedPageFile<>(file, ValueCodecs.forClass(aggregateClass),
+                        page * PAGE_SIZE, PAGE_SIZE);
+            } else {
+                pageFile = MappedPageFile.openExisting(file, ValueCodecs.forClass(aggregateClass),
+                        page * PAGE_SIZE, PAGE_SIZE);
+                if (pageFile == null) return null;
+            }
+            openPages.put(file, pageFile);
+        }
+        return (MappedPageFile<A>) pageFile;
+    }
+
+    /**
+     * Closes a page, ignoring any failure as it is only being evicted.
+     */
+    private static void closeQuietly(MappedPageFile<?> page) {
+        try {
+            page.close();
+        } catch (IOException ignored) {
+            // The page was only read from since it was last written
+        }
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized <E extends StatEntry, A> Map<Long, A> retrieve(long startIndex, long endIndex,
+                                                                    Class<E> entryClass, Class<A> aggregateClass) {
+        Map<Long, A> map = new HashMap<>();
+
+        try {
+            for (long page = Math.floorDiv(startIndex, PAGE_SIZE); page <= Math.floorDiv(endIndex, PAGE_SIZE); page++) {
+                MappedPageFile<A> pageFile = getPage(page, entryClass, aggregateClass, false);
+                if (pageFile != null) map.putAll(pageFile.read(startIndex, endIndex));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return map;
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized <E extends StatEntry, A> void store(long index, Class<E> entryClass, Class<A> aggregateClass,
+                                                            A aggregate) {
+        try {
+            getPage(Math.floorDiv(index, PAGE_SIZE), entryClass, aggregateClass, true).write(index, aggregate);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes every open page.
+     */
+    public synchronized void close() {
+        openPages.values().forEach(MappedAggregateDataStore::closeQuietly);
+        openPages.clear();
+    }
+
+}
@@ -0,0 +1,200 @@
+package persistence.impl.file;
+
+import persistence.boundary.StatEntryDataStore;
+import persistence.codec.ValueCodecs;
+import stats.entry.EntryHierarchy;
+import stats.entry.StatEntry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * A file-based implementation of the {@link StatEntryDataStore} interface that reads
+ * its pages through memory mappings. Only the bytes of the indices being read are
+ * touched, and the pages are cached by the OS rather than copied onto the heap.
+ *
+ * @see MappedPageFile
+ */
+@SuppressWarnings("ResultOfMethodCallIgnored")
+public class MappedEntryDataStore implements StatEntryDataStore {
+
+    /**
+     * The page size, i.e. the number of entry lists per file.
+     */
+    private static final int PAGE_SIZE = 64;
+
+    /**
+     * The maximum number of pages kept open at once.
+     */
+    private static final int MAX_OPEN_PAGES = 64;
+
+    /**
+     * The directory where the entry data files are stored.
+     */
+    private final File directory;
+
+    /**
+     * Stores the hierarchy, in the same way as the paged entry store.
+     */
+    private final FileEntryDataStore hierarchyStore;
+
+    /**
+     * The open pages, mapped by their files, closed once they are the least recently used
+     * of more than {@link #MAX_OPEN_PAGES}. Guarded by this store.
+     */
+    private final Map<File, MappedPageFile<?>> openPages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, MappedPageFile<?>> eldest) {
+            if (size() <= MAX_OPEN_PAGES) return false;
+            closeQuietly(eldest.getValue());
+            return true;
+        }
+    };
+
+    /**
+     * Constructs a MappedEntryDataStore instance with a specified directory.
+     *
+     * @param directory The directory where the entry data files are stored.
+     */
+    public MappedEntryDataStore(File directory) {
+        directory.mkdirs();
+        this.directory = directory;
+        this.hierarchyStore = new FileEntryDataStore(directory);
+    }
+
+    /**
+     * Returns the open page of the given class, opening it if needed.
+     *
+     * @param page   The page number.
+     * @param clazz  The class of the entries.
+     * @param create Whether the page is being written to, and should be created if it does not exist.
+     * @return The page, or null if it does not exist and is not being created.
+     * @throws IOException if the page cannot be opened.
+     */
+    @SuppressWarnings("unchecked")  // The file of a page is unique to its class
+    private <E extends StatEntry> MappedPageFile<List<E>> getPage(long page, Class<E> clazz, boolean create)
+            throws IOException {
+        File classFolder = new File(directory, clazz.getSimpleName());
+        File file = new File(classFolder, page + ".mpage");
+
+        MappedPageFile<?> pageFile = openPages.get(file);
+        if (pageFile != null && create && !pageFile.isWritable()) {
+            // Reopen a page that has only been read for writing
+            openPages.remove(file);
+            closeQuietly(pageFile);
+            pageFile = null;
+        }
+
+        if (pageFile == null) {
+            if (create) {
+                classFolder.mkdirs();
+                pageFile = new MappedPageFile<>(file, ValueCodecs.forList(clazz), page * PAGE_SIZE, PAGE_SIZE);
+            } else {
+                pageFile = MappedPageFile.openExisting(file, ValueCodecs.forList(clazz), page * PAGE_SIZE, PAGE_SIZE);
+                if (pageFile == null) return null;
+            }
+            openPages.put(file, pageFile);
+        }
+        return (MappedPageFile<List<E>>) pageFile;
+    }
+
+    /**
+     * Closes a page, ignoring any failure as it is only being evicted.
+     */
+    private static void closeQuietly(MappedPageFile<?> page) {
+        try {
+            page.close();
+        } catch (IOException ignored) {
+            // The page was only read from since it was last written
+        }
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized <E extends StatEntry> void store(long index, Class<? extends StatEntry> clazz, List<E> entries) {
+        if (entries.isEmpty()) return;
+        storeTyped(index, clazz, entries);
+    }
+
+    /**
+     * Stores the given list of entries, typed by the entry class.
+     */
+    private <T extends StatEntry> void storeTyped(long index, Class<T> clazz, Collection<? extends StatEntry> entries) {
+        List<T> list = new ArrayList<>();
+        for (StatEntry entry : entries) {
+            list.add(clazz.cast(entry));
+        }
+
+        try {
+            getPage(Math.floorDiv(index, PAGE_SIZE), clazz, true).write(index, list);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized <E extends StatEntry> Map<Long, List<E>> retrieve(long from, long to, Class<E> clazz) {
+        Map<Long, List<E>> result = new HashMap<>();
+
+        try {
+            for (long page = Math.floorDiv(from, PAGE_SIZE); page <= Math.floorDiv(to, PAGE_SIZE); page++) {
+                MappedPageFile<List<E>> pageFile = getPage(page, clazz, false);
+                if (pageFile != null) result.putAll(pageFile.read(from, to));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Like the paged store, every index in the range is present
+        for (long i = from; i <= to; i++) {
+            result.putIfAbsent(i, new ArrayList<>());
+        }
+
+        return result;
+    }
+
+    // Inherited javadoc
+    @Override
+    public synchronized <E extends StatEntry> Map<Long, List<E>> retrieve(List<Long> indices, Class<E> clazz) {
+        Map<Long, List<E>> result = new HashMap<>();
+
+        try {
+            for (long index : indices) {
+                MappedPageFile<List<E>> pageFile = getPage(Math.floorDiv(index, PAGE_SIZE), clazz, false);
+                if (pageFile == null) continue;
+
+                List<E> entries = pageFile.read(index);
+                if (entries == null || entries.isEmpty()) continue;
+                result.put(index, entries);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return result;
+    }
+
+    // Inherited javadoc
+    @Override
+    public void storeHierarchy(EntryHierarchy hierarchy) {
+        hierarchyStore.storeHierarchy(hierarchy);
+    }
+
+    // Inherited javadoc
+    @Override
+    public EntryHierarchy retrieveHierarchy() {
+        return hierarchyStore.retrieveHierarchy();
+    }
+
+    /**
+     * Closes every open page.
+     */
+    public synchronized void close() {
+        openPages.values().forEach(MappedEntryDataStore::closeQuietly);
+        openPages.clear();
+    }
+
+}
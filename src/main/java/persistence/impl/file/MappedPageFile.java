@@ -0,0 +1,375 @@
+package persistence.impl.file;
+
+import persistence.DataStorage;
+import persistence.codec.ValueCodec;
+import util.Preconditions;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A page file holding the values of a fixed range of indices, read through a memory mapping
+ * so that reading a value only touches its own bytes, which are cached by the OS rather than
+ * copied onto the heap.
+ * <p>
+ * The file starts with a header and a table with the offset and length of each slot's value,
+ * followed by the values themselves, uncompressed. Writing a value appends it to the end of the
+ * file, forces it to the storage device, and only then points its slot at it, so a crash part
+ * way through a write, even of the whole system, leaves the slot pointing at either its previous
+ * value or the new one. Overwritten values are left in place as dead space.
+ * <p>
+ * The offset table is read through the mapping, which sees each slot entry as soon as it is
+ * written. A write does not remap the file; the mapping is only grown, to the current size of
+ * the file, when a value is read that was appended past its end.
+ * <p>
+ * Pages that are only read from are opened with {@link #openExisting}, which neither creates
+ * nor modifies the file. A file that is not a page of the same slots written by the same codec
+ * is never overwritten; opening it fails instead.
+ *
+ * @param <T> The type of the values.
+ */
+public class MappedPageFile<T> implements Closeable {
+
+    /**
+     * The magic number at the start of every mapped page, "MPAG" in ASCII.
+     */
+    private static final int MAGIC = 0x4D504147;
+
+    /**
+     * The version of the mapped page format written.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the fixed part of the header: the magic number, version, slot count,
+     * table offset, and first index.
+     */
+    private static final int FIXED_HEADER_BYTES = 24;
+
+    /**
+     * The size of each entry of the offset table: the offset and length of the value.
+     */
+    private static final int TABLE_ENTRY_BYTES = 12;
+
+    /**
+     * The codec of the values.
+     */
+    private final ValueCodec<T> codec;
+
+    /**
+     * The channel of the file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The index of the first slot.
+     */
+    private final long firstIndex;
+
+    /**
+     * The number of slots.
+     */
+    private final int slots;
+
+    /**
+     * The offset of the offset table in the file.
+     */
+    private int tableOffset;
+
+    /**
+     * Whether the file was opened for writing.
+     */
+    private final boolean writable;
+
+    /**
+     * The mapping of the file, which may end before values appended since it was mapped.
+     */
+    private MappedByteBuffer mapping;
+
+    /**
+     * Opens a mapped page file for reading and writing, creating it if it does not exist.
+     *
+     * @param file       The file.
+     * @param codec      The codec of the values.
+     * @param firstIndex The index of the first slot.
+     * @param slots      The number of slots.
+     * @throws IOException if the file cannot be opened or created, or is not a page of
+     *                     the same slots written by the same codec.
+     */
+    public MappedPageFile(File file, ValueCodec<T> codec, long firstIndex, int slots) throws IOException {
+        this(file, codec, firstIndex, slots, true);
+    }
+
+    /**
+     * Opens a mapped page file.
+     */
+    private MappedPageFile(File file, ValueCodec<T> codec, long firstIndex, int slots, boolean writable)
+            throws IOException {
+        Preconditions.checkArgument(slots > 0, "A page must have at least one slot");
+
+        this.codec = codec;
+        this.firstIndex = firstIndex;
+        this.slots = slots;
+        this.writable = writable;
+        this.channel = writable
+                ? DataStorage.getIO().openChannel(file,
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : DataStorage.getIO().openChannel(file, StandardOpenOption.READ);
+
+        try {
+            // A file without a whole fixed header was created but never written
+            if (channel.size() < FIXED_HEADER_BYTES) {
+                if (writable) writeHeader();
+            } else {
+                readHeader(file);
+            }
+            remap();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an existing mapped page file for reading only, without creating or modifying it.
+     *
+     * @param file       The file.
+     * @param codec      The codec of the values.
+     * @param firstIndex The index of the first slot.
+     * @param slots      The number of slots.
+     * @param <T>        The type of the values.
+     * @return The page, or null if the file does not exist.
+     * @throws IOException if the file cannot be opened, or is not a page of the same slots
+     *                     written by the same codec.
+     */
+    public static <T> MappedPageFile<T> openExisting(File file, ValueCodec<T> codec, long firstIndex, int slots)
+            throws IOException {
+        if (!DataStorage.getIO().exists(file)) return null;
+        return new MappedPageFile<>(file, codec, firstIndex, slots, false);
+    }
+
+    /**
+     * Reads and checks the header of the file.
+     *
+     * @param file The file, for error messages.
+     * @throws IOException if the file is not a page of the same slots written by the same codec.
+     */
+    private void readHeader(File file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_BYTES);
+        channel.read(header, 0);
+        header.flip();
+
+        if (header.getInt() != MAGIC) throw new IOException(file + " is not a mapped page");
+        int version = header.getInt();
+        if (version != VERSION) throw new IOException(file + " has unsupported page version " + version);
+        int fileSlots = header.getInt();
+        int table = header.getInt();
+        long fileFirstIndex = header.getLong();
+        if (fileSlots != slots || fileFirstIndex != firstIndex) {
+            throw new IOException(file + " holds " + fileSlots + " slots from index " + fileFirstIndex
+                    + ", expected " + slots + " from index " + firstIndex);
+        }
+        if (table < FIXED_HEADER_BYTES || table + (long) slots * TABLE_ENTRY_BYTES > channel.size()) {
+            throw new IOException(file + " has a truncated header");
+        }
+
+        ByteBuffer id = ByteBuffer.allocate(table - FIXED_HEADER_BYTES);
+        channel.read(id, FIXED_HEADER_BYTES);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(id.array()));
+        String codecId = in.readUTF();
+        if (!codecId.equals(codec.getId())) {
+            throw new IOException(file + " was written by codec " + codecId + ", expected " + codec.getId());
+        }
+
+        this.tableOffset = table;
+    }
+
+    /**
+     * Truncates the file and writes the header and an empty offset table.
+     */
+    private void writeHeader() throws IOException {
+        ByteArrayOutputStream idBytes = new ByteArrayOutputStream();
+        new DataOutputStream(idBytes).writeUTF(codec.getId());
+
+        tableOffset = FIXED_HEADER_BYTES + idBytes.size();
+
+        ByteBuffer header = ByteBuffer.allocate(tableOffset + slots * TABLE_ENTRY_BYTES);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(slots);
+        header.putInt(tableOffset);
+        header.putLong(firstIndex);
+        header.put(idBytes.toByteArray());
+
+        // Every slot starts empty, with a length of -1
+        for (int i = 0; i < slots; i++) {
+            header.putLong(0);
+            header.putInt(-1);
+        }
+        header.flip();
+
+        channel.truncate(0);
+        channel.write(header, 0);
+    }
+
+    /**
+     * Maps the whole of the file as it is now, replacing the previous mapping.
+     */
+    private void remap() throws IOException {
+        mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    /**
+     * Returns whether the file was opened for writing.
+     */
+    public boolean isWritable() {
+        return writable;
+    }
+
+    /**
+     * Returns the slot of an index, checking that it is in this page.
+     */
+    private int slotOf(long index) {
+        Preconditions.checkArgument(index >= firstIndex && index < firstIndex + slots,
+                "Index " + index + " is not in this page");
+        return (int) (index - firstIndex);
+    }
+
+    /**
+     * Reads the value of an index.
+     *
+     * @param index The index, which must be in this page.
+     * @return The value, or null if none has been written.
+     * @throws IOException if the value cannot be decoded.
+     */
+    public synchronized T read(long index) throws IOException {
+        int slot = slotOf(index);
+
+        // A page opened for reading before its header was written holds nothing
+        if (tableOffset == 0) return null;
+
+        int entry = tableOffset + slot * TABLE_ENTRY_BYTES;
+        long offset = mapping.getLong(entry);
+        int length = mapping.getInt(entry + 8);
+        if (length < 0) return null;
+
+        // The value was appended after the file was mapped, so grow the mapping to cover it
+        if (offset + length > mapping.capacity() && channel.size() > mapping.capacity()) {
+            remap();
+        }
+        if (offset + length > mapping.capacity()) {
+            throw new EOFException("Value of index " + index + " is past the end of the page");
+        }
+
+        ByteBuffer value = mapping.duplicate();
+        value.position((int) offset);
+        value.limit((int) offset + length);
+        return codec.read(new DataInputStream(new ByteBufferInputStream(value)));
+    }
+
+    /**
+     * Reads the values of a range of indices, skipping those without a value.
+     *
+     * @param from The first index, inclusive. It may be before this page.
+     * @param to   The last index, inclusive. It may be after this page.
+     * @return The values mapped by index.
+     * @throws IOException if a value cannot be decoded.
+     */
+    public synchronized Map<Long, T> read(long from, long to) throws IOException {
+        Map<Long, T> values = new HashMap<>();
+        long start = Math.max(from, firstIndex);
+        long end = Math.min(to, firstIndex + slots - 1);
+        for (long index = start; index <= end; index++) {
+            T value = read(index);
+            if (value != null) values.put(index, value);
+        }
+        return values;
+    }
+
+    /**
+     * Writes the value of an index, replacing any previous value.
+     *
+     * @param index The index, which must be in this page.
+     * @param value The value.
+     * @throws IOException if the value cannot be written.
+     */
+    public synchronized void write(long index, T value) throws IOException {
+        Preconditions.checkState(writable, "Page was opened for reading only");
+        int slot = slotOf(index);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        codec.write(out, value);
+        out.flush();
+
+        // Append the value, then point the slot at it
+        long offset = channel.size();
+        Preconditions.checkState(offset + bytes.size() <= Integer.MAX_VALUE, "Page is full");
+        channel.write(ByteBuffer.wrap(bytes.toByteArray()), offset);
+
+        // The value must be on disk before the slot can point at it
+        channel.force(false);
+
+        ByteBuffer entry = ByteBuffer.allocate(TABLE_ENTRY_BYTES);
+        entry.putLong(offset);
+        entry.putInt(bytes.size());
+        entry.flip();
+        channel.write(entry, tableOffset + (long) slot * TABLE_ENTRY_BYTES);
+    }
+
+    /**
+     * Closes the file. The mapping is released once it is garbage collected.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * An input stream over the remaining bytes of a buffer.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+
+        /**
+         * The buffer being read.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * Constructs an input stream over a buffer.
+         */
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        // Inherited javadoc
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        // Inherited javadoc
+        @Override
+        public int read(byte[] bytes, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int read = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, read);
+            return read;
+        }
+
+        // Inherited javadoc
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+}
@@ -8,7 +8,7 @@ import java.util.Map;
 
 /**
  * An implementation of StatAggregateDataStore that stores stats in memory
- * for testing purposes.
+ * for testing purposes. Aggregates are stored from several threads, so every method locks.
  */
 public class MemoryAggregateDataStore implements StatAggregateDataStore {
 
@@ -18,14 +18,14 @@ public class MemoryAggregateDataStore implements StatAggregateDataStore {
     private final Map<Class<?>, Map<Class<?>, Map<Long, Object>>> data = new HashMap<>();
 
     @Override
-    public <E extends StatEntry, A> void store(long index, Class<E> entryClass, Class<A> aggregateClass, A aggregate) {
+    public synchronized <E extends StatEntry, A> void store(long index, Class<E> entryClass, Class<A> aggregateClass, A aggregate) {
         Map<Class<?>, Map<Long, Object>> entryMap = data.computeIfAbsent(entryClass, k -> new HashMap<>());
         Map<Long, Object> aggregateMap = entryMap.computeIfAbsent(aggregateClass, k -> new HashMap<>());
         aggregateMap.put(index, aggregate);
     }
 
     @Override
-    public <E extends StatEntry, A> Map<Long, A> retrieve(long startIndex, long endIndex, Class<E> entryClass, Class<A> aggregateClass) {
+    public synchronized <E extends StatEntry, A> Map<Long, A> retrieve(long startIndex, long endIndex, Class<E> entryClass, Class<A> aggregateClass) {
         Map<Class<?>, Map<Long, Object>> entryMap = data.get(entryClass);
         if (entryMap == null) return new HashMap<>();
         Map<Long, Object> aggregateMap = entryMap.get(aggregateClass);
@@ -5,13 +5,16 @@ import stats.entry.EntryHierarchy;
 import stats.entry.StatEntry;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * An implementation of StatEntryDataStore that stores stats in memory
- * for testing purposes.
+ * for testing purposes. Entries are stored by the stat tracker's flushing
+ * thread, so every method locks.
  */
 public class MemoryEntryDataStore implements StatEntryDataStore {
 
@@ -25,13 +28,13 @@ public class MemoryEntryDataStore implements StatEntryDataStore {
     private final Map<Class<? extends StatEntry>, Map<Long, List<?>>> data = new HashMap<>();
 
     @Override
-    public <E extends StatEntry> void store(long index, Class<? extends StatEntry> clazz, List<E> entries) {
+    public synchronized <E extends StatEntry> void store(long index, Class<? extends StatEntry> clazz, List<E> entries) {
         Map<Long, List<?>> objectMap = data.computeIfAbsent(clazz, k -> new HashMap<>());
         objectMap.put(index, entries);
     }
 
     @Override
-    public <E extends StatEntry> Map<Long, List<E>> retrieve(long fromIndex, long toIndexInclusive, Class<E> clazz) {
+    public synchronized <E extends StatEntry> Map<Long, List<E>> retrieve(long fromIndex, long toIndexInclusive, Class<E> clazz) {
         Map<Long, List<?>> objectMap = data.get(clazz);
         if (objectMap == null) return new HashMap<>();
         Map<Long, List<E>> result = new HashMap<>();
@@ -48,7 +51,7 @@ public class MemoryEntryDataStore implements StatEntryDataStore {
     }
 
     @Override
-    public <E extends StatEntry> Map<Long, List<E>> retrieve(List<Long> indices, Class<E> clazz) {
+    public synchronized <E extends StatEntry> Map<Long, List<E>> retrieve(List<Long> indices, Class<E> clazz) {
         Map<Long, List<?>> objectMap = data.get(clazz);
         if (objectMap == null) return new HashMap<>();
         Map<Long, List<E>> result = new HashMap<>();
@@ -67,12 +70,36 @@ public class MemoryEntryDataStore implements StatEntryDataStore {
     }
 
     @Override
-    public void storeHierarchy(EntryHierarchy hierarchy) {
+    public synchronized <E extends StatEntry> Map<Long, List<E>> retrieveAll(long baseIndex, BitSet indices,
+                                                                             Collection<Class<? extends E>> classes,
+                                                                             Class<E> entryClass) {
+        Map<Long, List<E>> result = new HashMap<>();
+
+        for (Class<? extends E> clazz : classes) {
+            Map<Long, List<?>> objectMap = data.get(clazz);
+            if (objectMap == null) continue;
+
+            for (int bit = indices.nextSetBit(0); bit >= 0; bit = indices.nextSetBit(bit + 1)) {
+                List<?> entries = objectMap.get(baseIndex + bit);
+                if (entries == null || entries.isEmpty()) continue;
+
+                List<E> converted = result.computeIfAbsent(baseIndex + bit, index -> new ArrayList<>());
+                for (Object entry : entries) {
+                    converted.add(entryClass.cast(entry));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public synchronized void storeHierarchy(EntryHierarchy hierarchy) {
         this.hierarchy = hierarchy;
     }
 
     @Override
-    public EntryHierarchy retrieveHierarchy() {
+    public synchronized EntryHierarchy retrieveHierarchy() {
         return hierarchy;
     }
 }
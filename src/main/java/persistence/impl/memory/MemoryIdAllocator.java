@@ -0,0 +1,42 @@
+package persistence.impl.memory;
+
+import persistence.boundary.IdAllocator;
+import util.Preconditions;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An id allocator that counts up from a starting id, and forgets where it was when
+ * the program exits. Used with the memory data stores, and in tests.
+ */
+public class MemoryIdAllocator implements IdAllocator {
+
+    /**
+     * The next id handed out.
+     */
+    private final AtomicInteger next;
+
+    /**
+     * Constructs an allocator starting at 1.
+     */
+    public MemoryIdAllocator() {
+        this(1);
+    }
+
+    /**
+     * Constructs an allocator starting at the given id.
+     *
+     * @param first The first id handed out.
+     */
+    public MemoryIdAllocator(int first) {
+        this.next = new AtomicInteger(first);
+    }
+
+    // Inherited javadoc
+    @Override
+    public int nextId() {
+        int id = next.getAndUpdate(curr -> curr == Integer.MAX_VALUE ? curr : curr + 1);
+        Preconditions.checkState(id != Integer.MAX_VALUE, "Every id has been used");
+        return id;
+    }
+}
@@ -1,7 +1,9 @@
 package persistence.impl.memory;
 
 import entity.ticket.Ticket;
+import persistence.ExpiryIndex;
 import persistence.boundary.TicketDataStore;
+import util.Clocks;
 
 import java.util.*;
 
@@ -16,9 +18,15 @@ public class MemoryTicketDataStore implements TicketDataStore {
      */
     private final Map<Integer, Ticket> tickets = new HashMap<>();
 
+    /**
+     * The ids of the tickets by the time they expire
+     */
+    private final ExpiryIndex expiries = new ExpiryIndex();
+
     @Override
     public void save(Ticket entity) {
         tickets.put(entity.getId(), entity);
+        expiries.update(entity.getId(), entity.getExpiryDeadline());
     }
 
     @Override
@@ -39,15 +47,19 @@ public class MemoryTicketDataStore implements TicketDataStore {
     @Override
     public void delete(int id) {
         tickets.remove(id);
+        expiries.remove(id);
     }
 
     @Override
     public void deleteAll() {
         tickets.clear();
+        expiries.clear();
     }
 
     @Override
     public void cleanExpiredTickets() {
-        tickets.values().removeIf(Ticket::isExpired);
+        for (int id : expiries.pollExpired(Clocks.millis())) {
+            tickets.remove(id);
+        }
     }
 }
@@ -3,6 +3,9 @@ package simulation;
 import main.pool.InteractorPool;
 import entity.model.control.TransitModel;
 import simulation.api.Simulator;
+import simulation.api.TickMetrics;
+import simulation.api.TickScheduler;
+import simulation.schedulers.FixedStepTickScheduler;
 import stats.StatTracker;
 
 import java.util.ArrayList;
@@ -15,11 +18,6 @@ import java.util.List;
 @SuppressWarnings("BlockingMethodInNonBlockingContext")
 public class Simulation {
 
-    /**
-     * Boolean to represent if the simulation should stop.
-     */
-    private boolean stop = false;
-
     /**
      * Number of ticks per second
      */
@@ -56,14 +54,31 @@ public class Simulation {
     private boolean started = false;
 
     /**
-     * Creates a new simulation on the given model.
+     * The scheduler deciding when the simulation ticks
+     */
+    private final TickScheduler scheduler;
+
+    /**
+     * Creates a new simulation on the given model, ticking at a fixed
+     * time step of {@link #TICK_SPEED} ticks per second.
      *
      * @param model The model to run the simulation on.
      */
     public Simulation(TransitModel model, InteractorPool pool, StatTracker stats) {
+        this(model, pool, stats, new FixedStepTickScheduler(TICK_SPEED));
+    }
+
+    /**
+     * Creates a new simulation on the given model.
+     *
+     * @param model     The model to run the simulation on.
+     * @param scheduler The scheduler deciding when the simulation ticks.
+     */
+    public Simulation(TransitModel model, InteractorPool pool, StatTracker stats, TickScheduler scheduler) {
         this.model = model;
         this.stats = stats;
         this.pool = pool;
+        this.scheduler = scheduler;
     }
 
     /**
@@ -77,40 +92,30 @@ public class Simulation {
     }
 
     /**
-     * Starts the simulation.
+     * Starts the simulation, blocking until it is stopped.
      */
-    @SuppressWarnings({"BusyWait"})
     public void start() {
 
         started = true;
 
         simulators.forEach(simulator -> simulator.onStart(model));
 
-        long msPerTick = 1000 / TICK_SPEED;
-
-        long lastTick = System.currentTimeMillis() - msPerTick;
-
-        while (!stop) {
-
-            long delta = System.currentTimeMillis() - lastTick;
-            tick(delta / 1000.0);
-
-            delta = System.currentTimeMillis() - lastTick;
-            lastTick = System.currentTimeMillis();
-
-            long sleepTime = msPerTick - delta;
-            if (sleepTime <= 0) continue;
-
-            try {
-                Thread.sleep(sleepTime);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
+        scheduler.run(this::tick);
     }
 
+    /**
+     * Stops the simulation. If the simulation has not started yet, it
+     * will stop as soon as it is started.
+     */
     public void stop() {
-        this.stop = true;
+        scheduler.stop();
+    }
+
+    /**
+     * Returns the tick metrics of the simulation.
+     */
+    public TickMetrics getTickMetrics() {
+        return scheduler.getMetrics();
     }
 
     /**
@@ -120,6 +125,8 @@ public class Simulation {
 
         simulators.forEach(simulator -> simulator.tick(model, delta));
 
+        pool.getTrainInteractor().publishSnapshot();
+
         if (stats.shouldFlush()) {
             stats.flush();
         }
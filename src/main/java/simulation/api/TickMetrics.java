@@ -0,0 +1,141 @@
+package simulation.api;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics about the ticks performed by a {@link TickScheduler}.
+ * Metrics are only ever written by the thread that runs the ticks,
+ * but may be read from any thread.
+ */
+public class TickMetrics {
+
+    /**
+     * The length of the window the tick rate is measured over, in nanoseconds.
+     */
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The number of ticks performed.
+     */
+    private volatile long tickCount = 0;
+
+    /**
+     * The total time spent ticking in nanoseconds.
+     */
+    private volatile long totalTickNanos = 0;
+
+    /**
+     * The longest time a single tick took in nanoseconds.
+     */
+    private volatile long maxTickNanos = 0;
+
+    /**
+     * The number of times the scheduler fell too far behind to catch up.
+     */
+    private volatile long overrunCount = 0;
+
+    /**
+     * The number of ticks that were skipped due to overruns.
+     */
+    private volatile long droppedTickCount = 0;
+
+    /**
+     * The tick rate measured over the last complete window.
+     */
+    private volatile double tickRate = 0.0;
+
+    /**
+     * The start of the current tick rate window.
+     */
+    private long windowStart = -1;
+
+    /**
+     * The number of ticks performed in the current tick rate window.
+     */
+    private long windowTicks = 0;
+
+    /**
+     * Records a tick.
+     *
+     * @param startNanos The time the tick started at, from {@link System#nanoTime()}.
+     * @param endNanos   The time the tick ended at, from {@link System#nanoTime()}.
+     */
+    public void recordTick(long startNanos, long endNanos) {
+        long duration = endNanos - startNanos;
+
+        tickCount++;
+        totalTickNanos += duration;
+        if (duration > maxTickNanos) {
+            maxTickNanos = duration;
+        }
+
+        if (windowStart == -1) {
+            windowStart = startNanos;
+        }
+
+        windowTicks++;
+
+        long windowLength = endNanos - windowStart;
+        if (windowLength >= RATE_WINDOW_NANOS) {
+            tickRate = windowTicks * (double) RATE_WINDOW_NANOS / windowLength;
+            windowStart = endNanos;
+            windowTicks = 0;
+        }
+    }
+
+    /**
+     * Records an overrun, where the scheduler fell too far behind and had to skip ticks.
+     *
+     * @param droppedTicks The number of ticks that were skipped.
+     */
+    public void recordOverrun(long droppedTicks) {
+        overrunCount++;
+        droppedTickCount += droppedTicks;
+    }
+
+    /**
+     * Returns the number of ticks performed.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Returns the average time a tick took in nanoseconds, or 0 if no ticks have been performed.
+     */
+    public long getAverageTickNanos() {
+        long count = tickCount;
+        if (count == 0) return 0;
+        return totalTickNanos / count;
+    }
+
+    /**
+     * Returns the longest time a single tick took in nanoseconds.
+     */
+    public long getMaxTickNanos() {
+        return maxTickNanos;
+    }
+
+    /**
+     * Returns the number of times the scheduler fell too far behind to catch up.
+     */
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    /**
+     * Returns the total number of ticks that were skipped due to overruns.
+     */
+    public long getDroppedTickCount() {
+        return droppedTickCount;
+    }
+
+    /**
+     * Returns the number of ticks per second, measured over the last second of ticking.
+     * This will be 0 until a full second of ticks has been recorded.
+     */
+    public double getTickRate() {
+        return tickRate;
+    }
+
+}
@@ -0,0 +1,33 @@
+package simulation.api;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * A strategy for deciding when the simulation ticks, and by how much
+ * time each tick advances the simulation.
+ */
+public interface TickScheduler {
+
+    /**
+     * Repeatedly runs the given tick until {@link #stop()} is called. This
+     * method blocks the calling thread for as long as the scheduler is running.
+     * If the scheduler has already been stopped, this method returns immediately.
+     *
+     * @param tick The tick to run, accepting the simulated time step in seconds.
+     */
+    void run(DoubleConsumer tick);
+
+    /**
+     * Stops the scheduler. Any call to {@link #run(DoubleConsumer)} will return
+     * once the tick currently in progress, if any, completes.
+     */
+    void stop();
+
+    /**
+     * Returns the metrics for the ticks performed by this scheduler.
+     *
+     * @return The tick metrics.
+     */
+    TickMetrics getMetrics();
+
+}
@@ -0,0 +1,188 @@
+package simulation.schedulers;
+
+import simulation.api.TickMetrics;
+import simulation.api.TickScheduler;
+import util.Preconditions;
+
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A tick scheduler that runs the simulation at a fixed time step on a
+ * {@link ScheduledExecutorService}, rather than on the calling thread.
+ * <p>
+ * Ticks are scheduled at a fixed rate, so a late tick is followed by back to
+ * back ticks until the executor catches up. If more than {@code maxCatchUpTicks}
+ * ticks are due at once, {@code maxCatchUpTicks} of them are run back to back, the
+ * excess ticks are dropped and recorded as an overrun, and the runs the executor
+ * queued for them return without ticking.
+ * The calling thread of {@link #run(DoubleConsumer)} blocks until the scheduler
+ * is stopped, and rethrows any exception thrown by a tick.
+ */
+public class ExecutorTickScheduler implements TickScheduler {
+
+    /**
+     * The executor the ticks are run on.
+     */
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Whether the executor was created by, and should be shut down by, this scheduler.
+     */
+    private final boolean ownsExecutor;
+
+    /**
+     * The length of a time step in nanoseconds.
+     */
+    private final long stepNanos;
+
+    /**
+     * The length of a time step in seconds.
+     */
+    private final double stepSeconds;
+
+    /**
+     * The maximum number of ticks that will be run back to back to catch up.
+     */
+    private final int maxCatchUpTicks;
+
+    /**
+     * The metrics of this scheduler.
+     */
+    private final TickMetrics metrics = new TickMetrics();
+
+    /**
+     * Released once the scheduler is stopped.
+     */
+    private final CountDownLatch stopLatch = new CountDownLatch(1);
+
+    /**
+     * Held while a tick is in progress.
+     */
+    private final ReentrantLock tickLock = new ReentrantLock();
+
+    /**
+     * The exception thrown by a tick, if any.
+     */
+    private volatile Throwable failure = null;
+
+    /**
+     * The number of time steps that have been consumed, either by running or dropping them.
+     */
+    private long consumedSteps = 0;
+
+    /**
+     * Constructs a new executor tick scheduler running on its own single thread executor.
+     *
+     * @param ticksPerSecond The number of ticks to run per second.
+     */
+    public ExecutorTickScheduler(int ticksPerSecond) {
+        this(Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Simulation Ticker");
+            thread.setDaemon(true);
+            return thread;
+        }), true, ticksPerSecond, FixedStepTickScheduler.DEFAULT_MAX_CATCH_UP_TICKS);
+    }
+
+    /**
+     * Constructs a new executor tick scheduler running on the given executor.
+     * The executor will not be shut down when the scheduler stops.
+     *
+     * @param executor        The executor to run the ticks on.
+     * @param ticksPerSecond  The number of ticks to run per second.
+     * @param maxCatchUpTicks The maximum number of ticks to run back to back when behind.
+     */
+    public ExecutorTickScheduler(ScheduledExecutorService executor, int ticksPerSecond, int maxCatchUpTicks) {
+        this(executor, false, ticksPerSecond, maxCatchUpTicks);
+    }
+
+    /**
+     * Constructs a new executor tick scheduler.
+     */
+    private ExecutorTickScheduler(ScheduledExecutorService executor, boolean ownsExecutor,
+                                  int ticksPerSecond, int maxCatchUpTicks) {
+        Preconditions.checkArgument(ticksPerSecond > 0, "Ticks per second must be positive");
+        Preconditions.checkArgument(maxCatchUpTicks > 0, "Max catch up ticks must be positive");
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.stepNanos = TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+        this.stepSeconds = 1.0 / ticksPerSecond;
+        this.maxCatchUpTicks = maxCatchUpTicks;
+    }
+
+    // Inherited javadoc
+    @Override
+    public void run(DoubleConsumer tick) {
+
+        if (stopLatch.getCount() == 0) return;
+
+        long start = System.nanoTime();
+
+        ScheduledFuture<?> future = executor.scheduleAtFixedRate(() -> {
+            tickLock.lock();
+            try {
+                if (stopLatch.getCount() == 0) return;
+
+                long now = System.nanoTime();
+
+                // The number of steps that should have been run by now, including this one
+                long dueSteps = (now - start) / stepNanos + 1;
+
+                // Runs queued up during a stall whose steps were already dropped
+                if (consumedSteps >= dueSteps) return;
+
+                // Run up to the cap of the due steps, including this one, and drop the rest
+                long excess = dueSteps - consumedSteps - maxCatchUpTicks;
+                if (excess > 0) {
+                    metrics.recordOverrun(excess);
+                    consumedSteps += excess;
+                }
+
+                tick.accept(stepSeconds);
+                metrics.recordTick(now, System.nanoTime());
+                consumedSteps++;
+            } catch (Throwable t) {
+                failure = t;
+                stop();
+            } finally {
+                tickLock.unlock();
+            }
+        }, 0, stepNanos, TimeUnit.NANOSECONDS);
+
+        try {
+            stopLatch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop();
+        }
+
+        future.cancel(false);
+
+        // Wait for the tick in progress, if any, to complete
+        tickLock.lock();
+        tickLock.unlock();
+
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+
+        Throwable t = failure;
+        if (t != null) {
+            throw new RuntimeException("Simulation tick failed", t);
+        }
+    }
+
+    // Inherited javadoc
+    @Override
+    public void stop() {
+        stopLatch.countDown();
+    }
+
+    // Inherited javadoc
+    @Override
+    public TickMetrics getMetrics() {
+        return metrics;
+    }
+
+}
@@ -0,0 +1,131 @@
+package simulation.schedulers;
+
+import simulation.api.TickMetrics;
+import simulation.api.TickScheduler;
+import util.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A tick scheduler that runs the simulation at a fixed time step on the
+ * calling thread.
+ * <p>
+ * Elapsed real time is accumulated using {@link System#nanoTime()}, and a tick
+ * of exactly one time step is run for every whole step in the accumulator, so
+ * the simulation never drifts from real time and every tick sees the same delta.
+ * If the scheduler falls more than {@code maxCatchUpTicks} steps behind, the
+ * excess steps are dropped and recorded as an overrun, rather than spiralling
+ * ever further behind.
+ */
+public class FixedStepTickScheduler implements TickScheduler {
+
+    /**
+     * The default maximum number of ticks that will be run back to back to catch up.
+     */
+    public static final int DEFAULT_MAX_CATCH_UP_TICKS = 5;
+
+    /**
+     * The length of a time step in nanoseconds.
+     */
+    private final long stepNanos;
+
+    /**
+     * The length of a time step in seconds.
+     */
+    private final double stepSeconds;
+
+    /**
+     * The maximum number of ticks that will be run back to back to catch up.
+     */
+    private final int maxCatchUpTicks;
+
+    /**
+     * The metrics of this scheduler.
+     */
+    private final TickMetrics metrics = new TickMetrics();
+
+    /**
+     * Whether the scheduler has been stopped.
+     */
+    private volatile boolean stopped = false;
+
+    /**
+     * Constructs a new fixed step tick scheduler.
+     *
+     * @param ticksPerSecond The number of ticks to run per second.
+     */
+    public FixedStepTickScheduler(int ticksPerSecond) {
+        this(ticksPerSecond, DEFAULT_MAX_CATCH_UP_TICKS);
+    }
+
+    /**
+     * Constructs a new fixed step tick scheduler.
+     *
+     * @param ticksPerSecond  The number of ticks to run per second.
+     * @param maxCatchUpTicks The maximum number of ticks to run back to back when behind.
+     */
+    public FixedStepTickScheduler(int ticksPerSecond, int maxCatchUpTicks) {
+        Preconditions.checkArgument(ticksPerSecond > 0, "Ticks per second must be positive");
+        Preconditions.checkArgument(maxCatchUpTicks > 0, "Max catch up ticks must be positive");
+        this.stepNanos = TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+        this.stepSeconds = 1.0 / ticksPerSecond;
+        this.maxCatchUpTicks = maxCatchUpTicks;
+    }
+
+    // Inherited javadoc
+    @Override
+    public void run(DoubleConsumer tick) {
+
+        long previous = System.nanoTime();
+
+        // Start with a full step so the first tick runs immediately
+        long accumulator = stepNanos;
+
+        while (!stopped) {
+
+            long now = System.nanoTime();
+            accumulator += now - previous;
+            previous = now;
+
+            int ticks = 0;
+            while (accumulator >= stepNanos && ticks < maxCatchUpTicks && !stopped) {
+                long tickStart = System.nanoTime();
+                tick.accept(stepSeconds);
+                metrics.recordTick(tickStart, System.nanoTime());
+                accumulator -= stepNanos;
+                ticks++;
+            }
+
+            // Too far behind to catch up, drop the whole steps we could not run
+            if (accumulator >= stepNanos) {
+                long dropped = accumulator / stepNanos;
+                accumulator -= dropped * stepNanos;
+                metrics.recordOverrun(dropped);
+            }
+
+            long sleepNanos = stepNanos - accumulator - (System.nanoTime() - previous);
+            if (sleepNanos <= 0) continue;
+
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopped = true;
+            }
+        }
+    }
+
+    // Inherited javadoc
+    @Override
+    public void stop() {
+        this.stopped = true;
+    }
+
+    // Inherited javadoc
+    @Override
+    public TickMetrics getMetrics() {
+        return metrics;
+    }
+
+}
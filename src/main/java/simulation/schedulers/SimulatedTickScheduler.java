@@ -0,0 +1,94 @@
+package simulation.schedulers;
+
+import simulation.api.TickMetrics;
+import simulation.api.TickScheduler;
+import util.Preconditions;
+import util.SimulatedClock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A tick scheduler that runs the simulation as fast as possible, decoupled
+ * from the real time. Every tick advances the given simulated clock by exactly
+ * one time step, so anything reading the time from that clock sees the
+ * simulation run at its normal rate, however fast the ticks really are.
+ * <p>
+ * The scheduler stops by itself once the given simulated duration has passed.
+ */
+public class SimulatedTickScheduler implements TickScheduler {
+
+    /**
+     * The clock advanced by each tick.
+     */
+    private final SimulatedClock clock;
+
+    /**
+     * The length of a time step in nanoseconds.
+     */
+    private final long stepNanos;
+
+    /**
+     * The length of a time step in seconds.
+     */
+    private final double stepSeconds;
+
+    /**
+     * The number of ticks to run before stopping.
+     */
+    private final long totalTicks;
+
+    /**
+     * The metrics of this scheduler, measured in real time.
+     */
+    private final TickMetrics metrics = new TickMetrics();
+
+    /**
+     * Whether the scheduler has been stopped.
+     */
+    private volatile boolean stopped = false;
+
+    /**
+     * Constructs a new simulated tick scheduler.
+     *
+     * @param clock          The clock to advance on each tick.
+     * @param ticksPerSecond The number of ticks per simulated second.
+     * @param duration       The simulated time to run for.
+     * @param unit           The unit of the duration.
+     */
+    public SimulatedTickScheduler(SimulatedClock clock, int ticksPerSecond, long duration, TimeUnit unit) {
+        Preconditions.checkArgument(clock != null, "Clock cannot be null");
+        Preconditions.checkArgument(ticksPerSecond > 0, "Ticks per second must be positive");
+        Preconditions.checkArgument(duration >= 0, "Duration cannot be negative");
+        this.clock = clock;
+        this.stepNanos = TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+        this.stepSeconds = 1.0 / ticksPerSecond;
+        this.totalTicks = unit.toNanos(duration) / stepNanos;
+    }
+
+    // Inherited javadoc
+    @Override
+    public void run(DoubleConsumer tick) {
+        for (long i = 0; i < totalTicks && !stopped; i++) {
+            clock.advance(stepNanos);
+
+            long tickStart = System.nanoTime();
+            tick.accept(stepSeconds);
+            metrics.recordTick(tickStart, System.nanoTime());
+        }
+        stopped = true;
+    }
+
+    // Inherited javadoc
+    @Override
+    public void stop() {
+        this.stopped = true;
+    }
+
+    // Inherited javadoc
+    @Override
+    public TickMetrics getMetrics() {
+        return metrics;
+    }
+
+}
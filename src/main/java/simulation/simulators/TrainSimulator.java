@@ -15,13 +15,21 @@ import entity.ticket.Ticket;
 import entity.ticket.TicketType;
 import util.PerlinNoise;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * A class that simulates the trains in the transit system.
+ * <p>
+ * When given a {@link ForkJoinPool}, trains are partitioned by the track loop
+ * they run on and each partition is moved on the pool in parallel. Track loops
+ * never share track segments, so trains on different loops never interact.
+ * Anything touching state shared between loops (stats, waiting passengers) is
+ * merged back on the ticking thread in train list order, so a parallel tick
+ * produces the same results as a serial one.
  */
 public class TrainSimulator implements Simulator {
     /**
@@ -57,10 +65,37 @@ public class TrainSimulator implements Simulator {
     private double electricityAccumulator = 0.0;
 
     /**
-     * Creates a new train simulator with the given tick speed.
+     * The pool that partitions of trains are ticked on, or null to tick serially.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The index of the track loop each mapped track segment belongs to.
+     */
+    private final Map<TrackSegment, Integer> loopIndices = new HashMap<>();
+
+    /**
+     * The number of track loops mapped by the last call to {@link #recreateTrains(TransitModel)}.
+     */
+    private int loopCount = 0;
+
+    /**
+     * Creates a new train simulator that ticks all trains serially.
      */
     public TrainSimulator(StatTracker stats) {
+        this(stats, null);
+    }
+
+    /**
+     * Creates a new train simulator that ticks the trains on each track loop
+     * in parallel on the given pool.
+     *
+     * @param stats The stat tracker to record to.
+     * @param pool  The pool to tick on, or null to tick serially.
+     */
+    public TrainSimulator(StatTracker stats, ForkJoinPool pool) {
         this.stats = stats;
+        this.pool = pool;
     }
 
     @Override
@@ -78,6 +113,7 @@ public class TrainSimulator implements Simulator {
 
         // Clear any existing trains
         model.clearTrains();
+        loopIndices.clear();
 
         // The following code will map the transit system and create a list
         // of track loops that will be used to randomly spawn trains such that
@@ -118,12 +154,19 @@ public class TrainSimulator implements Simulator {
                     // Record all of these track segments as mapped
                     mapped.addAll(loop);
 
+                    // Remember which loop each segment belongs to
+                    for (TrackSegment loopSegment : loop) {
+                        loopIndices.put(loopSegment, loops.size());
+                    }
+
                     // Add the loop to the list
                     loops.add(loop);
                 }
             }
         }
 
+        loopCount = loops.size();
+
         // The train-number of the next train to be spawned
         int trainNum = 1;
 
@@ -148,42 +191,55 @@ public class TrainSimulator implements Simulator {
     }
 
     /**
-     * Simulate the boarding of passengers on this train.
+     * Moves the trains, and simulates the boarding of passengers onto them.
      *
      * @param model The model to simulate on
      */
     @Override
     public void tick(TransitModel model, double delta) {
 
-        for (Train train : model.getTrainList()) {
-
-            boolean wasAtStation = train.getPosition().getTrack()
-                    .getNode()
-                    .isPresent();
-
-            // Move the train a bit
-            train.move(Direction.FORWARD, Train.MAX_SPEED * delta);
-
-            // Record electric use
-            if (!wasAtStation) {
-                double noise = (electricityNoise.noise(tickNumber / 12000.0) + 1.0) * 0.06;
-                electricityAccumulator += noise;
+        List<Train> trains = model.getTrainList();
+
+        List<Shard> shards = partition(trains, delta);
+
+        if (pool != null && shards.size() > 1) {
+            List<Future<Shard>> futures = pool.invokeAll(shards);
+            for (Future<Shard> future : futures) {
+                // Propagate any exception thrown while ticking the shard
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Failed to tick trains", e.getCause());
+                }
             }
-
-            boolean nowAtStation = train.getPosition().getTrack()
-                    .getNode()
-                    .isPresent();
-
-            if (nowAtStation && !wasAtStation) {
-                // The train is arriving at a station
-                // Unload passengers
-                simulateAlighting(train);
-            } else if (wasAtStation && !nowAtStation) {
-                // The train is leaving a station
-                // Load passengers
-                simulateBoarding(train);
+        } else {
+            for (Shard shard : shards) {
+                shard.call();
             }
+        }
+
+        // Merge the shards in a fixed order, so the result doesn't depend on scheduling
+        int movingTrains = 0;
+        List<Integer> departed = new ArrayList<>();
+        for (Shard shard : shards) {
+            movingTrains += shard.movingTrains;
+            departed.addAll(shard.departed);
+        }
 
+        // Record electric use
+        if (movingTrains > 0) {
+            double noise = (electricityNoise.noise(tickNumber / 12000.0) + 1.0) * 0.06;
+            electricityAccumulator += noise * movingTrains;
+        }
+
+        // The train is leaving a station
+        // Load passengers, in train list order as the waiting passengers are shared
+        Collections.sort(departed);
+        for (int index : departed) {
+            simulateBoarding(trains.get(index));
         }
 
         if (tickNumber % 10 == 0) {
@@ -191,14 +247,134 @@ public class TrainSimulator implements Simulator {
         }
 
         if (tickNumber % 40 == 0) {
-            ElectricityUsageStat electricityUsageStat = new ElectricityUsageStat(electricityAccumulator);
-            stats.record(electricityUsageStat);
+            stats.record(ElectricityUsageStat.class, electricityAccumulator);
             electricityAccumulator = 0.0;
         }
 
         tickNumber++;
     }
 
+    /**
+     * Partitions the given trains by the track loop they are on. If any train
+     * is not on a mapped track loop, all trains are put into a single partition.
+     *
+     * @param trains The trains to partition.
+     * @param delta  The time step the partitions will be ticked by.
+     * @return The non-empty partitions.
+     */
+    private List<Shard> partition(List<Train> trains, double delta) {
+
+        if (pool == null) {
+            return List.of(new Shard(trains, delta, 0, trains.size()));
+        }
+
+        Shard[] byLoop = new Shard[loopCount];
+        List<Shard> shards = new ArrayList<>();
+
+        for (int i = 0; i < trains.size(); i++) {
+            Integer loop = loopIndices.get(trains.get(i).getPosition().getTrack());
+
+            if (loop == null) {
+                // This train was not created on a loop we know about, we can't
+                // tell what it may share track with
+                return List.of(new Shard(trains, delta, 0, trains.size()));
+            }
+
+            if (byLoop[loop] == null) {
+                byLoop[loop] = new Shard(trains, delta);
+                shards.add(byLoop[loop]);
+            }
+
+            byLoop[loop].indices.add(i);
+        }
+
+        return shards;
+    }
+
+    /**
+     * A partition of the trains that can be ticked independently of all other partitions.
+     */
+    private class Shard implements Callable<Shard> {
+
+        /**
+         * All trains in the model.
+         */
+        private final List<Train> trains;
+
+        /**
+         * The time step to tick by.
+         */
+        private final double delta;
+
+        /**
+         * The indices of the trains in this partition.
+         */
+        private final List<Integer> indices = new ArrayList<>();
+
+        /**
+         * The number of trains that moved while not at a station.
+         */
+        private int movingTrains = 0;
+
+        /**
+         * The indices of the trains that left a station.
+         */
+        private final List<Integer> departed = new ArrayList<>();
+
+        /**
+         * Creates an empty partition.
+         */
+        private Shard(List<Train> trains, double delta) {
+            this.trains = trains;
+            this.delta = delta;
+        }
+
+        /**
+         * Creates a partition of a range of trains.
+         */
+        private Shard(List<Train> trains, double delta, int from, int to) {
+            this(trains, delta);
+            for (int i = from; i < to; i++) {
+                indices.add(i);
+            }
+        }
+
+        /**
+         * Moves the trains in this partition.
+         */
+        @Override
+        public Shard call() {
+            for (int index : indices) {
+                Train train = trains.get(index);
+
+                boolean wasAtStation = train.getPosition().getTrack()
+                        .getNode()
+                        .isPresent();
+
+                // Move the train a bit
+                train.move(Direction.FORWARD, Train.MAX_SPEED * delta);
+
+                if (!wasAtStation) {
+                    movingTrains++;
+                }
+
+                boolean nowAtStation = train.getPosition().getTrack()
+                        .getNode()
+                        .isPresent();
+
+                if (nowAtStation && !wasAtStation) {
+                    // The train is arriving at a station
+                    // Unload passengers
+                    simulateAlighting(train);
+                } else if (wasAtStation && !nowAtStation) {
+                    departed.add(index);
+                }
+            }
+            return this;
+        }
+
+    }
+
     /**
      * Handle the alighting passengers on this train.
      */
@@ -252,8 +428,7 @@ public class TrainSimulator implements Simulator {
             TicketType ticketType = TicketType.values()[(int) (Math.random() * TicketType.values().length)];
             Ticket ticket = new Ticket(ticketType);
 
-            TicketSaleStat stat = new TicketSaleStat(ticket);
-            stats.record(stat);
+            stats.record(TicketSaleStat.class, ticket.getPrice());
 
             waitingPassengers.add(new Passenger(ticket, (int) (Math.random() * 4)));
         }
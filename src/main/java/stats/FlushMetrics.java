@@ -0,0 +1,140 @@
+package stats;
+
+/**
+ * Metrics about the batches of stat entries written by a {@link StatDataControllerImpl}.
+ * Each metric is only ever written by one thread at a time, but may be read from any thread.
+ */
+public class FlushMetrics {
+
+    /**
+     * The number of batches written.
+     */
+    private volatile long flushCount = 0;
+
+    /**
+     * The total time spent writing batches in nanoseconds.
+     */
+    private volatile long totalFlushNanos = 0;
+
+    /**
+     * The longest time a single batch took to write in nanoseconds.
+     */
+    private volatile long maxFlushNanos = 0;
+
+    /**
+     * The longest time a batch waited to be written after it was sealed, in nanoseconds.
+     */
+    private volatile long maxLatencyNanos = 0;
+
+    /**
+     * The most batches that have been waiting to be written at once.
+     */
+    private volatile int maxQueueDepth = 0;
+
+    /**
+     * The number of times sealing a batch had to wait for the queue to have room.
+     */
+    private volatile long blockedCount = 0;
+
+    /**
+     * The number of times writing a batch failed.
+     */
+    private volatile long failureCount = 0;
+
+    /**
+     * Records a batch being written. This is called by the flushing thread, or once the
+     * tracker is closed, by the thread flushing while holding the lock of the tracker.
+     *
+     * @param sealedNanos The time the batch was sealed at, from {@link System#nanoTime()}.
+     * @param startNanos  The time writing the batch started at, from {@link System#nanoTime()}.
+     * @param endNanos    The time writing the batch ended at, from {@link System#nanoTime()}.
+     */
+    void recordFlush(long sealedNanos, long startNanos, long endNanos) {
+        long duration = endNanos - startNanos;
+
+        flushCount++;
+        totalFlushNanos += duration;
+        if (duration > maxFlushNanos) {
+            maxFlushNanos = duration;
+        }
+        if (endNanos - sealedNanos > maxLatencyNanos) {
+            maxLatencyNanos = endNanos - sealedNanos;
+        }
+    }
+
+    /**
+     * Records a batch failing to be written, and being kept to be written again. This is
+     * called by the same threads as {@link #recordFlush}.
+     */
+    void recordFailure() {
+        failureCount++;
+    }
+
+    /**
+     * Records a batch being sealed. This is only called while holding the lock of the tracker.
+     *
+     * @param queueDepth The number of batches waiting to be written, including this one.
+     * @param blocked    Whether the queue was full.
+     */
+    void recordSeal(int queueDepth, boolean blocked) {
+        if (queueDepth > maxQueueDepth) {
+            maxQueueDepth = queueDepth;
+        }
+        if (blocked) {
+            blockedCount++;
+        }
+    }
+
+    /**
+     * Returns the number of batches written.
+     */
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    /**
+     * Returns the average time a batch took to write in nanoseconds, or 0 if none have been written.
+     */
+    public long getAverageFlushNanos() {
+        long count = flushCount;
+        if (count == 0) return 0;
+        return totalFlushNanos / count;
+    }
+
+    /**
+     * Returns the longest time a single batch took to write in nanoseconds.
+     */
+    public long getMaxFlushNanos() {
+        return maxFlushNanos;
+    }
+
+    /**
+     * Returns the longest time from a batch being sealed to it being written, in nanoseconds.
+     */
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    /**
+     * Returns the most batches that have been waiting to be written at once.
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Returns the number of times sealing a batch had to wait for the queue to have room.
+     */
+    public long getBlockedCount() {
+        return blockedCount;
+    }
+
+    /**
+     * Returns the number of times writing a batch failed. Failed batches are written again
+     * by the next flush, so a batch may fail more than once.
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+}
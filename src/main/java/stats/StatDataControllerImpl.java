@@ -4,19 +4,59 @@ import persistence.boundary.StatAggregateDataStore;
 import persistence.boundary.StatEntryDataStore;
 import stats.aggregator.StatAggregator;
 import stats.entry.EntryHierarchy;
+import stats.entry.NumericColumn;
+import stats.entry.NumericEntries;
+import stats.entry.NumericStatEntry;
 import stats.entry.StatEntry;
 import stats.timing.TimeIndexingStrategy;
+import util.Preconditions;
 import util.Timing;
 
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
 /**
  * A controller for the stat data stores. It handles the seamless
  * recording, retrieval, and aggregation of stat entries and aggregates.
+ * <p>
+ * Recording does not contend between threads: each recording thread appends
+ * to its own buffer, with the values of numeric entries kept in recycled
+ * primitive columns rather than as objects until they are flushed. A buffer is
+ * guarded by a lock that is only otherwise taken when the buffers are drained
+ * by {@link #flush(long)} or read by {@link #aggregateCurrent}.
+ * <p>
+ * Each buffer also keeps a running aggregate for every {@link #registerAggregator registered}
+ * aggregator, folded in as entries are recorded and reset as the buffer is drained, so that
+ * the current aggregate is combined from one running aggregate per thread.
+ * <p>
+ * Flushing only drains the buffers into a sealed batch, which is handed to a dedicated
+ * flushing thread to be written to the data stores. The queue of sealed batches is bounded,
+ * so that if the data stores fall behind, flushing waits for room rather than letting batches
+ * pile up. Reads wait for every batch sealed before them to be written, but do not
+ * take the lock of this tracker, and {@link #getOrAggregateAsync} backfills missing
+ * aggregates in parallel on a worker pool.
  */
 public class StatDataControllerImpl implements StatTracker {  // Facade design pattern used!!!
 
+    /**
+     * The default maximum number of sealed batches waiting to be written.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 8;
+
+    /**
+     * The number of consecutive time indices aggregated by each task of a parallel backfill,
+     * the same as the page size of the paged entry store.
+     */
+    private static final int BACKFILL_CHUNK_SIZE = 64;
 
     /**
      * Provides time indices for keeping track of stats.
@@ -39,11 +79,80 @@ public class StatDataControllerImpl implements StatTracker {  // Facade design p
     private long currTimeIndex;
 
     /**
-     * A map of stat entry classes to the stat entries that have been recorded
-     * during this time interval. They are stored in lists mapped by
-     * their class.
+     * The buffers of every thread that has recorded a stat entry
+     * during this time interval, registered as they are created.
+     */
+    private final Queue<RecordBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The buffer of the current thread.
+     */
+    private final ThreadLocal<RecordBuffer> localBuffer = ThreadLocal.withInitial(() -> {
+        RecordBuffer buffer = new RecordBuffer(this::getAggregatorsOf);
+        buffers.add(buffer);
+        return buffer;
+    });
+
+    /**
+     * The registered aggregators, mapped by their class.
+     */
+    private final Map<Class<?>, StatAggregator<?, ?>> aggregators = new ConcurrentHashMap<>();
+
+    /**
+     * The registered aggregators that operate on each entry class, built as the classes
+     * are recorded. This is replaced rather than cleared when an aggregator is registered,
+     * so that a list being built at the same time can't be cached without it.
      */
-    private final Map<Class<? extends StatEntry>, List<StatEntry>> entries = new HashMap<>();
+    private volatile Map<Class<? extends StatEntry>, List<StatAggregator<?, ?>>> aggregatorsByClass =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The pool that missing aggregates are backfilled on.
+     */
+    private final Executor workers;
+
+    /**
+     * The sealed batches waiting to be written.
+     */
+    private final BlockingQueue<Batch> pending;
+
+    /**
+     * The thread writing the sealed batches.
+     */
+    private final Thread flusher;
+
+    /**
+     * The metrics of the batches written.
+     */
+    private final FlushMetrics metrics = new FlushMetrics();
+
+    /**
+     * Whether the tracker has been closed, after which batches are written on the flushing thread,
+     * and aggregates are written through as they are stored. Only written while holding the lock
+     * of this tracker.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * The number of batches sealed. Only written while holding the lock of this tracker.
+     */
+    private volatile long sealedCount = 0;
+
+    /**
+     * Notified whenever a batch has been written.
+     */
+    private final Object writtenLock = new Object();
+
+    /**
+     * The number of batches written, or that failed to be written. Guarded by {@link #writtenLock}.
+     */
+    private long writtenCount = 0;
+
+    /**
+     * The batches that failed to be written, in the order they were sealed, which are written
+     * again by the next flush. Guarded by {@link #writtenLock}.
+     */
+    private final List<Batch> failed = new ArrayList<>();
 
 
     /**
@@ -54,14 +163,50 @@ public class StatDataControllerImpl implements StatTracker {  // Facade design p
      * @param aggregateDataStore the store for aggregate statistics.
      */
     public StatDataControllerImpl(TimeIndexingStrategy indexStrategy, StatEntryDataStore entryDataStore, StatAggregateDataStore aggregateDataStore) {
+        this(indexStrategy, entryDataStore, aggregateDataStore, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructs a StatDataController instance with a given EntryDataStore and AggregateDataStore.
+     *
+     * @param indexStrategy      the time index provider, used for calculating time indices.
+     * @param entryDataStore     the store for stat entries.
+     * @param aggregateDataStore the store for aggregate statistics.
+     * @param queueCapacity      the maximum number of sealed batches waiting to be written.
+     * @throws IllegalArgumentException if queueCapacity is not positive.
+     */
+    public StatDataControllerImpl(TimeIndexingStrategy indexStrategy, StatEntryDataStore entryDataStore,
+                                  StatAggregateDataStore aggregateDataStore, int queueCapacity) {
+        this(indexStrategy, entryDataStore, aggregateDataStore, queueCapacity, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a StatDataController instance with a given EntryDataStore and AggregateDataStore.
+     *
+     * @param indexStrategy      the time index provider, used for calculating time indices.
+     * @param entryDataStore     the store for stat entries.
+     * @param aggregateDataStore the store for aggregate statistics.
+     * @param queueCapacity      the maximum number of sealed batches waiting to be written.
+     * @param workers            the pool that missing aggregates are backfilled on.
+     * @throws IllegalArgumentException if queueCapacity is not positive.
+     */
+    public StatDataControllerImpl(TimeIndexingStrategy indexStrategy, StatEntryDataStore entryDataStore,
+                                  StatAggregateDataStore aggregateDataStore, int queueCapacity, Executor workers) {
+        Preconditions.checkArgument(queueCapacity > 0, "queueCapacity must be positive");
+        this.workers = workers;
         this.indexStrategy = indexStrategy;
         this.entryDataStore = entryDataStore;
         this.aggregateDataStore = aggregateDataStore;
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
 
         currTimeIndex = indexStrategy.getTimeIndex();
 
         EntryHierarchy hierarchy = entryDataStore.retrieveHierarchy();
         hierarchy.getAllLeafClasses().forEach(StatEntry.HIERARCHY::map);
+
+        flusher = new Thread(this::runFlusher, "stat-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
     }
 
     /**
@@ -86,11 +231,17 @@ public class StatDataControllerImpl implements StatTracker {  // Facade design p
         Class<? extends StatEntry> clazz = entry.getClass(); // Will always be a concrete class
         StatEntry.HIERARCHY.map(clazz);
 
-        synchronized (entries) {
-            List<StatEntry> list = entries.getOrDefault(clazz, new ArrayList<>());
-            list.add(entry);
-            entries.put(clazz, list);
-        }
+        localBuffer.get().add(clazz, entry);
+    }
+
+    // Inherited java docs
+    @Override
+    public <E extends NumericStatEntry> void record(Class<E> entryClass, double value) {
+        Preconditions.checkArgument(NumericEntries.isRegistered(entryClass),
+                "No factory registered for " + entryClass.getName());
+        StatEntry.HIERARCHY.map(entryClass);
+
+        localBuffer.get().addNumeric(entryClass, value);
     }
 
     // Inherited java docs
@@ -105,17 +256,198 @@ public class StatDataControllerImpl implements StatTracker {  // Facade design p
         // Update the current time index
         currTimeIndex = indexStrategy.getTimeIndex();
 
+        // Drain every thread's buffer, merging the entries by class
+        Map<Class<? extends StatEntry>, List<StatEntry>> entries = new HashMap<>();
+        for (RecordBuffer buffer : buffers) {
+            buffer.drain().forEach((clazz, list) ->
+                    entries.computeIfAbsent(clazz, c -> new ArrayList<>()).addAll(list));
+
+            // The buffers of threads that have died will never be written to again
+            if (!buffer.isOwnerAlive()) buffers.remove(buffer);
+        }
+
+        // Batches that failed to be written go first, so that every index keeps its latest entries
+        List<Batch> batches = takeFailed();
+        batches.add(new Batch(index, entries, System.nanoTime()));
+
+        // The flusher has stopped, so write the batches here
+        if (closed) {
+            writeInline(batches);
+            return;
+        }
+
+        for (Batch batch : batches) {
+            enqueue(batch);
+        }
+    }
+
+    /**
+     * Hands a sealed batch to the flusher, waiting for room if it has fallen behind.
+     * This is only called while holding the lock of this tracker.
+     */
+    private void enqueue(Batch batch) {
+        boolean blocked = !pending.offer(batch);
+        if (blocked) {
+            try {
+                pending.put(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting to flush", e);
+            }
+        }
+
+        sealedCount++;
+        metrics.recordSeal(pending.size(), blocked);
+    }
+
+    /**
+     * Writes the sealed batches to the data stores as they are handed over, until interrupted.
+     */
+    private void runFlusher() {
+        while (true) {
+            Batch batch;
+            try {
+                batch = pending.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            boolean written = false;
+            try {
+                write(batch);
+                written = true;
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+
+            if (written) {
+                metrics.recordFlush(batch.sealedNanos, start, System.nanoTime());
+            } else {
+                metrics.recordFailure();
+            }
+
+            synchronized (writtenLock) {
+                // Keep the batch, so that the next flush writes it again
+                if (!written) failed.add(batch);
+                writtenCount++;
+                writtenLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Takes the batches that failed to be written, in the order they were sealed.
+     */
+    private List<Batch> takeFailed() {
+        synchronized (writtenLock) {
+            List<Batch> taken = new ArrayList<>(failed);
+            failed.clear();
+            return taken;
+        }
+    }
+
+    /**
+     * Writes sealed batches on the calling thread, in order. If one fails, it and the batches
+     * after it are kept to be written again, and the failure is rethrown.
+     */
+    private void writeInline(List<Batch> batches) {
+        for (int i = 0; i < batches.size(); i++) {
+            Batch batch = batches.get(i);
+            long start = System.nanoTime();
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                metrics.recordFailure();
+                synchronized (writtenLock) {
+                    failed.addAll(0, batches.subList(i, batches.size()));
+                }
+                throw e;
+            }
+            metrics.recordFlush(batch.sealedNanos, start, System.nanoTime());
+        }
+    }
+
+    /**
+     * Writes a sealed batch to the data stores.
+     */
+    private void write(Batch batch) {
         // Store the hierarchy first
         entryDataStore.storeHierarchy(StatEntry.HIERARCHY);
 
-
         // Store all entries
-        for (Map.Entry<Class<? extends StatEntry>, List<StatEntry>> entry : entries.entrySet()) {
-            entryDataStore.store(index, entry.getKey(), entry.getValue());
+        for (Map.Entry<Class<? extends StatEntry>, List<StatEntry>> entry : batch.entries.entrySet()) {
+            entryDataStore.store(batch.index, entry.getKey(), entry.getValue());
         }
 
-        // Clear the entries
-        entries.clear();
+        // Write back the aggregates stored since the last flush
+        aggregateDataStore.flush();
+    }
+
+    /**
+     * Waits until every batch sealed so far has been written to the data stores.
+     */
+    public void awaitFlushed() {
+        long sealed = sealedCount;
+        synchronized (writtenLock) {
+            boolean interrupted = false;
+            while (writtenCount < sealed) {
+                try {
+                    writtenLock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the metrics of the batches written.
+     */
+    public FlushMetrics getFlushMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the number of sealed batches waiting to be written, not counting one being written.
+     */
+    public int getQueueDepth() {
+        return pending.size();
+    }
+
+    /**
+     * Seals the entries recorded so far, writes every sealed batch, stops the flushing
+     * thread, and writes back the aggregates stored since. Batches sealed after this are
+     * written on the thread flushing them, and aggregates are written as they are stored.
+     * Batches the flusher failed to write are written once more here, and if that fails,
+     * the failure is thrown and they are kept for the next flush.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            flush(currTimeIndex);
+            closed = true;
+        }
+
+        // Nothing else is queued once closed, so the flusher is idle once this returns
+        awaitFlushed();
+        flusher.interrupt();
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            synchronized (this) {
+                writeInline(takeFailed());
+            }
+        } finally {
+            // Aggregates may have been stored after the last batch was written
+            aggregateDataStore.flush();
+        }
     }
 
     // Inherited java docs
@@ -126,7 +458,8 @@ public class StatDataControllerImpl implements StatTracker {  // Facade design p
 
     // Inherited java docs
     @Override
-    public synchronized <E extends StatEntry> List<E> getEntries(Class<E> entryClass, long index) {
+    public <E extends StatEntry> List<E> getEntries(Class<E> entryClass, long index) {
+        awaitFlushed();
 
         List<Class<? extends E>> concreteClasses = StatEntry.HIERARCHY.getInheritors(entryClass);
 
@@ -142,14 +475,15 @@ public class StatDataControllerImpl implements StatTracker {  // Facade design p
 
     // Inherited java docs
     @Override
-    public synchronized <E extends StatEntry, A> Map<Long, A> getAggregates(Class<E> entryClass, Class<A> aggregateClass, long fromIndex, long toIndexInclusive) {
+    public <E extends StatEntry, A> Map<Long, A> getAggregates(Class<E> entryClass, Class<A> aggregateClass, long fromIndex, long toIndexInclusive) {
+        awaitFlushed();
         return aggregateDataStore.retrieve(fromIndex, toIndexInclusive, entryClass, aggregateClass);
     }
 
     // Inherited java docs
     @Override
-    public synchronized <E extends StatEntry, A extends Serializable> Map<Long, A> getOrAggregate(StatAggregator<E, A> aggregator,
-                                                                                                  long startIndex, long endIndexInclusive) {
+    public <E extends StatEntry, A extends Serializable> Map<Long, A> getOrAggregate(StatAggregator<E, A> aggregator,
+                                                                                     long startIndex, long endIndexInclusive) {
 
         // Get the classes that are relevant
         Class<E> entryClass = aggregator.getEntryClass();
@@ -163,53 +497,109 @@ public class StatDataControllerImpl implements StatTracker {  // Facade design p
 
         timing.mark("getAggregates");
 
-        // Accumulate all the indices that don't exist
-        List<Long> missingIndices = new ArrayList<>();
-        for (long index = startIndex; index <= endIndexInclusive; index++) {
-            if (aggregates.containsKey(index)) continue;
-            missingIndices.add(index);
-        }
-
-        timing.mark("missingIndices");
-
         // If there are indeed missing indices, aggregate them if
         // possible and store them
+        BitSet missingIndices = findMissing(aggregates, startIndex, endIndexInclusive);
         if (!missingIndices.isEmpty()) {
+            Map<Long, A> aggregated = aggregateMissing(aggregator, startIndex, missingIndices);
+            timing.mark("aggregate");
 
-            // Map for the entry lists
-            Map<Long, List<E>> entries = new HashMap<>();
+            storeAggregates(entryClass, aggregateClass, aggregated);
+            aggregates.putAll(aggregated);
+            timing.mark("store");
+        }
+
+        return aggregates;
+    }
 
-            // For each inheritor class, retrieve the entries of that class
-            for (Class<? extends E> inheritor : StatEntry.HIERARCHY.getInheritors(entryClass)) {
+    /**
+     * Does the same as {@link #getOrAggregate}, splitting the missing indices into
+     * chunks of {@link #BACKFILL_CHUNK_SIZE} that are aggregated in parallel on the
+     * worker pool, and then storing the new aggregates in one batch.
+     */
+    @Override
+    public <E extends StatEntry, A extends Serializable> CompletableFuture<Map<Long, A>> getOrAggregateAsync(
+            StatAggregator<E, A> aggregator, long startIndex, long endIndexInclusive
+    ) {
+        Class<E> entryClass = aggregator.getEntryClass();
+        Class<A> aggregateClass = aggregator.getAggregateClass();
 
-                // Get the entries
-                Map<Long, ? extends List<? extends E>> retrievedEntries =
-                        entryDataStore.retrieve(missingIndices, inheritor);
+        return CompletableFuture.supplyAsync(
+                () -> getAggregates(entryClass, aggregateClass, startIndex, endIndexInclusive), workers
+        ).thenCompose(aggregates -> {
+            BitSet missingIndices = findMissing(aggregates, startIndex, endIndexInclusive);
 
-                timing.mark("retrieveEntries");
+            // Split the missing indices into chunks aligned to the time index
+            List<CompletableFuture<Map<Long, A>>> chunks = new ArrayList<>();
+            int bit = missingIndices.nextSetBit(0);
+            while (bit >= 0) {
+                long chunkStart = Math.floorDiv(startIndex + bit, BACKFILL_CHUNK_SIZE) * BACKFILL_CHUNK_SIZE;
+                int chunkEnd = (int) Math.min(chunkStart + BACKFILL_CHUNK_SIZE - startIndex, Integer.MAX_VALUE);
 
-                // Merge them into the map
-                retrievedEntries.forEach((index, list) -> {
-                    entries.putIfAbsent(index, new ArrayList<>());
-                    entries.get(index).addAll(list);
-                });
+                BitSet chunk = missingIndices.get(bit, chunkEnd);
+                long chunkBase = startIndex + bit;
+                chunks.add(CompletableFuture.supplyAsync(() -> aggregateMissing(aggregator, chunkBase, chunk), workers));
 
+                bit = missingIndices.nextSetBit(chunkEnd);
             }
 
-            // Aggregate each
-            for (long index : missingIndices) {
-                List<E> acc = entries.get(index);
-                if (acc == null || acc.isEmpty()) continue;
-                A aggregate = aggregator.aggregate(acc);
-                aggregates.put(index, aggregate);
-                // Store the aggregate
-                aggregateDataStore.store(index, entryClass, aggregateClass, aggregate);
-                timing.mark("aggregate + store");
-            }
+            return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+                Map<Long, A> aggregated = new HashMap<>();
+                chunks.forEach(chunk -> aggregated.putAll(chunk.join()));
 
+                if (!aggregated.isEmpty()) storeAggregates(entryClass, aggregateClass, aggregated);
+                aggregates.putAll(aggregated);
+                return aggregates;
+            });
+        });
+    }
+
+    /**
+     * Stores newly aggregated values, writing them through to the data store if the
+     * tracker has been closed, as nothing else will write them back then.
+     */
+    private <E extends StatEntry, A> void storeAggregates(Class<E> entryClass, Class<A> aggregateClass,
+                                                          Map<Long, A> aggregated) {
+        aggregateDataStore.storeAll(entryClass, aggregateClass, aggregated);
+        if (closed) aggregateDataStore.flush();
+    }
+
+    /**
+     * Returns the indices in a range that have no aggregate, as offsets from the start of the range.
+     */
+    private static BitSet findMissing(Map<Long, ?> aggregates, long startIndex, long endIndexInclusive) {
+        Preconditions.checkArgument(endIndexInclusive - startIndex < Integer.MAX_VALUE, "Range is too long");
+        BitSet missingIndices = new BitSet();
+        for (long index = startIndex; index <= endIndexInclusive; index++) {
+            if (aggregates.containsKey(index)) continue;
+            missingIndices.set((int) (index - startIndex));
         }
+        return missingIndices;
+    }
 
-        return aggregates;
+    /**
+     * Aggregates the entries at the given indices, without storing the aggregates.
+     * Indices without any entries are left out.
+     *
+     * @param aggregator The aggregator to use.
+     * @param baseIndex  The time index of bit 0 of {@code indices}.
+     * @param indices    The indices to aggregate, as offsets from {@code baseIndex}.
+     * @return The new aggregates mapped by time index.
+     */
+    private <E extends StatEntry, A extends Serializable> Map<Long, A> aggregateMissing(StatAggregator<E, A> aggregator,
+                                                                                       long baseIndex, BitSet indices) {
+        Class<E> entryClass = aggregator.getEntryClass();
+
+        // Retrieve the entries of every inheritor class in one batch
+        Map<Long, List<E>> entries = entryDataStore.retrieveAll(baseIndex, indices,
+                StatEntry.HIERARCHY.getInheritors(entryClass), entryClass);
+
+        Map<Long, A> aggregated = new HashMap<>();
+        entries.forEach((index, acc) -> {
+            if (acc.isEmpty()) return;
+            aggregated.put(index, aggregator.aggregate(acc));
+        });
+        return aggregated;
     }
 
     // Inherited java docs
@@ -219,14 +609,23 @@ public class StatDataControllerImpl implements StatTracker {  // Facade design p
     ) {
         Class<E> entryClass = aggregator.getEntryClass();
 
+        // Registered aggregators keep a running aggregate in each buffer
+        if (aggregators.containsKey(aggregator.getClass())) {
+            List<A> running = new ArrayList<>();
+            for (RecordBuffer buffer : buffers) {
+                A aggregate = buffer.getRunning(aggregator);
+                if (aggregate != null) running.add(aggregate);
+            }
+
+            if (running.isEmpty()) return Optional.empty();
+            return Optional.ofNullable(running.size() == 1 ? running.get(0) : aggregator.aggregateExisting(running));
+        }
+
         List<E> acc = new ArrayList<>();
 
         List<Class<? extends E>> inheritors = StatEntry.HIERARCHY.getInheritors(entryClass);
-        for (Class<? extends E> inheritor : inheritors) {
-            synchronized (entries) {
-                entries.getOrDefault(inheritor, new ArrayList<>())
-                        .forEach(e -> acc.add(entryClass.cast(e)));
-            }
+        for (RecordBuffer buffer : buffers) {
+            buffer.copyTo(inheritors, entryClass, acc);
         }
 
         if (acc.isEmpty()) return Optional.empty();
@@ -234,4 +633,228 @@ public class StatDataControllerImpl implements StatTracker {  // Facade design p
         return Optional.ofNullable(aggregator.aggregate(acc));
     }
 
-}
\ No newline at end of file
+    // Inherited java docs
+    @Override
+    public <E extends StatEntry, A extends Serializable> void registerAggregator(StatAggregator<E, A> aggregator) {
+        if (aggregators.containsKey(aggregator.getClass())) return;
+
+        synchronized (this) {
+            if (aggregators.putIfAbsent(aggregator.getClass(), aggregator) != null) return;
+            aggregatorsByClass = new ConcurrentHashMap<>();
+
+            // Catch the new aggregator up on what has been recorded so far
+            List<Class<? extends E>> inheritors = StatEntry.HIERARCHY.getInheritors(aggregator.getEntryClass());
+            for (RecordBuffer buffer : buffers) {
+                buffer.seed(aggregator, inheritors);
+            }
+        }
+    }
+
+    /**
+     * Returns the registered aggregators that operate on the given entry class.
+     */
+    private List<StatAggregator<?, ?>> getAggregatorsOf(Class<? extends StatEntry> clazz) {
+        Map<Class<? extends StatEntry>, List<StatAggregator<?, ?>>> cache = aggregatorsByClass;
+        List<StatAggregator<?, ?>> list = cache.get(clazz);
+        if (list != null) return list;
+
+        list = new ArrayList<>();
+        for (StatAggregator<?, ?> aggregator : aggregators.values()) {
+            if (aggregator.getEntryClass().isAssignableFrom(clazz)) list.add(aggregator);
+        }
+        list = List.copyOf(list);
+        cache.put(clazz, list);
+        return list;
+    }
+
+    /**
+     * The stat entries of a time index, sealed to be written by the flushing thread.
+     */
+    private static class Batch {
+
+        /**
+         * The time index the entries are stored at.
+         */
+        private final long index;
+
+        /**
+         * The entries mapped by their class.
+         */
+        private final Map<Class<? extends StatEntry>, List<StatEntry>> entries;
+
+        /**
+         * The time the batch was sealed at, from {@link System#nanoTime()}.
+         */
+        private final long sealedNanos;
+
+        /**
+         * Constructs a sealed batch.
+         *
+         * @param index       The time index the entries are stored at.
+         * @param entries     The entries mapped by their class.
+         * @param sealedNanos The time the batch was sealed at, from {@link System#nanoTime()}.
+         */
+        Batch(long index, Map<Class<? extends StatEntry>, List<StatEntry>> entries, long sealedNanos) {
+            this.index = index;
+            this.entries = entries;
+            this.sealedNanos = sealedNanos;
+        }
+    }
+
+    /**
+     * The stat entries recorded by a single thread during this time interval,
+     * stored in lists mapped by their class.
+     */
+    private static class RecordBuffer {
+
+        /**
+         * The thread that records to this buffer.
+         */
+        private final WeakReference<Thread> owner = new WeakReference<>(Thread.currentThread());
+
+        /**
+         * The recorded entries mapped by their class. Guarded by this buffer.
+         */
+        private Map<Class<? extends StatEntry>, List<StatEntry>> entries = new HashMap<>();
+
+        /**
+         * The values of the recorded numeric entries mapped by their class. The columns
+         * are cleared rather than replaced when drained. Guarded by this buffer.
+         */
+        private final Map<Class<? extends NumericStatEntry>, NumericColumn> columns = new HashMap<>();
+
+        /**
+         * The running aggregates of the registered aggregators, mapped by the class
+         * of their aggregator. Guarded by this buffer.
+         */
+        private final Map<Class<?>, Object> running = new HashMap<>();
+
+        /**
+         * Looks up the registered aggregators that operate on an entry class. This is
+         * called while holding the lock of this buffer, so that an aggregator is either
+         * seeded with an entry or folds it in, but never misses it.
+         */
+        private final Function<Class<? extends StatEntry>, List<StatAggregator<?, ?>>> aggregatorsOf;
+
+        /**
+         * Constructs a buffer for the current thread.
+         *
+         * @param aggregatorsOf Looks up the registered aggregators that operate on an entry class.
+         */
+        RecordBuffer(Function<Class<? extends StatEntry>, List<StatAggregator<?, ?>>> aggregatorsOf) {
+            this.aggregatorsOf = aggregatorsOf;
+        }
+
+        /**
+         * Returns whether the thread that records to this buffer is still alive.
+         */
+        boolean isOwnerAlive() {
+            Thread thread = owner.get();
+            return thread != null && thread.isAlive();
+        }
+
+        /**
+         * Adds an entry to this buffer.
+         */
+        synchronized void add(Class<? extends StatEntry> clazz, StatEntry entry) {
+            entries.computeIfAbsent(clazz, c -> new ArrayList<>()).add(entry);
+            accept(aggregatorsOf.apply(clazz), entry);
+        }
+
+        /**
+         * Folds an entry into the running aggregates of the given aggregators.
+         */
+        private void accept(List<StatAggregator<?, ?>> aggregators, StatEntry entry) {
+            for (StatAggregator<?, ?> aggregator : aggregators) {
+                accept(aggregator, entry);
+            }
+        }
+
+        /**
+         * Folds an entry into the running aggregate of an aggregator.
+         */
+        @SuppressWarnings("unchecked")  // Running aggregates are mapped by the class of their aggregator
+        private <E extends StatEntry, A extends Serializable> void accept(StatAggregator<E, ?> aggregator,
+                                                                          StatEntry entry) {
+            StatAggregator<E, A> typed = (StatAggregator<E, A>) aggregator;
+            A current = (A) running.get(aggregator.getClass());
+            running.put(aggregator.getClass(), typed.accept(current, aggregator.getEntryClass().cast(entry)));
+        }
+
+        /**
+         * Replaces the running aggregate of an aggregator with the aggregate of the
+         * entries of the given classes in this buffer.
+         */
+        synchronized <E extends StatEntry, A extends Serializable> void seed(StatAggregator<E, A> aggregator,
+                                                                             List<Class<? extends E>> classes) {
+            List<E> acc = new ArrayList<>();
+            copyTo(classes, aggregator.getEntryClass(), acc);
+            if (acc.isEmpty()) {
+                running.remove(aggregator.getClass());
+            } else {
+                running.put(aggregator.getClass(), aggregator.aggregate(acc));
+            }
+        }
+
+        /**
+         * Returns the running aggregate of an aggregator, or null if no entries have been folded into it.
+         */
+        synchronized <A extends Serializable> A getRunning(StatAggregator<?, A> aggregator) {
+            return aggregator.getAggregateClass().cast(running.get(aggregator.getClass()));
+        }
+
+        /**
+         * Adds the value of a numeric entry to this buffer.
+         */
+        synchronized void addNumeric(Class<? extends NumericStatEntry> clazz, double value) {
+            NumericColumn column = columns.get(clazz);
+            if (column == null) {
+                column = new NumericColumn();
+                columns.put(clazz, column);
+            }
+            column.add(value);
+
+            // Only numeric entries with an aggregator interested in them are created
+            List<StatAggregator<?, ?>> aggregators = aggregatorsOf.apply(clazz);
+            if (!aggregators.isEmpty()) accept(aggregators, NumericEntries.create(clazz, value));
+        }
+
+        /**
+         * Removes and returns all the entries in this buffer, creating the numeric entries from their values.
+         */
+        synchronized Map<Class<? extends StatEntry>, List<StatEntry>> drain() {
+            Map<Class<? extends StatEntry>, List<StatEntry>> drained = entries;
+            entries = new HashMap<>();
+            running.clear();
+
+            columns.forEach((clazz, column) -> {
+                if (column.size() == 0) return;
+                List<StatEntry> list = drained.computeIfAbsent(clazz, c -> new ArrayList<>());
+                column.addEntriesTo(value -> NumericEntries.create(clazz, value), list);
+                column.clear();
+            });
+
+            return drained;
+        }
+
+        /**
+         * Copies the entries of the given classes in this buffer into a list.
+         */
+        synchronized <E extends StatEntry> void copyTo(List<Class<? extends E>> classes, Class<E> entryClass, List<E> acc) {
+            for (Class<? extends E> clazz : classes) {
+                List<StatEntry> list = entries.get(clazz);
+                if (list != null) {
+                    list.forEach(e -> acc.add(entryClass.cast(e)));
+                }
+
+                NumericColumn column = columns.get(clazz);
+                if (column != null) {
+                    Class<? extends NumericStatEntry> numericClass = clazz.asSubclass(NumericStatEntry.class);
+                    column.addEntriesTo(value -> entryClass.cast(NumericEntries.create(numericClass, value)), acc);
+                }
+            }
+        }
+
+    }
+
+}
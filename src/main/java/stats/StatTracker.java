@@ -1,6 +1,8 @@
 package stats;
 
 import stats.aggregator.StatAggregator;
+import stats.entry.NumericEntries;
+import stats.entry.NumericStatEntry;
 import stats.entry.StatEntry;
 import stats.timing.TimeIndexingStrategy;
 
@@ -8,6 +10,7 @@ import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface StatTracker {
     /**
@@ -17,6 +20,18 @@ public interface StatTracker {
      */
     void record(StatEntry entry);
 
+    /**
+     * Record a numeric stat entry by its value, without needing to create the entry.
+     * The entry class must have a factory registered with {@link NumericEntries}.
+     *
+     * @param entryClass The concrete class of the stat entry.
+     * @param value      The value of the stat entry.
+     * @param <E>        The type of the stat entry.
+     */
+    default <E extends NumericStatEntry> void record(Class<E> entryClass, double value) {
+        record(NumericEntries.create(entryClass, value));
+    }
+
     /**
      * Returns the time indexing strategy
      */
@@ -81,6 +96,23 @@ public interface StatTracker {
     <E extends StatEntry, A extends Serializable> Map<Long, A> getOrAggregate(StatAggregator<E, A> aggregator,
                                                                               long startIndex, long endIndexInclusive);
 
+    /**
+     * Does the same as {@link #getOrAggregate}, without blocking the calling thread.
+     * Implementations may aggregate the missing indices in parallel.
+     *
+     * @param aggregator        The aggregator to use to aggregate the data.
+     * @param startIndex        The beginning  time index at which the stat entries were recorded.
+     * @param endIndexInclusive The ending time index at which the stat entries were recorded.
+     * @param <E>               The type of stat entries to aggregate.
+     * @param <A>               The type of aggregate to retrieve.
+     * @return A future completed with the aggregates mapped by time index.
+     */
+    default <E extends StatEntry, A extends Serializable> CompletableFuture<Map<Long, A>> getOrAggregateAsync(
+            StatAggregator<E, A> aggregator, long startIndex, long endIndexInclusive
+    ) {
+        return CompletableFuture.supplyAsync(() -> getOrAggregate(aggregator, startIndex, endIndexInclusive));
+    }
+
     /**
      * Aggregates the current statistics based on a provided aggregator.
      *
@@ -98,4 +130,25 @@ public interface StatTracker {
     <E extends StatEntry, A extends Serializable> Optional<A> aggregateCurrent(
             StatAggregator<E, A> aggregator
     );
+
+    /**
+     * Registers an aggregator to be kept up to date as entries are recorded, so that
+     * {@link #aggregateCurrent} does not need to aggregate every buffered entry when
+     * called with an aggregator of the same class. Registering an aggregator of a class
+     * that is already registered does nothing.
+     *
+     * @param aggregator The aggregator to register.
+     * @param <E>        Type of the stat entry, which must extend {@code StatEntry}.
+     * @param <A>        Type of the aggregation result, which must be serializable.
+     */
+    default <E extends StatEntry, A extends Serializable> void registerAggregator(StatAggregator<E, A> aggregator) {
+    }
+
+    /**
+     * Writes every entry recorded so far to the data store, and releases any threads
+     * used to do so. The tracker may still be used afterwards, but flushing then writes
+     * on the calling thread.
+     */
+    default void close() {
+    }
 }
@@ -0,0 +1,86 @@
+package stats.aggregator;
+
+import util.Preconditions;
+
+/**
+ * The resolutions that aggregates can be rolled up to. Each level's buckets are
+ * a whole number of the buckets of the level below it, so that a bucket can
+ * always be aggregated from the buckets of the finer level.
+ */
+public enum RollupLevel {
+
+    /**
+     * One bucket per time index.
+     */
+    INDEX,
+
+    /**
+     * One bucket per minute, or per time index if those are longer than a minute.
+     */
+    MINUTE,
+
+    /**
+     * One bucket per 60 minute buckets.
+     */
+    HOUR,
+
+    /**
+     * One bucket per 24 hour buckets.
+     */
+    DAY;
+
+    /**
+     * The length of a minute in ms.
+     */
+    private static final long MINUTE_MILLIS = 60_000;
+
+    /**
+     * Returns the number of time indices in each bucket of this level.
+     *
+     * @param indexLength The length of each time index in ms.
+     * @return The number of time indices in each bucket.
+     * @throws IllegalArgumentException if indexLength is not positive.
+     */
+    public long getIndicesPerBucket(long indexLength) {
+        Preconditions.checkArgument(indexLength > 0, "indexLength must be positive");
+        switch (this) {
+            case INDEX:
+                return 1;
+            case MINUTE:
+                return Math.max(1, MINUTE_MILLIS / indexLength);
+            case HOUR:
+                return MINUTE.getIndicesPerBucket(indexLength) * 60;
+            default:
+                return HOUR.getIndicesPerBucket(indexLength) * 24;
+        }
+    }
+
+    /**
+     * Returns the level below this one.
+     *
+     * @return The finer level.
+     * @throws IllegalStateException if this is the finest level.
+     */
+    public RollupLevel finer() {
+        Preconditions.checkState(this != INDEX, "There is no level finer than " + INDEX);
+        return values()[ordinal() - 1];
+    }
+
+    /**
+     * Plans which level to answer a query from: the coarsest level that still splits
+     * the queried range into at least the given number of buckets.
+     *
+     * @param indexCount  The number of time indices queried.
+     * @param indexLength The length of each time index in ms.
+     * @param minPoints   The minimum number of buckets wanted.
+     * @return The coarsest level that fits, or {@link #INDEX} if none of them do.
+     */
+    public static RollupLevel coarsestFor(long indexCount, long indexLength, int minPoints) {
+        RollupLevel[] levels = values();
+        for (int i = levels.length - 1; i > 0; i--) {
+            if (indexCount / levels[i].getIndicesPerBucket(indexLength) >= minPoints) return levels[i];
+        }
+        return INDEX;
+    }
+
+}
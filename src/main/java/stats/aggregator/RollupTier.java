@@ -0,0 +1,135 @@
+package stats.aggregator;
+
+import stats.StatTracker;
+import stats.entry.StatEntry;
+import stats.timing.TimeIndexingStrategy;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Maintains the aggregates of one aggregator at every {@link RollupLevel}. Buckets of
+ * a coarser level are rolled up from the buckets of the level below with
+ * {@link StatAggregator#aggregateExisting(List)}, down to the per index aggregates
+ * kept by the {@link StatTracker}, so a long range is answered from a few coarse
+ * buckets instead of an aggregate for every time index.
+ * <p>
+ * Buckets are kept once they are complete, that is, once every time index in
+ * them has been flushed. Buckets still being recorded to are rolled up on every query.
+ *
+ * @param <E> The type of entries the aggregator operates on.
+ * @param <A> The type of aggregates the aggregator produces.
+ */
+public class RollupTier<E extends StatEntry, A extends Serializable> {
+
+    /**
+     * The maximum number of complete buckets kept for each level.
+     */
+    private static final int MAX_CACHED_BUCKETS = 4096;
+
+    /**
+     * The stat tracker the per index aggregates are read from.
+     */
+    private final StatTracker stats;
+
+    /**
+     * The aggregator the buckets are aggregated by.
+     */
+    private final StatAggregator<E, A> aggregator;
+
+    /**
+     * The complete buckets of each level above {@link RollupLevel#INDEX}, mapped by bucket,
+     * and mapped to null if there was no data in them. Guarded by this tier.
+     */
+    private final Map<RollupLevel, Map<Long, A>> buckets = new EnumMap<>(RollupLevel.class);
+
+    /**
+     * Constructs a RollupTier for the given aggregator.
+     *
+     * @param stats      The stat tracker the per index aggregates are read from.
+     * @param aggregator The aggregator the buckets are aggregated by.
+     */
+    public RollupTier(StatTracker stats, StatAggregator<E, A> aggregator) {
+        this.stats = stats;
+        this.aggregator = aggregator;
+
+        for (RollupLevel level : RollupLevel.values()) {
+            if (level == RollupLevel.INDEX) continue;
+            buckets.put(level, new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, A> eldest) {
+                    return size() > MAX_CACHED_BUCKETS;
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the aggregator the buckets are aggregated by.
+     */
+    public StatAggregator<E, A> getAggregator() {
+        return aggregator;
+    }
+
+    /**
+     * Returns the aggregates of a range of buckets of the given level. Buckets
+     * without any data are left out.
+     *
+     * @param level      The level of the buckets.
+     * @param fromBucket The first bucket, inclusive.
+     * @param toBucket   The last bucket, inclusive.
+     * @return The aggregates mapped by bucket.
+     */
+    public synchronized Map<Long, A> getRollups(RollupLevel level, long fromBucket, long toBucket) {
+        if (level == RollupLevel.INDEX) {
+            return stats.getOrAggregateAsync(aggregator, fromBucket, toBucket).join();
+        }
+
+        Map<Long, A> cached = buckets.get(level);
+        Map<Long, A> result = new HashMap<>();
+
+        // Find the buckets that have to be rolled up
+        SortedSet<Long> missing = new TreeSet<>();
+        for (long bucket = fromBucket; bucket <= toBucket; bucket++) {
+            if (!cached.containsKey(bucket)) {
+                missing.add(bucket);
+                continue;
+            }
+            A aggregate = cached.get(bucket);
+            if (aggregate != null) result.put(bucket, aggregate);
+        }
+
+        if (missing.isEmpty()) return result;
+
+        // Roll them up from the level below, all in one query
+        TimeIndexingStrategy strategy = stats.getIndexingStrategy();
+        long indexLength = strategy.getIndexLength();
+        RollupLevel finer = level.finer();
+        long indicesPerBucket = level.getIndicesPerBucket(indexLength);
+        long ratio = indicesPerBucket / finer.getIndicesPerBucket(indexLength);
+
+        Map<Long, A> finerRollups = getRollups(finer, missing.first() * ratio, (missing.last() + 1) * ratio - 1);
+
+        Map<Long, List<A>> grouped = new HashMap<>();
+        finerRollups.forEach((finerBucket, aggregate) -> {
+            long bucket = Math.floorDiv(finerBucket, ratio);
+            if (missing.contains(bucket)) grouped.computeIfAbsent(bucket, b -> new ArrayList<>()).add(aggregate);
+        });
+
+        // The index before the current one may not have been flushed yet
+        long lastFlushed = strategy.getTimeIndex() - 2;
+
+        for (long bucket : missing) {
+            List<A> aggregates = grouped.get(bucket);
+            A aggregate = aggregates == null ? null : aggregator.aggregateExisting(aggregates);
+            if (aggregate != null) result.put(bucket, aggregate);
+
+            if ((bucket + 1) * indicesPerBucket - 1 <= lastFlushed) {
+                cached.put(bucket, aggregate);
+            }
+        }
+
+        return result;
+    }
+
+}
@@ -87,4 +87,17 @@ public abstract class StatAggregator<E extends StatEntry, A extends Serializable
      */
     public abstract A aggregateExisting(List<A> aggregates);
 
+    /**
+     * Folds one more entry into a running aggregate, so that an aggregate can be kept up
+     * to date as entries are recorded instead of being aggregated from all of them at once.
+     *
+     * @param running The running aggregate, or null if no entries have been folded into it yet.
+     * @param entry   The entry to fold in.
+     * @return The running aggregate including the entry.
+     */
+    public A accept(A running, E entry) {
+        A aggregate = aggregate(List.of(entry));
+        return running == null ? aggregate : aggregateExisting(List.of(running, aggregate));
+    }
+
 }
@@ -83,4 +83,17 @@ public abstract class SingletonAggregator<E extends StatEntry, A extends Singlet
         return accumulator;
     }
 
+    /**
+     * Folds one entry into a running SingletonAggregate, without creating any lists.
+     *
+     * @param running The running aggregate, or null if no entries have been folded into it yet.
+     * @param entry   The entry to fold in.
+     * @return The running aggregate including the entry.
+     */
+    @Override
+    public A accept(A running, E entry) {
+        A converted = entryConverter.apply(entry);
+        return running == null ? converted : aggregator.apply(running, converted);
+    }
+
 }
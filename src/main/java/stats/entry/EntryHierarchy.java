@@ -2,22 +2,36 @@ package stats.entry;
 
 import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Maps the hierarchy of stats classes
+ * Maps the hierarchy of stats classes. This is safe to use from multiple threads,
+ * and checking whether a class has already been mapped does not lock.
+ * <p>
+ * The inheritors of each class are computed once and published in an immutable cache,
+ * which is replaced with a new version, starting empty, whenever a new class is mapped.
+ * Looking up the inheritors of a class that has been looked up since then is a single
+ * volatile read of the cache.
  */
 public class EntryHierarchy {
 
     /**
-     * The set of classes that have already been mapped. This is use
+     * The set of classes that have already been mapped. A class is only added once
+     * it and all of its ancestors are in the hierarchy, so that it can be read
+     * without holding the lock.
      */
-    private final Set<Class<? extends StatEntry>> mappedClasses = new HashSet<>();
+    private final Set<Class<? extends StatEntry>> mappedClasses = ConcurrentHashMap.newKeySet();
 
     /**
-     * A map of stat entry classes to sets of their children.
+     * A map of stat entry classes to sets of their children. Guarded by this hierarchy.
      */
     private final Map<Class<? extends StatEntry>, Set<Class<? extends StatEntry>>> hierarchy = new HashMap<>();
 
+    /**
+     * The current version of the inheritor cache. Only replaced while holding the lock.
+     */
+    private volatile InheritorCache inheritors = new InheritorCache(0, Map.of());
+
     /**
      * Map the hierarchy of stat entry classes that have this entry class
      * as a descendant.
@@ -29,7 +43,18 @@ public class EntryHierarchy {
         // If the class has already been mapped, we
         // don't need to map it again.
         if (mappedClasses.contains(entryClass)) return;
-        mappedClasses.add(entryClass);
+
+        synchronized (this) {
+            mapLocked(entryClass);
+        }
+    }
+
+    /**
+     * Maps the given entry class while holding the lock.
+     */
+    private void mapLocked(Class<? extends StatEntry> entryClass) {
+
+        if (mappedClasses.contains(entryClass)) return;
 
         // Get the parents of the entry class, this will be its
         // implemented interfaces, and its superclass if one exists.
@@ -51,9 +76,20 @@ public class EntryHierarchy {
             hierarchy.put(interAsStatEntry, existing);
 
             // Recurse
-            map(interAsStatEntry);
+            mapLocked(interAsStatEntry);
         }
 
+        mappedClasses.add(entryClass);
+
+        // The inheritors of its ancestors have changed
+        inheritors = new InheritorCache(inheritors.version + 1, Map.of());
+    }
+
+    /**
+     * Returns the version of the inheritor cache, which changes whenever a new class is mapped.
+     */
+    public long getVersion() {
+        return inheritors.version;
     }
 
     /**
@@ -61,11 +97,35 @@ public class EntryHierarchy {
      *
      * @param entryClass The entry class to get the implementations of.
      * @param <T>        The type of the entry class.
-     * @return A list of all the concrete implementations of the given entry class.
+     * @return An unmodifiable list of all the concrete implementations of the given entry class.
      */
+    @SuppressWarnings("unchecked")  // The cached inheritors of a class are always its subclasses
     public <T extends StatEntry> List<Class<? extends T>> getInheritors(Class<T> entryClass) {
-        map(entryClass);
+        List<Class<? extends StatEntry>> cached = inheritors.lists.get(entryClass);
+        if (cached != null) return (List<Class<? extends T>>) (List<?>) cached;
+
+        synchronized (this) {
+            mapLocked(entryClass);
+
+            InheritorCache cache = inheritors;
+            cached = cache.lists.get(entryClass);
+            if (cached == null) {
+                cached = List.copyOf(computeInheritors(entryClass));
+
+                Map<Class<?>, List<Class<? extends StatEntry>>> lists = new HashMap<>(cache.lists);
+                lists.put(entryClass, cached);
+                inheritors = new InheritorCache(cache.version, Map.copyOf(lists));
+            }
+
+            return (List<Class<? extends T>>) (List<?>) cached;
+        }
+    }
 
+    /**
+     * Computes all the classes that are concrete implementations of the given entry
+     * class, while holding the lock.
+     */
+    private <T extends StatEntry> List<Class<? extends T>> computeInheritors(Class<T> entryClass) {
         if (!hierarchy.containsKey(entryClass)) {
             boolean isConcrete = !Modifier.isAbstract(entryClass.getModifiers());
             isConcrete &= !Modifier.isInterface(entryClass.getModifiers());
@@ -117,4 +177,31 @@ public class EntryHierarchy {
         return getInheritors(StatEntry.class);
     }
 
+    /**
+     * An immutable version of the cached inheritors.
+     */
+    private static class InheritorCache {
+
+        /**
+         * The number of times a new class had been mapped when this version was created.
+         */
+        private final long version;
+
+        /**
+         * The inheritors of each class looked up in this version, as unmodifiable lists.
+         */
+        private final Map<Class<?>, List<Class<? extends StatEntry>>> lists;
+
+        /**
+         * Constructs a version of the cache.
+         *
+         * @param version The number of times a new class had been mapped.
+         * @param lists   The inheritors of each class looked up in this version.
+         */
+        InheritorCache(long version, Map<Class<?>, List<Class<? extends StatEntry>>> lists) {
+            this.version = version;
+            this.lists = lists;
+        }
+    }
+
 }
@@ -0,0 +1,94 @@
+package stats.entry;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleFunction;
+
+/**
+ * A growable column of the values of numeric stat entries. Clearing the column
+ * keeps its array, so that a column recycled every time index stops allocating
+ * once it has grown to the number of entries recorded per index.
+ * <p>
+ * This is not thread-safe.
+ */
+public class NumericColumn {
+
+    /**
+     * The initial capacity of a column.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The values in this column, only the first {@link #size} of which are in use.
+     */
+    private double[] values = new double[INITIAL_CAPACITY];
+
+    /**
+     * The number of values in this column.
+     */
+    private int size = 0;
+
+    /**
+     * Appends a value to this column.
+     *
+     * @param value The value to append.
+     */
+    public void add(double value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Returns the value at the given index.
+     *
+     * @param index The index of the value.
+     * @return The value.
+     */
+    public double get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * Returns the number of values in this column.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the sum of the values in this column.
+     */
+    public double sum() {
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Removes all the values from this column, keeping its capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Creates an entry for each value in this column, and adds them to a list.
+     *
+     * @param factory Creates an entry from a value.
+     * @param acc     The list to add the entries to.
+     * @param <E>     The type of the entries.
+     */
+    public <E> void addEntriesTo(DoubleFunction<? extends E> factory, List<? super E> acc) {
+        for (int i = 0; i < size; i++) {
+            acc.add(factory.apply(values[i]));
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package stats.entry;
+
+import stats.entry.impl.expense.ElectricityUsageStat;
+import stats.entry.impl.expense.MaintenanceStat;
+import stats.entry.impl.revenue.TicketSaleStat;
+import util.Preconditions;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleFunction;
+
+/**
+ * A registry of the factories used to recreate numeric stat entries from their values.
+ */
+public class NumericEntries {
+
+    /**
+     * The factories of each numeric entry class.
+     */
+    private static final Map<Class<? extends NumericStatEntry>, DoubleFunction<? extends NumericStatEntry>> FACTORIES =
+            new ConcurrentHashMap<>();
+
+    static {
+        register(ElectricityUsageStat.class, ElectricityUsageStat::new);
+        register(MaintenanceStat.class, MaintenanceStat::new);
+        register(TicketSaleStat.class, TicketSaleStat::new);
+    }
+
+    /**
+     * Registers the factory of a numeric entry class, replacing any existing one.
+     *
+     * @param entryClass The concrete entry class.
+     * @param factory    Creates an entry of the class from its value.
+     * @param <E>        The type of the entry.
+     */
+    public static <E extends NumericStatEntry> void register(Class<E> entryClass, DoubleFunction<E> factory) {
+        FACTORIES.put(entryClass, factory);
+    }
+
+    /**
+     * Returns whether a factory has been registered for the given entry class.
+     *
+     * @param entryClass The entry class.
+     * @return True if entries of the class can be created from their values.
+     */
+    public static boolean isRegistered(Class<? extends NumericStatEntry> entryClass) {
+        return FACTORIES.containsKey(entryClass);
+    }
+
+    /**
+     * Creates an entry of the given class from its value.
+     *
+     * @param entryClass The entry class.
+     * @param value      The value of the entry.
+     * @param <E>        The type of the entry.
+     * @return The created entry.
+     * @throws IllegalArgumentException if no factory is registered for the class.
+     */
+    public static <E extends NumericStatEntry> E create(Class<E> entryClass, double value) {
+        DoubleFunction<? extends NumericStatEntry> factory = FACTORIES.get(entryClass);
+        Preconditions.checkArgument(factory != null, "No factory registered for " + entryClass.getName());
+        return entryClass.cast(factory.apply(value));
+    }
+
+}
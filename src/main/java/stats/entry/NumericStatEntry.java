@@ -0,0 +1,18 @@
+package stats.entry;
+
+/**
+ * A stat entry that consists of a single number. Numeric entries can be recorded
+ * as just their value with {@link stats.StatTracker#record(Class, double)}, which
+ * buffers them in primitive columns rather than as objects, as long as a factory
+ * for the entry class is registered with {@link NumericEntries}.
+ */
+public interface NumericStatEntry extends StatEntry {
+
+    /**
+     * Returns the value of this entry.
+     *
+     * @return The value as a double.
+     */
+    double getValue();
+
+}
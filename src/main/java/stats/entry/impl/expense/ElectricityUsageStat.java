@@ -1,9 +1,17 @@
 package stats.entry.impl.expense;
 
+import stats.entry.NumericStatEntry;
+
 /**
  * This class represents a specific type of {@link ExpenseStat} related to electricity usage expenses.
  */
-public class ElectricityUsageStat implements ExpenseStat {
+public class ElectricityUsageStat implements ExpenseStat, NumericStatEntry {
+
+    /**
+     * Pinned to the value computed before this class became a {@link NumericStatEntry},
+     * so that previously stored entries can still be read.
+     */
+    private static final long serialVersionUID = 4098893777177040306L;
 
     /**
      * The amount of electricity used represented as a double value.
@@ -23,4 +31,15 @@ public class ElectricityUsageStat implements ExpenseStat {
     public double getExpense() {
         return amount;
     }
+
+    /**
+     * Returns the amount of electricity used.
+     *
+     * @return The value as a double.
+     */
+    @Override
+    public double getValue() {
+        return amount;
+    }
+
 }
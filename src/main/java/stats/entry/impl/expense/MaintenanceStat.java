@@ -1,10 +1,18 @@
 package stats.entry.impl.expense;
 
+import stats.entry.NumericStatEntry;
+
 /**
  * This class represents a specific type of {@link ExpenseStat} related to maintenance expenses.
  * It provides information about the maintenance cost as an expense.
  */
-public class MaintenanceStat implements ExpenseStat {
+public class MaintenanceStat implements ExpenseStat, NumericStatEntry {
+
+    /**
+     * Pinned to the value computed before this class became a {@link NumericStatEntry},
+     * so that previously stored entries can still be read.
+     */
+    private static final long serialVersionUID = 6258061991395358266L;
 
     /**
      * The cost of maintenance represented as a double value.
@@ -37,4 +45,14 @@ public class MaintenanceStat implements ExpenseStat {
         return cost;
     }
 
+    /**
+     * Returns the cost of the maintenance.
+     *
+     * @return The value as a double.
+     */
+    @Override
+    public double getValue() {
+        return cost;
+    }
+
 }
@@ -1,13 +1,20 @@
 package stats.entry.impl.revenue;
 
 import entity.ticket.Ticket;
+import stats.entry.NumericStatEntry;
 import stats.entry.impl.revenue.RevenueStat;
 
 /**
  * This class represents a ticket sale statistic entry that implements the {@link RevenueStat} interface.
  * It encapsulates information about the ticket type and its price (which is considered as revenue in this context).
  */
-public class TicketSaleStat implements RevenueStat {
+public class TicketSaleStat implements RevenueStat, NumericStatEntry {
+
+    /**
+     * Pinned to the value computed before this class became a {@link NumericStatEntry},
+     * so that previously stored entries can still be read.
+     */
+    private static final long serialVersionUID = -8394188539038769504L;
 
     /**
      * The price of the ticket, representing the revenue.
@@ -23,6 +30,15 @@ public class TicketSaleStat implements RevenueStat {
         price = ticket.getPrice();
     }
 
+    /**
+     * Constructs a TicketSaleStat instance with the specified price.
+     *
+     * @param price The price of the ticket sold.
+     */
+    public TicketSaleStat(double price) {
+        this.price = price;
+    }
+
     /**
      * Returns the price of the ticket, which represents the revenue.
      *
@@ -32,4 +48,15 @@ public class TicketSaleStat implements RevenueStat {
     public double getRevenue() {
         return price;
     }
+
+    /**
+     * Returns the price of the ticket.
+     *
+     * @return The value as a double.
+     */
+    @Override
+    public double getValue() {
+        return price;
+    }
+
 }
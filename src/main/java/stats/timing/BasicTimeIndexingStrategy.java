@@ -1,5 +1,7 @@
 package stats.timing;
 
+import util.Clock;
+import util.Clocks;
 import util.Preconditions;
 
 public class BasicTimeIndexingStrategy implements TimeIndexingStrategy {
@@ -10,20 +12,45 @@ public class BasicTimeIndexingStrategy implements TimeIndexingStrategy {
     private final long indexLength;
 
     /**
-     * Create a new BasicTimeIndexProvider.
+     * The clock the time is read from.
+     */
+    private final Clock clock;
+
+    /**
+     * Create a new BasicTimeIndexProvider reading the time from the
+     * program's current clock.
      *
      * @param indexLength The size of each time index in ms.
      * @throws IllegalArgumentException if indexSize is not positive.
      */
     public BasicTimeIndexingStrategy(long indexLength) {
+        this(indexLength, Clocks.CURRENT);
+    }
+
+    /**
+     * Create a new BasicTimeIndexProvider.
+     *
+     * @param indexLength The size of each time index in ms.
+     * @param clock       The clock to read the time from.
+     * @throws IllegalArgumentException if indexSize is not positive.
+     */
+    public BasicTimeIndexingStrategy(long indexLength, Clock clock) {
         Preconditions.checkArgument(indexLength > 0, "indexSize must be positive");
+        Preconditions.checkArgument(clock != null, "clock cannot be null");
         this.indexLength = indexLength;
+        this.clock = clock;
     }
 
     // Inherited javadocs
     @Override
     public long getTimeIndex() {
-        return getTimeIndex(System.currentTimeMillis());
+        return getTimeIndex(clock.millis());
+    }
+
+    // Inherited javadocs
+    @Override
+    public long getIndexLength() {
+        return indexLength;
     }
 
     // Inherited javadocs
@@ -11,4 +11,11 @@ public interface TimeIndexingStrategy {
      */
     long getTimeIndex();
 
+    /**
+     * Get the length of each time index.
+     *
+     * @return The length of each time index in ms.
+     */
+    long getIndexLength();
+
 }
@@ -7,6 +7,7 @@ import ui.UIController;
 import ui.util.ShadowedButton;
 import ui.util.ShadowPanel;
 import ui.util.SuppliedLabel;
+import util.Clocks;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -179,7 +180,7 @@ public class TicketPanel extends JPanel {
         SuppliedLabel validTime = new SuppliedLabel(() -> {
             long expiry = viewModel.getTicket().getExpiry();
             if (expiry != -1) {
-                long timeLeft = expiry - System.currentTimeMillis();
+                long timeLeft = expiry - Clocks.millis();
                 long hours = timeLeft / 3600000;
                 long minutes = (timeLeft % 3600000) / 60000;
                 long seconds = (timeLeft % 60000) / 1000;
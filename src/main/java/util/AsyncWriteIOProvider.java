@@ -3,10 +3,14 @@ package util;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.locks.ReentrantLock;
@@ -221,6 +225,26 @@ public class AsyncWriteIOProvider implements FileIOProvider {
         return future;
     }
 
+    /**
+     * Opens a channel to a file, first waiting for the writer if the file is being
+     * written to or deleted, so that the channel sees the result.
+     */
+    @Override
+    public FileChannel openChannel(File file, OpenOption... options) throws IOException {
+        if (readCache(file).isPresent()) {
+            // The writer runs in order, so everything submitted before this is done when it runs
+            try {
+                WRITER.submit(() -> {}).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to open " + file);
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+        return FileChannel.open(file.toPath(), options);
+    }
+
     @Override
     public List<File> listFiles(File directory) {
 
@@ -0,0 +1,25 @@
+package util;
+
+/**
+ * A source of the current time. Everything that depends on the time of day,
+ * rather than just measuring how long something took, should read it from a
+ * clock, so that the simulation can be run faster than real time.
+ */
+public interface Clock {
+
+    /**
+     * Returns the current time in milliseconds since the epoch.
+     *
+     * @return The current time in milliseconds.
+     */
+    long millis();
+
+    /**
+     * Returns the current value of a monotonic time source in nanoseconds.
+     * Only differences between two values are meaningful.
+     *
+     * @return The current monotonic time in nanoseconds.
+     */
+    long nanos();
+
+}
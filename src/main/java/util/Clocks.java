@@ -0,0 +1,74 @@
+package util;
+
+/**
+ * The {@code Clocks} class provides static access to the clock used
+ * throughout the program, so that the real time can be swapped out for
+ * a simulated time without threading a clock through every entity.
+ * <p>
+ * The system clock is used until another clock is set.
+ * <p>
+ * As a utility class, it is not designed to be instantiated.
+ */
+public class Clocks {
+
+    /**
+     * The current clock.
+     */
+    private static volatile Clock clock = SystemClock.INSTANCE;
+
+    /**
+     * A clock that always reads from whichever clock is currently set.
+     */
+    public static final Clock CURRENT = new Clock() {
+        @Override
+        public long millis() {
+            return clock.millis();
+        }
+
+        @Override
+        public long nanos() {
+            return clock.nanos();
+        }
+    };
+
+    /**
+     * Returns the current clock.
+     *
+     * @return the current clock
+     */
+    public static Clock get() {
+        return clock;
+    }
+
+    /**
+     * Sets the clock used throughout the program.
+     *
+     * @param clock the clock to set
+     */
+    public static void set(Clock clock) {
+        Preconditions.checkArgument(clock != null, "Clock cannot be null.");
+        Clocks.clock = clock;
+    }
+
+    /**
+     * Resets the clock back to the system clock.
+     */
+    public static void reset() {
+        clock = SystemClock.INSTANCE;
+    }
+
+    /**
+     * Returns the current time of the current clock in milliseconds since the epoch.
+     *
+     * @return the current time in milliseconds
+     */
+    public static long millis() {
+        return clock.millis();
+    }
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private Clocks() {
+    }
+}
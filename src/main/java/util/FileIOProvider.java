@@ -2,6 +2,8 @@ package util;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -55,4 +57,18 @@ public interface FileIOProvider {
      * can likely immediately be read with this IO provider.
      */
     List<File> listFiles(File directory);
+
+    /**
+     * Opens a channel to a file synchronously, for stores that append to or read parts of a
+     * file rather than writing it whole. Any write to the file still in progress through this
+     * provider completes first, so the channel sees it.
+     *
+     * @param file    The file to open.
+     * @param options The options to open the file with.
+     * @return The opened channel, which the caller must close.
+     * @throws IOException If the file cannot be opened.
+     */
+    default FileChannel openChannel(File file, OpenOption... options) throws IOException {
+        return FileChannel.open(file.toPath(), options);
+    }
 }
@@ -0,0 +1,64 @@
+package util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A clock whose time only moves when it is explicitly advanced. This allows
+ * the simulation to be run at any speed, independent of the real time.
+ */
+public class SimulatedClock implements Clock {
+
+    /**
+     * The time since the epoch that this clock started at, in milliseconds.
+     */
+    private final long startMillis;
+
+    /**
+     * The nanoseconds elapsed since this clock started.
+     */
+    private volatile long elapsedNanos = 0;
+
+    /**
+     * Constructs a new simulated clock starting at the given time.
+     *
+     * @param startMillis The time since the epoch to start at, in milliseconds.
+     */
+    public SimulatedClock(long startMillis) {
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * Advances the clock by the given amount of time.
+     *
+     * @param nanos The time to advance by, in nanoseconds.
+     * @throws IllegalArgumentException if the time is negative.
+     */
+    public synchronized void advance(long nanos) {
+        Preconditions.checkArgument(nanos >= 0, "Cannot advance a clock backwards");
+        elapsedNanos += nanos;
+    }
+
+    /**
+     * Advances the clock by the given amount of time.
+     *
+     * @param amount The amount of time to advance by.
+     * @param unit   The unit of the amount.
+     * @throws IllegalArgumentException if the time is negative.
+     */
+    public void advance(long amount, TimeUnit unit) {
+        advance(unit.toNanos(amount));
+    }
+
+    // Inherited javadoc
+    @Override
+    public long millis() {
+        return startMillis + TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    // Inherited javadoc
+    @Override
+    public long nanos() {
+        return elapsedNanos;
+    }
+
+}
@@ -0,0 +1,31 @@
+package util;
+
+/**
+ * A clock that reads the real time from the system.
+ */
+public class SystemClock implements Clock {
+
+    /**
+     * The single instance of the system clock.
+     */
+    public static final SystemClock INSTANCE = new SystemClock();
+
+    /**
+     * Private constructor, use {@link #INSTANCE}.
+     */
+    private SystemClock() {
+    }
+
+    // Inherited javadoc
+    @Override
+    public long millis() {
+        return System.currentTimeMillis();
+    }
+
+    // Inherited javadoc
+    @Override
+    public long nanos() {
+        return System.nanoTime();
+    }
+
+}
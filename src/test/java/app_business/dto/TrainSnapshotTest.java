@@ -0,0 +1,47 @@
+package app_business.dto;
+
+import entity.model.train.TrainStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TrainSnapshotTest {
+
+    @Test
+    public void testEmpty() {
+        TrainSnapshot snapshot = new TrainSnapshot();
+        Assertions.assertEquals(-1, snapshot.getVersion());
+        Assertions.assertEquals(0, snapshot.size());
+    }
+
+    @Test
+    public void testAdd() {
+        TrainSnapshot snapshot = new TrainSnapshot();
+        snapshot.reset(3, 1);
+        snapshot.add("Train 1", 1.5, 2.5, TrainStatus.UNDER_MAINTENANCE, true);
+
+        Assertions.assertEquals(3, snapshot.getVersion());
+        Assertions.assertEquals(1, snapshot.size());
+        Assertions.assertEquals("Train 1", snapshot.getName(0));
+        Assertions.assertEquals(1.5, snapshot.getX(0));
+        Assertions.assertEquals(2.5, snapshot.getY(0));
+        Assertions.assertEquals(TrainStatus.UNDER_MAINTENANCE, snapshot.getStatus(0));
+        Assertions.assertTrue(snapshot.isAtStation(0));
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> snapshot.add("Train 2", 0, 0, TrainStatus.IN_SERVICE, false));
+    }
+
+    @Test
+    public void testResetReusesArrays() {
+        TrainSnapshot snapshot = new TrainSnapshot();
+        snapshot.reset(0, 4);
+        snapshot.add("Train 1", 0, 0, TrainStatus.IN_SERVICE, false);
+        snapshot.add("Train 2", 0, 0, TrainStatus.IN_SERVICE, false);
+
+        snapshot.reset(1, 1);
+        Assertions.assertEquals(0, snapshot.size());
+        snapshot.add("Train 3", 0, 0, TrainStatus.IN_SERVICE, false);
+        Assertions.assertEquals("Train 3", snapshot.getName(0));
+    }
+
+}
@@ -73,6 +73,22 @@ public class EmployeeInteractorTest {  // Note: Tests are not necessarily run by
         Assertions.assertFalse(dto_Test_Variable_2.getAssignment().isPresent());
     }
 
+    @Test
+    public void testRegisterAgainstExistingEmployees() {
+        data.save(new Admin(1, "Grace"));
+        data.save(new TrainEngineer(7, "Hill"));
+
+        // Staff numbers continue past those already stored, rather than overwriting them
+        EmployeeInteractor continuing = new EmployeeInteractor(data, model);
+        int id = continuing.idGenerator();
+        Assertions.assertEquals(8, id);
+        continuing.registerEmployee("Juan", EmployeeType.OPERATOR, id);
+
+        Assertions.assertEquals("Grace", data.find(1).orElseThrow().getName());
+        Assertions.assertEquals("Hill", data.find(7).orElseThrow().getName());
+        Assertions.assertEquals(3, data.findAll().size());
+    }
+
     @Test
     public void testRemove() {
         Employee emp = new TrainEngineer(101, "Hill");
@@ -0,0 +1,42 @@
+package app_business.interactor;
+
+import app_business.dto.TicketDTO;
+import entity.ticket.Ticket;
+import entity.ticket.TicketType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import persistence.impl.memory.MemoryAggregateDataStore;
+import persistence.impl.memory.MemoryEntryDataStore;
+import persistence.impl.memory.MemoryTicketDataStore;
+import stats.StatDataControllerImpl;
+import stats.StatTracker;
+import stats.timing.BasicTimeIndexingStrategy;
+
+import java.util.List;
+
+public class TicketInteractorTest {
+
+    @Test
+    public void testBuyAgainstExistingTickets() {
+        MemoryTicketDataStore store = new MemoryTicketDataStore();
+        Ticket existing = new Ticket(1, TicketType.SENIOR);
+        store.save(existing);
+        store.save(new Ticket(5, TicketType.CHILD));
+
+        StatTracker stats = new StatDataControllerImpl(
+                new BasicTimeIndexingStrategy(1000), new MemoryEntryDataStore(), new MemoryAggregateDataStore()
+        );
+        TicketInteractor interactor = new TicketInteractor(store, stats);
+
+        // Ticket ids continue past those already stored, rather than overwriting them
+        List<TicketDTO> bought = interactor.buyTickets(List.of(TicketType.ADULT, TicketType.ADULT));
+        Assertions.assertEquals(6, bought.get(0).getTicketId());
+        Assertions.assertEquals(7, bought.get(1).getTicketId());
+
+        Assertions.assertEquals(TicketType.SENIOR, store.find(1).orElseThrow().getType());
+        Assertions.assertEquals(TicketType.CHILD, store.find(5).orElseThrow().getType());
+        Assertions.assertEquals(4, store.findAll().size());
+        stats.close();
+    }
+
+}
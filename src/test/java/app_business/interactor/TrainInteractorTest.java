@@ -1,8 +1,10 @@
 package app_business.interactor;
 
 import app_business.dto.TrainDTO;
+import app_business.dto.TrainSnapshot;
 import entity.model.Direction;
 import entity.model.control.TransitModel;
+import entity.model.control.builder.TransitModelBuilder;
 import entity.model.node.Node;
 import entity.model.node.line.NodeLineProfile;
 import entity.model.node.station.StationFactory;
@@ -120,11 +122,50 @@ public class TrainInteractorTest {
         Assertions.assertEquals(TrainStatus.IN_SERVICE, dto.getStatus());
 
     }
-}
-
-
-
-
-
-
 
+    @Test
+    public void testSnapshot() {
+        TransitModel model = new TransitModelBuilder()
+                .station("A", 0, 0)
+                .station("B", 300, 400)
+                .line(1, "A", "B")
+                .build();
+        TrainInteractor interactor = new TrainInteractor(model);
+
+        // Nothing published yet
+        Assertions.assertEquals(0, interactor.getSnapshot().size());
+
+        model.createTrain(model.getTrackRepo().getTrack("A-1-FORWARD").orElseThrow(), "train1", 120);
+        model.createTrain(model.getTrackRepo().getTrack("A-B-FOR-LINE-1").orElseThrow(), "train2", 120);
+        model.getTrain("train2").move(Direction.FORWARD, 100);
+
+        interactor.publishSnapshot();
+        TrainSnapshot snapshot = interactor.getSnapshot();
+
+        Assertions.assertEquals(0, snapshot.getVersion());
+        Assertions.assertEquals(2, snapshot.size());
+
+        Assertions.assertEquals("train1", snapshot.getName(0));
+        Assertions.assertTrue(snapshot.isAtStation(0));
+        Assertions.assertEquals(0, snapshot.getX(0));
+
+        // 100m along a 3-4-5 triangle
+        Assertions.assertEquals("train2", snapshot.getName(1));
+        Assertions.assertFalse(snapshot.isAtStation(1));
+        Assertions.assertEquals(60, snapshot.getX(1), 1e-9);
+        Assertions.assertEquals(80, snapshot.getY(1), 1e-9);
+        Assertions.assertEquals(TrainStatus.OUT_OF_SERVICE, snapshot.getStatus(1));
+
+        // The same snapshot is returned until another is published
+        Assertions.assertSame(snapshot, interactor.getSnapshot());
+
+        model.getTrain("train2").move(Direction.FORWARD, 100);
+        interactor.publishSnapshot();
+        interactor.publishSnapshot();
+
+        TrainSnapshot latest = interactor.getSnapshot();
+        Assertions.assertNotSame(snapshot, latest);
+        Assertions.assertEquals(2, latest.getVersion());
+        Assertions.assertEquals(120, latest.getX(1), 1e-9);
+    }
+}
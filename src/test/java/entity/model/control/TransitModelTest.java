@@ -4,6 +4,8 @@ import entity.model.Direction;
 import entity.model.train.repo.TrackRepo;
 import entity.model.node.station.Station;
 import entity.model.node.line.NodeLineProfile;
+import entity.model.control.builder.TransitModelBuilder;
+import entity.model.train.Train;
 import entity.model.train.track.TrackSegment;
 
 import org.junit.jupiter.api.Test;
@@ -12,6 +14,15 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
 
 public class TransitModelTest {
 
@@ -71,6 +82,122 @@ public class TransitModelTest {
     }
 
 
+    @Test
+    public void testTrainListIsSnapshot() {
+        TransitModel model = new TransitModelBuilder()
+                .station("A", 0, 0)
+                .station("B", 1000, 0)
+                .line(1, "A", "B")
+                .build();
+        TrackSegment track = model.getTrackRepo().getTrack("A-1-FORWARD").orElseThrow();
+
+        List<Train> before = model.getTrainList();
+        model.createTrain(track, "train1", 100);
+        List<Train> after = model.getTrainList();
+
+        Assertions.assertTrue(before.isEmpty());
+        Assertions.assertEquals(1, after.size());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> after.remove(0));
+
+        model.removeTrain("train1");
+        Assertions.assertEquals(1, after.size());
+        Assertions.assertTrue(model.getTrainList().isEmpty());
+        Assertions.assertNull(model.getTrain("train1"));
+    }
+
+    @Test
+    public void testTrainIds() {
+        TransitModel model = new TransitModelBuilder()
+                .station("A", 0, 0)
+                .station("B", 1000, 0)
+                .line(1, "A", "B")
+                .build();
+        List<TrackSegment> tracks = new ArrayList<>(model.getTrackRepo().getTracks().values());
+
+        for (int i = 0; i < 3; i++) {
+            Train train = model.createTrain(tracks.get(i), "train" + i, 100);
+            Assertions.assertEquals(i, train.getId());
+            Assertions.assertSame(train, model.getTrainById(i));
+            Assertions.assertSame(train, model.getTrain("train" + i));
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> model.createTrain(tracks.get(3), "train1", 100));
+
+        model.removeTrain("train1");
+        Assertions.assertNull(model.getTrainById(1));
+        Assertions.assertNull(model.getTrain("train1"));
+        Assertions.assertEquals(List.of("train0", "train2"),
+                model.getTrainList().stream().map(Train::getName).collect(Collectors.toList()));
+
+        // Removed ids are reused before new ones are given out
+        Train reused = model.createTrain(tracks.get(3), "train1", 100);
+        Assertions.assertEquals(1, reused.getId());
+        Assertions.assertSame(reused, model.getTrainById(1));
+        Assertions.assertNull(model.getTrainById(3));
+        Assertions.assertNull(model.getTrainById(-1));
+
+        model.clearTrains();
+        for (TrackSegment track : tracks) track.setTrain(null);
+        Assertions.assertNull(model.getTrainById(0));
+        Assertions.assertEquals(0, model.createTrain(tracks.get(0), "train0", 100).getId());
+    }
+
+    @Test
+    public void testConcurrentTrainAccess() throws Exception {
+        TransitModel model = new TransitModelBuilder()
+                .station("A", 0, 0)
+                .station("B", 1000, 0)
+                .station("C", 2000, 0)
+                .line(1, "A", "B", "C")
+                .build();
+        List<TrackSegment> tracks = new ArrayList<>(model.getTrackRepo().getTracks().values());
+
+        AtomicBoolean done = new AtomicBoolean(false);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // Readers iterate the trains the way the controllers and view models do
+            List<Future<?>> readers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                readers.add(executor.submit(() -> {
+                    while (!done.get()) {
+                        for (Train train : model.getTrainList()) {
+                            Assertions.assertNotNull(train.getPosition());
+                            Assertions.assertNotNull(train.getStatus());
+                        }
+                        model.getTrain("Train 0");
+                    }
+                    return null;
+                }));
+            }
+
+            // Meanwhile the simulation keeps recreating and moving the trains
+            for (int round = 0; round < 200; round++) {
+                model.clearTrains();
+                for (TrackSegment track : tracks) track.setTrain(null);
+
+                for (int i = 0; i < tracks.size(); i += 2) {
+                    model.createTrain(tracks.get(i), "Train " + i, 100);
+                }
+                for (Train train : model.getTrainList()) {
+                    train.move(Direction.FORWARD, 10);
+                }
+                model.removeTrain("Train 0");
+            }
+
+            done.set(true);
+            for (Future<?> reader : readers) {
+                reader.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            done.set(true);
+            executor.shutdownNow();
+        }
+
+        Assertions.assertNull(model.getTrain("Train 0"));
+        Assertions.assertEquals((tracks.size() + 1) / 2 - 1, model.getTrainList().size());
+    }
+
     @DisplayName("TransitModelTest Class Teardown")
     @AfterAll
     public static void teardown() {
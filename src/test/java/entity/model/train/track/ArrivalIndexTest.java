@@ -0,0 +1,110 @@
+package entity.model.train.track;
+
+import entity.model.Direction;
+import entity.model.control.TransitModel;
+import entity.model.control.builder.TransitModelBuilder;
+import entity.model.node.Node;
+import entity.model.node.line.NodeLineProfile;
+import entity.model.node.line.TrainArrival;
+import entity.model.train.Train;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+public class ArrivalIndexTest {
+
+    private static final List<String> STARTS = List.of("A-B-FOR-LINE-1", "B-C-FOR-LINE-1", "C-D-BACK-LINE-1");
+
+    private static TransitModel buildModel() {
+        TransitModel model = new TransitModelBuilder()
+                .station("A", 0, 0)
+                .station("B", 300, 0)
+                .station("C", 300, 400)
+                .station("D", 0, 400)
+                .line(1, "A", "B", "C", "D")
+                .build();
+
+        for (int i = 0; i < STARTS.size(); i++) {
+            model.createTrain(model.getTrackRepo().getTrack(STARTS.get(i)).orElseThrow(), "Train " + i, 10);
+        }
+
+        return model;
+    }
+
+    @Test
+    public void testIncoming() {
+        TransitModel model = buildModel();
+        TrackSegment b = model.getNode("B").orElseThrow()
+                .getLineProfiles().iterator().next()
+                .getTrack(Direction.FORWARD);
+
+        ArrivalIndex index = b.getLoop().getArrivalIndex();
+        TrackSegment incoming = b.getLoop().getSegment(index.incoming(b.getLoopIndex()));
+        Assertions.assertEquals("A-B-FOR-LINE-1", incoming.getId());
+
+        // Once the train passes B, the next train behind it is on the backward tracks
+        model.getTrain("Train 0").move(Direction.FORWARD, 350);
+        incoming = b.getLoop().getSegment(index.incoming(b.getLoopIndex()));
+        Assertions.assertEquals("C-D-BACK-LINE-1", incoming.getId());
+    }
+
+    @Test
+    public void testMatchesWalkingSegments() {
+        TransitModel indexed = buildModel();
+        TransitModel walked = buildModel();
+
+        // Relink a segment so that the walked model falls back to walking the segments
+        TrackSegment segment = walked.getTrackRepo().getTracks().values().iterator().next();
+        TrackSegment next = segment.getNext();
+        TrackSegment.unlink(segment, next);
+        TrackSegment.link(segment, next);
+
+        Random random = new Random(7);
+        for (int step = 0; step < 1000; step++) {
+            String name = "Train " + random.nextInt(STARTS.size());
+            double amount = random.nextDouble() * 120;
+            indexed.getTrain(name).move(Direction.FORWARD, amount);
+            walked.getTrain(name).move(Direction.FORWARD, amount);
+
+            for (Node node : indexed.getNodes().values()) {
+                NodeLineProfile indexedProfile = node.getLineProfiles().iterator().next();
+                NodeLineProfile walkedProfile = walked.getNode(node.getName()).orElseThrow()
+                        .getLineProfiles().iterator().next();
+
+                for (Direction direction : Direction.values()) {
+                    List<TrainArrival> expected = walkedProfile.nextArrivals(direction, 3);
+                    List<TrainArrival> actual = indexedProfile.nextArrivals(direction, 3);
+
+                    Assertions.assertEquals(expected.size(), actual.size());
+                    for (int i = 0; i < expected.size(); i++) {
+                        Assertions.assertEquals(expected.get(i).getTrain().getName(), actual.get(i).getTrain().getName());
+                        Assertions.assertEquals(expected.get(i).getDelay(), actual.get(i).getDelay(), 1);
+                    }
+
+                    Assertions.assertEquals(walkedProfile.getNextNode(direction).map(Node::getName),
+                            indexedProfile.getNextNode(direction).map(Node::getName));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSingleTrain() {
+        TransitModel model = new TransitModelBuilder()
+                .station("A", 0, 0)
+                .station("B", 300, 0)
+                .line(1, "A", "B")
+                .build();
+
+        NodeLineProfile profile = model.getNode("A").orElseThrow().getLineProfiles().iterator().next();
+        Train train = model.createTrain(profile.getTrack(Direction.FORWARD), "Train", 10);
+
+        // The train is at the station, so it arrives again after a full loop
+        List<TrainArrival> arrivals = profile.nextArrivals(Direction.FORWARD, 3);
+        Assertions.assertEquals(1, arrivals.size());
+        Assertions.assertSame(train, arrivals.get(0).getTrain());
+    }
+
+}
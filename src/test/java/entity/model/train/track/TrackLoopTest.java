@@ -0,0 +1,127 @@
+package entity.model.train.track;
+
+import entity.model.Direction;
+import entity.model.control.TransitModel;
+import entity.model.control.builder.TransitModelBuilder;
+import entity.model.train.Train;
+import entity.model.train.repo.impl.MemoryTrackRepo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+public class TrackLoopTest {
+
+    private static TransitModel buildModel() {
+        return new TransitModelBuilder()
+                .station("A", 0, 0)
+                .station("B", 300, 0)
+                .station("C", 300, 400)
+                .station("D", 0, 400)
+                .line(1, "A", "B", "C", "D")
+                .build();
+    }
+
+    /**
+     * Relinks a segment so that the compiled loop is invalidated, and the
+     * model falls back to walking the segments.
+     */
+    private static void invalidate(TransitModel model) {
+        TrackSegment segment = model.getTrackRepo().getTracks().values().iterator().next();
+        TrackSegment next = segment.getNext();
+        TrackSegment.unlink(segment, next);
+        TrackSegment.link(segment, next);
+    }
+
+    @Test
+    public void testCompiledByBuilder() {
+        TransitModel model = buildModel();
+        TrackSegment segment = model.getTrackRepo().getTracks().values().iterator().next();
+
+        TrackLoop loop = segment.getLoop();
+        Assertions.assertNotNull(loop);
+        Assertions.assertTrue(loop.isCyclic());
+        Assertions.assertEquals(model.getTrackRepo().getTracks().size(), loop.size());
+        Assertions.assertSame(segment, loop.getSegment(segment.getLoopIndex()));
+    }
+
+    @Test
+    public void testRelinkInvalidates() {
+        TransitModel model = buildModel();
+        TrackSegment segment = model.getTrackRepo().getTracks().values().iterator().next();
+        TrackLoop loop = segment.getLoop();
+
+        invalidate(model);
+
+        Assertions.assertFalse(loop.isValid());
+        Assertions.assertNull(segment.getLoop());
+
+        model.compileTrackLoops();
+        Assertions.assertNotNull(segment.getLoop());
+    }
+
+    @Test
+    public void testNonCyclic() {
+        MemoryTrackRepo repo = new MemoryTrackRepo();
+        TrackSegment a = new TrackSegment(repo, "a", 10);
+        TrackSegment b = new TrackSegment(repo, "b", 20);
+        TrackSegment c = new TrackSegment(repo, "c", 30);
+        a.linkForward(b);
+        b.linkForward(c);
+
+        TrackLoop loop = TrackLoop.compile(List.of(b)).get(0);
+        Assertions.assertFalse(loop.isCyclic());
+        Assertions.assertEquals(60, loop.getLength());
+        Assertions.assertEquals(0, a.getLoopIndex());
+        Assertions.assertEquals(2, c.getLoopIndex());
+
+        Assertions.assertEquals(0, loop.indexOf(0));
+        Assertions.assertEquals(1, loop.indexOf(10));
+        Assertions.assertEquals(2, loop.indexOf(59.9));
+
+        Assertions.assertEquals(2, loop.moveIndex(0, 5, 30, false));
+        Assertions.assertEquals(5, loop.movePosition(0, 5, 30, 2));
+        Assertions.assertEquals(-1, loop.moveIndex(0, 5, 60, false));
+        Assertions.assertEquals(-1, loop.moveIndex(1, 5, -20, false));
+    }
+
+    @Test
+    public void testMatchesWalkingSegments() {
+        TransitModel compiled = buildModel();
+        TransitModel walked = buildModel();
+        invalidate(walked);
+
+        List<String> starts = List.of("A-B-FOR-LINE-1", "C-D-BACK-LINE-1");
+        for (int i = 0; i < starts.size(); i++) {
+            String name = "Train " + i;
+            compiled.createTrain(compiled.getTrackRepo().getTrack(starts.get(i)).orElseThrow(), name, 10);
+            walked.createTrain(walked.getTrackRepo().getTrack(starts.get(i)).orElseThrow(), name, 10);
+        }
+
+        Random random = new Random(42);
+        for (int step = 0; step < 2000; step++) {
+            String name = "Train " + random.nextInt(starts.size());
+            double amount = random.nextDouble() * 250;
+
+            Train compiledTrain = compiled.getTrain(name);
+            Train walkedTrain = walked.getTrain(name);
+
+            compiledTrain.move(Direction.FORWARD, amount);
+            walkedTrain.move(Direction.FORWARD, amount);
+
+            Assertions.assertEquals(walkedTrain.getPosition().getTrack().getId(),
+                    compiledTrain.getPosition().getTrack().getId());
+            Assertions.assertEquals(walkedTrain.getPosition().getPositionOnTrack(),
+                    compiledTrain.getPosition().getPositionOnTrack(), 1e-6);
+
+            for (Direction direction : Direction.values()) {
+                Assertions.assertEquals(walkedTrain.getNextNode(direction).orElseThrow().getName(),
+                        compiledTrain.getNextNode(direction).orElseThrow().getName());
+                Assertions.assertEquals(walkedTrain.getDistanceToNextNode(direction).orElseThrow(),
+                        compiledTrain.getDistanceToNextNode(direction).orElseThrow(), 1e-6);
+            }
+        }
+    }
+
+}
@@ -1,8 +1,11 @@
 package entity.ticket;
 
 import org.junit.jupiter.api.*;
+import util.Clocks;
+import util.SimulatedClock;
 
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 public class TicketTest {
     Ticket ticket;
@@ -113,5 +116,23 @@ public class TicketTest {
         Assertions.assertEquals(ticket, ticket2);
         Assertions.assertEquals(ticket2, ticket);
     }
-}
 
+    @Test
+    public void testExpiryFollowsClock() {
+        SimulatedClock clock = new SimulatedClock(1000);
+        Clocks.set(clock);
+        try {
+            ticket = new Ticket(TicketType.ADULT);
+            Assertions.assertEquals(1000, ticket.getCreatedAt());
+
+            ticket.activate();
+            Assertions.assertEquals(1000 + TicketType.ADULT.getLifetime(), ticket.getExpiry());
+            Assertions.assertFalse(ticket.isExpired());
+
+            clock.advance(TicketType.ADULT.getLifetime() + 1, TimeUnit.MILLISECONDS);
+            Assertions.assertTrue(ticket.isExpired());
+        } finally {
+            Clocks.reset();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package interface_adapter.controller;
 
 import app_business.boundary.ITrainInteractor;
 import app_business.dto.TrainDTO;
+import app_business.dto.TrainSnapshot;
 
 import java.util.List;
 import java.util.Optional;
@@ -83,6 +84,15 @@ public class TrainControllerTest {
             maintenanceUpdated = true;  // Only record that the method was called
         }
 
+        @Override
+        public void publishSnapshot() {
+        }
+
+        @Override
+        public TrainSnapshot getSnapshot() {
+            return new TrainSnapshot();
+        }
+
         public boolean wasMaintenanceUpdated() {
             return maintenanceUpdated;
         }
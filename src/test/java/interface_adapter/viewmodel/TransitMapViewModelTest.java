@@ -3,6 +3,8 @@ package interface_adapter.viewmodel;
 import app_business.boundary.IStationInteractor;
 import app_business.boundary.ITrainInteractor;
 import app_business.dto.StationDTO;
+import app_business.dto.TrainSnapshot;
+import entity.model.train.TrainStatus;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -32,13 +34,33 @@ class TransitMapViewModelTest {
         Graphics2D graphics = mock(Graphics2D.class);
         StationDTO station = new StationDTO("Station A", List.of(1), 1000, 1000); // Corrected here
         when(stationInteractor.getStations()).thenReturn(List.of(station));
-        when(trainInteractor.getTrains()).thenReturn(List.of());
+        when(trainInteractor.getSnapshot()).thenReturn(new TrainSnapshot());
         viewModel.present(graphics, 1920, 1080);
+        viewModel.present(graphics, 1920, 1080);
+        // Stations are only loaded once, and trains only ever come from the snapshot
         verify(stationInteractor, times(1)).getStations();
-        verify(trainInteractor, times(1)).getTrains();
+        verify(trainInteractor, times(2)).getSnapshot();
+        verify(trainInteractor, never()).getTrains();
         // Additional graphics verifications can be added here
     }
 
+    @Test
+    void testPresentTrains() {
+        Graphics2D graphics = mock(Graphics2D.class);
+        when(stationInteractor.getStations()).thenReturn(List.of());
+
+        TrainSnapshot snapshot = new TrainSnapshot();
+        snapshot.reset(0, 2);
+        snapshot.add("Train 1", 6150, 4500, TrainStatus.IN_SERVICE, true);
+        snapshot.add("Train 2", 0, 0, TrainStatus.IN_SERVICE, false);
+        when(trainInteractor.getSnapshot()).thenReturn(snapshot);
+
+        viewModel.present(graphics, 615, 450);
+
+        verify(graphics).drawString("Train 1", 615 + 5, 450 - 5);
+        verify(graphics).drawString("Train 2", 6, -6);
+    }
+
 
     @Test
     void testGetArrivalsWithoutStation() {
@@ -2,6 +2,8 @@ package main.pool;
 
 import app_business.interactor.*;
 import org.junit.jupiter.api.*;
+import persistence.impl.memory.MemoryEmployeeDataStore;
+import persistence.impl.memory.MemoryTicketDataStore;
 
 /**
  * The InteractorPoolTest class contains tests for the InteractorPool class. A test for a data class.
@@ -19,8 +21,9 @@ public class InteractorPoolTest {
     static void setup() {
         stationInteractor = new StationInteractor(null);  // the object signature is enough, we don't need params
         trainInteractor = new TrainInteractor(null);
-        ticketInteractor = new TicketInteractor(null, null);
-        employeeInteractor = new EmployeeInteractor(null, null);
+        // The stores are read to number new records, so they can't be null
+        ticketInteractor = new TicketInteractor(new MemoryTicketDataStore(), null);
+        employeeInteractor = new EmployeeInteractor(new MemoryEmployeeDataStore(), null);
         statsInteractor = new StatInteractor(null);
 
         interactorPool = new InteractorPool(stationInteractor, trainInteractor, ticketInteractor ,employeeInteractor, statsInteractor);
@@ -0,0 +1,61 @@
+package persistence;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiryIndexTest {
+
+    @Test
+    void pollExpiredInOrder() {
+        ExpiryIndex index = new ExpiryIndex();
+        index.update(1, 300);
+        index.update(2, 100);
+        index.update(3, 200);
+        index.update(4, Long.MAX_VALUE);
+
+        assertArrayEquals(new int[0], index.pollExpired(100));
+        assertArrayEquals(new int[]{2, 3}, index.pollExpired(250));
+        assertEquals(2, index.size());
+
+        // Expired ids are only returned once
+        assertArrayEquals(new int[]{1}, index.pollExpired(1000));
+        assertArrayEquals(new int[0], index.pollExpired(1000));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void skipStaleEntries() {
+        ExpiryIndex index = new ExpiryIndex();
+        index.update(1, 100);
+        index.update(2, 100);
+
+        // Moving a deadline later or removing an id leaves a stale entry behind
+        index.update(1, 500);
+        index.remove(2);
+        assertArrayEquals(new int[0], index.pollExpired(200));
+
+        // Moving a deadline earlier takes effect immediately
+        index.update(1, 50);
+        assertArrayEquals(new int[]{1}, index.pollExpired(200));
+        assertArrayEquals(new int[0], index.pollExpired(1000));
+    }
+
+    @Test
+    void compactStaleEntries() {
+        ExpiryIndex index = new ExpiryIndex();
+        for (int i = 0; i < 1000; i++) {
+            index.update(i % 10, i);
+        }
+        assertEquals(10, index.size());
+
+        int[] expired = index.pollExpired(Long.MAX_VALUE);
+        assertEquals(10, expired.length);
+        assertEquals(0, expired[0]);
+
+        index.update(1, 10);
+        index.clear();
+        assertArrayEquals(new int[0], index.pollExpired(Long.MAX_VALUE));
+    }
+
+}
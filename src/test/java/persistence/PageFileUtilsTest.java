@@ -0,0 +1,87 @@
+package persistence;
+
+import org.junit.jupiter.api.Test;
+import persistence.codec.ListCodec;
+import persistence.codec.SerializableCodec;
+import persistence.codec.ValueCodec;
+import persistence.codec.ValueCodecs;
+import persistence.codec.VarInts;
+import stats.aggregate.ExpenseAggregate;
+import stats.entry.impl.expense.MaintenanceStat;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageFileUtilsTest {
+
+    private static Map<Long, ExpenseAggregate> aggregates() {
+        Map<Long, ExpenseAggregate> map = new HashMap<>();
+        map.put(-3L, new ExpenseAggregate(1.5));
+        map.put(0L, new ExpenseAggregate(2.5));
+        map.put(255L, new ExpenseAggregate(-4.0));
+        map.put(1L << 40, new ExpenseAggregate(8.0));
+        return map;
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        ValueCodec<ExpenseAggregate> codec = ValueCodecs.forClass(ExpenseAggregate.class);
+        Map<Long, ExpenseAggregate> map = aggregates();
+
+        byte[] bytes = PageFileUtils.encode(map, codec);
+        assertEquals(map, PageFileUtils.decode(bytes, codec, ExpenseAggregate.class::cast));
+
+        // Much smaller than a serialization stream
+        assertTrue(bytes.length * 2 < PageFileUtils.encodeLegacy(map).length);
+    }
+
+    @Test
+    void readLegacy() throws IOException {
+        Map<Long, ExpenseAggregate> map = aggregates();
+        byte[] legacy = PageFileUtils.encodeLegacy(map);
+
+        ValueCodec<ExpenseAggregate> codec = ValueCodecs.forClass(ExpenseAggregate.class);
+        assertEquals(map, PageFileUtils.decode(legacy, codec, ExpenseAggregate.class::cast));
+    }
+
+    @Test
+    void readSerializedAfterCodecRegistered() throws IOException {
+        Map<Long, ExpenseAggregate> map = aggregates();
+        byte[] bytes = PageFileUtils.encode(map, new SerializableCodec<>(ExpenseAggregate.class));
+
+        ValueCodec<ExpenseAggregate> codec = ValueCodecs.forClass(ExpenseAggregate.class);
+        assertEquals(map, PageFileUtils.decode(bytes, codec, ExpenseAggregate.class::cast));
+    }
+
+    @Test
+    void rejectOtherCodec() throws IOException {
+        Map<Long, ExpenseAggregate> map = aggregates();
+        byte[] bytes = PageFileUtils.encode(map, ValueCodecs.forClass(ExpenseAggregate.class));
+
+        ListCodec<MaintenanceStat> other = new ListCodec<>(ValueCodecs.forClass(MaintenanceStat.class));
+        assertThrows(IOException.class, () -> PageFileUtils.decode(bytes, other, o -> null));
+    }
+
+    @Test
+    void varInts() throws IOException {
+        long[] values = {0, 1, -1, 63, -64, 127, 128, Long.MAX_VALUE, Long.MIN_VALUE};
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (long value : values) {
+            VarInts.writeSigned(out, value);
+        }
+        VarInts.writeUnsigned(out, 127);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (long value : values) {
+            assertEquals(value, VarInts.readSigned(in));
+        }
+        assertEquals(127, VarInts.readUnsigned(in));
+        assertEquals(0, in.available());
+    }
+
+}
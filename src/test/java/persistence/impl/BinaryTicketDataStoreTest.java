@@ -0,0 +1,229 @@
+package persistence.impl;
+
+import entity.ticket.Ticket;
+import entity.ticket.TicketType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.impl.file.BinaryTicketDataStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryTicketDataStoreTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void saveAndFind() throws IOException {
+        File file = new File(directory, "tickets.dat");
+        BinaryTicketDataStore store = new BinaryTicketDataStore(file);
+
+        Ticket ticket = new Ticket(1, TicketType.STUDENT);
+        ticket.activate();
+        store.save(ticket);
+        store.save(new Ticket(2, TicketType.CHILD));
+
+        Ticket copy = store.find(1).orElseThrow();
+        assertEquals(ticket.getType(), copy.getType());
+        assertEquals(ticket.isActivated(), copy.isActivated());
+        assertEquals(ticket.getExpiry(), copy.getExpiry());
+        assertEquals(ticket.getCreatedAt(), copy.getCreatedAt());
+        assertTrue(store.existsById(2));
+        assertFalse(store.find(3).isPresent());
+        assertEquals(2, store.findAll().size());
+        store.close();
+
+        // The tickets survive reopening
+        BinaryTicketDataStore reopened = new BinaryTicketDataStore(file);
+        assertEquals(TicketType.CHILD, reopened.find(2).orElseThrow().getType());
+        assertEquals(ticket.getExpiry(), reopened.find(1).orElseThrow().getExpiry());
+        reopened.close();
+    }
+
+    @Test
+    void reuseDeletedSlots() throws IOException {
+        BinaryTicketDataStore store = new BinaryTicketDataStore(new File(directory, "tickets.dat"));
+        for (int id = 0; id < 100; id++) {
+            store.save(new Ticket(id, TicketType.ADULT));
+        }
+
+        for (int id = 0; id < 100; id += 2) {
+            store.delete(id);
+        }
+        assertFalse(store.existsById(50));
+        assertTrue(store.existsById(51));
+        assertEquals(50, store.findAll().size());
+
+        for (int id = 100; id < 150; id++) {
+            store.save(new Ticket(id, TicketType.SENIOR));
+        }
+        assertEquals(100, store.findAll().size());
+
+        // Updating a ticket moves it to a free slot, and frees the old one
+        Ticket updated = new Ticket(51, TicketType.ADULT);
+        updated.setActivated(true);
+        store.save(updated);
+        assertTrue(store.find(51).orElseThrow().isActivated());
+        assertTrue(store.getSlotCount() <= 101);
+
+        store.deleteAll();
+        assertTrue(store.findAll().isEmpty());
+        assertFalse(store.existsById(51));
+        store.close();
+    }
+
+    @Test
+    void saveAll() throws IOException {
+        File file = new File(directory, "tickets.dat");
+        BinaryTicketDataStore store = new BinaryTicketDataStore(file);
+        for (int id = 0; id < 10; id++) {
+            store.save(new Ticket(id, TicketType.ADULT));
+        }
+        store.delete(3);
+        store.delete(7);
+
+        // Fills the free slots, updates a ticket, and appends the rest
+        List<Ticket> batch = new ArrayList<>();
+        for (int id = 100; id < 120; id++) {
+            batch.add(new Ticket(id, TicketType.CHILD));
+        }
+        Ticket updated = new Ticket(5, TicketType.ADULT);
+        updated.setActivated(true);
+        batch.add(updated);
+        batch.add(new Ticket(100, TicketType.SENIOR));
+        store.saveAll(batch);
+
+        assertEquals(28, store.findAll().size());
+        assertEquals(TicketType.SENIOR, store.find(100).orElseThrow().getType());
+        assertTrue(store.find(5).orElseThrow().isActivated());
+        assertEquals(29, store.getSlotCount());
+        assertEquals(1, store.getFreeSlotCount());
+        store.close();
+
+        BinaryTicketDataStore reopened = new BinaryTicketDataStore(file);
+        assertEquals(28, reopened.findAll().size());
+        assertTrue(reopened.find(5).orElseThrow().isActivated());
+        assertEquals(TicketType.CHILD, reopened.find(119).orElseThrow().getType());
+        reopened.close();
+    }
+
+    @Test
+    void saveAllFailure() throws IOException {
+        File file = new File(directory, "tickets.dat");
+        BinaryTicketDataStore store = new BinaryTicketDataStore(file);
+        for (int id = 0; id < 10; id++) {
+            store.save(new Ticket(id, TicketType.ADULT));
+        }
+        store.delete(3);
+        store.delete(7);
+
+        // The free slots are written before encoding the ticket without a type fails
+        List<Ticket> batch = new ArrayList<>();
+        for (int id = 100; id < 104; id++) {
+            batch.add(new Ticket(id, TicketType.CHILD));
+        }
+        batch.add(new Ticket(104, null));
+        assertThrows(NullPointerException.class, () -> store.saveAll(batch));
+
+        assertFalse(store.existsById(100));
+        assertEquals(8, store.findAll().size());
+        assertEquals(10, store.getSlotCount());
+        assertEquals(2, store.getFreeSlotCount());
+        store.close();
+
+        // None of the records written before the failure come back
+        BinaryTicketDataStore reopened = new BinaryTicketDataStore(file);
+        assertEquals(8, reopened.findAll().size());
+        assertFalse(reopened.existsById(100));
+        assertFalse(reopened.existsById(101));
+        assertEquals(10, reopened.getSlotCount());
+        reopened.close();
+    }
+
+    @Test
+    void groupCommit() throws Exception {
+        File file = new File(directory, "tickets.dat");
+        BinaryTicketDataStore store = new BinaryTicketDataStore(file);
+
+        // Saves made one after another are committed one at a time
+        store.save(new Ticket(0, TicketType.ADULT));
+        store.saveAll(List.of(new Ticket(1, TicketType.ADULT), new Ticket(2, TicketType.ADULT)));
+        assertEquals(2, store.getCommitCount());
+
+        // Saves made at the same time may share a commit, and none are lost
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int first = 1000 * (t + 1);
+            threads[t] = new Thread(() -> {
+                for (int id = first; id < first + 200; id++) {
+                    store.save(new Ticket(id, TicketType.CHILD));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1603, store.findAll().size());
+        assertTrue(store.getCommitCount() <= 1602);
+        store.close();
+
+        BinaryTicketDataStore reopened = new BinaryTicketDataStore(file);
+        assertEquals(1603, reopened.findAll().size());
+        assertEquals(TicketType.CHILD, reopened.find(8199).orElseThrow().getType());
+        reopened.close();
+    }
+
+    @Test
+    void cleanExpiredTickets() throws IOException {
+        BinaryTicketDataStore store = new BinaryTicketDataStore(new File(directory, "tickets.dat"));
+
+        Ticket expired = new Ticket(10, TicketType.CHILD);
+        expired.setExpiry(System.currentTimeMillis() - 1000);
+        expired.setActivated(true);
+        store.save(expired);
+        store.save(new Ticket(11, TicketType.CHILD));
+
+        store.cleanExpiredTickets();
+
+        assertFalse(store.find(10).isPresent());
+        assertTrue(store.find(11).isPresent());
+        store.close();
+    }
+
+    @Test
+    void recoverFromTornWrites() throws IOException {
+        File file = new File(directory, "tickets.dat");
+        BinaryTicketDataStore store = new BinaryTicketDataStore(file);
+        store.save(new Ticket(1, TicketType.ADULT));
+        store.save(new Ticket(2, TicketType.ADULT));
+        store.close();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long length = raf.length();
+
+            // Corrupt the second record, and leave half a record at the end
+            raf.seek(length - 40);
+            raf.writeByte(0x7F);
+            raf.setLength(length + 20);
+        }
+
+        BinaryTicketDataStore recovered = new BinaryTicketDataStore(file);
+        assertTrue(recovered.existsById(1));
+        assertFalse(recovered.existsById(2));
+        assertEquals(1, recovered.getFreeSlotCount());
+
+        recovered.save(new Ticket(3, TicketType.SENIOR));
+        assertEquals(2, recovered.getSlotCount());
+        assertEquals(2, recovered.findAll().size());
+        recovered.close();
+    }
+
+}
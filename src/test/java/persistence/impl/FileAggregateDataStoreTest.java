@@ -17,7 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class FileAggregateDataStoreTest {
 
@@ -93,4 +93,44 @@ public class FileAggregateDataStoreTest {
         assertEquals(expectedAggregates, retrievedAggregates);
     }
 
+    @Test
+    public void testPollingHitsCache() {
+        fileAggregateDataStore.store(1, ElectricityUsageStat.class, ExpenseAggregate.class, new ExpenseAggregate(1));
+        long misses = fileAggregateDataStore.getMisses();
+
+        for (int i = 0; i < 10; i++) {
+            fileAggregateDataStore.retrieve(0, 255, ElectricityUsageStat.class, ExpenseAggregate.class);
+        }
+
+        assertEquals(misses, fileAggregateDataStore.getMisses());
+        assertEquals(10, fileAggregateDataStore.getHits());
+    }
+
+    @Test
+    public void testWriteBackOnFlush() {
+        File file = new File(BASE_PATH, "ElectricityUsageStat-ExpenseAggregate-0");
+
+        fileAggregateDataStore.store(1, ElectricityUsageStat.class, ExpenseAggregate.class, new ExpenseAggregate(1));
+        assertFalse(DataStorage.getIO().exists(file));
+
+        fileAggregateDataStore.flush();
+        assertTrue(DataStorage.getIO().exists(file));
+
+        FileAggregateDataStore reopened = new FileAggregateDataStore(BASE_PATH);
+        assertEquals(Map.of(1L, new ExpenseAggregate(1)),
+                reopened.retrieve(0, 10, ElectricityUsageStat.class, ExpenseAggregate.class));
+    }
+
+    @Test
+    public void testWriteBackOnEviction() {
+        FileAggregateDataStore store = new FileAggregateDataStore(BASE_PATH, 1);
+
+        store.store(1, ElectricityUsageStat.class, ExpenseAggregate.class, new ExpenseAggregate(1));
+        store.store(300, ElectricityUsageStat.class, ExpenseAggregate.class, new ExpenseAggregate(2));
+        assertTrue(DataStorage.getIO().exists(new File(BASE_PATH, "ElectricityUsageStat-ExpenseAggregate-0")));
+
+        assertEquals(Map.of(1L, new ExpenseAggregate(1), 300L, new ExpenseAggregate(2)),
+                store.retrieve(0, 511, ElectricityUsageStat.class, ExpenseAggregate.class));
+    }
+
 }
@@ -0,0 +1,65 @@
+package persistence.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.DataStorage;
+import persistence.impl.file.FileEntryDataStore;
+import stats.entry.impl.expense.ElectricityUsageStat;
+import stats.entry.impl.expense.ExpenseStat;
+import stats.entry.impl.expense.MaintenanceStat;
+import util.AsyncWriteIOProvider;
+import util.DeflateCompressionProvider;
+
+import java.io.File;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileEntryDataStoreTest {
+
+    @TempDir
+    File directory;
+
+    @BeforeEach
+    void setUp() {
+        DataStorage.init(
+                new AsyncWriteIOProvider(),
+                new DeflateCompressionProvider()
+        );
+    }
+
+    @Test
+    void retrieveAllAcrossPages() {
+        FileEntryDataStore store = new FileEntryDataStore(directory);
+
+        store.storeAll(MaintenanceStat.class, Map.of(
+                10L, List.of(new MaintenanceStat(1)),
+                70L, List.of(new MaintenanceStat(2))
+        )).join();
+        store.storeAll(ElectricityUsageStat.class, Map.of(
+                10L, List.of(new ElectricityUsageStat(3)),
+                200L, List.of(new ElectricityUsageStat(4))
+        )).join();
+
+        // Every index from 0 to 255 except 70
+        BitSet indices = new BitSet();
+        indices.set(0, 256);
+        indices.clear(70);
+
+        Map<Long, List<ExpenseStat>> result = store.retrieveAll(0, indices,
+                List.of(MaintenanceStat.class, ElectricityUsageStat.class), ExpenseStat.class);
+
+        assertEquals(2, result.size());
+        assertEquals(4.0, result.get(10L).stream().mapToDouble(ExpenseStat::getExpense).sum());
+        assertEquals(4.0, result.get(200L).get(0).getExpense());
+
+        // The indices are offsets from the base index
+        BitSet one = new BitSet();
+        one.set(0);
+        assertEquals(1, store.retrieveAll(70, one, List.of(MaintenanceStat.class), ExpenseStat.class).size());
+    }
+
+}
@@ -0,0 +1,80 @@
+package persistence.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.impl.file.FileIdAllocator;
+import persistence.impl.memory.MemoryIdAllocator;
+
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileIdAllocatorTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void increasingFromFloor() {
+        FileIdAllocator ids = new FileIdAllocator(new File(directory, "ids"), 500, 8);
+
+        int last = ids.nextId();
+        assertEquals(500, last);
+        for (int i = 0; i < 100; i++) {
+            int id = ids.nextId();
+            assertEquals(last + 1, id);
+            last = id;
+        }
+    }
+
+    @Test
+    void continueAfterRestart() {
+        File file = new File(directory, "ids");
+        FileIdAllocator ids = new FileIdAllocator(file, 1, 10);
+        int last = 0;
+        for (int i = 0; i < 15; i++) {
+            last = ids.nextId();
+        }
+
+        // The rest of the leased block is skipped, rather than handed out again
+        FileIdAllocator restarted = new FileIdAllocator(file, 1, 10);
+        int id = restarted.nextId();
+        assertTrue(id > last);
+        assertEquals(21, id);
+
+        // A floor above the leased range wins
+        assertEquals(1000, new FileIdAllocator(file, 1000, 10).nextId());
+    }
+
+    @Test
+    void uniqueAcrossThreads() throws InterruptedException {
+        FileIdAllocator ids = new FileIdAllocator(new File(directory, "ids"), 1, 16);
+        Set<Integer> seen = ConcurrentHashMap.newKeySet();
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    assertTrue(seen.add(ids.nextId()));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(4000, seen.size());
+        assertEquals(4001, ids.nextId());
+    }
+
+    @Test
+    void memoryAllocator() {
+        MemoryIdAllocator ids = new MemoryIdAllocator(Integer.MAX_VALUE - 1);
+        assertEquals(Integer.MAX_VALUE - 1, ids.nextId());
+        assertThrows(IllegalStateException.class, ids::nextId);
+    }
+
+}
@@ -114,6 +114,20 @@ class JsonTicketDataStoreTest {
         assertFalse(data.find(10).isPresent());
     }
 
+    @Test
+    void cleanTicketsSavedBeforeOpening() {
+        Ticket expired = new Ticket(11, TicketType.CHILD);
+        expired.setExpiry(System.currentTimeMillis() - 1000);
+        expired.setActivated(true);
+        data.save(expired);
+
+        // A store opened on the same directory indexes the tickets already in it
+        TicketDataStore reopened = new JsonTicketDataStore(new File("test-tickets"));
+        reopened.cleanExpiredTickets();
+
+        assertFalse(reopened.find(11).isPresent());
+    }
+
     @Test
     public void testDelete() {
         Ticket ticket = new Ticket(1, TicketType.ADULT);
@@ -0,0 +1,165 @@
+package persistence.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.DataStorage;
+import persistence.impl.file.FileEntryDataStore;
+import persistence.impl.file.LogEntryDataStore;
+import stats.entry.StatEntry;
+import stats.entry.impl.expense.ElectricityUsageStat;
+import stats.entry.impl.expense.ExpenseStat;
+import stats.entry.impl.expense.MaintenanceStat;
+import util.AsyncWriteIOProvider;
+import util.DeflateCompressionProvider;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogEntryDataStoreTest {
+
+    @TempDir
+    File directory;
+
+    @BeforeEach
+    void setUp() {
+        DataStorage.init(
+                new AsyncWriteIOProvider(),
+                new DeflateCompressionProvider()
+        );
+    }
+
+    private static List<MaintenanceStat> stats(double... costs) {
+        MaintenanceStat[] stats = new MaintenanceStat[costs.length];
+        for (int i = 0; i < costs.length; i++) {
+            stats[i] = new MaintenanceStat(costs[i]);
+        }
+        return List.of(stats);
+    }
+
+    private static double total(List<? extends MaintenanceStat> stats) {
+        return stats.stream().mapToDouble(MaintenanceStat::getExpense).sum();
+    }
+
+    private File[] segments() {
+        return Objects.requireNonNull(new File(directory, "log").listFiles());
+    }
+
+    @Test
+    void storeAndRetrieve() {
+        LogEntryDataStore store = new LogEntryDataStore(directory);
+
+        store.store(1, MaintenanceStat.class, stats(1, 2));
+        store.store(2, MaintenanceStat.class, stats(3));
+        store.store(1, ElectricityUsageStat.class, List.of(new ElectricityUsageStat(4)));
+
+        // Later records replace earlier ones
+        store.store(2, MaintenanceStat.class, stats(5, 6));
+
+        Map<Long, List<MaintenanceStat>> range = store.retrieve(0, 3, MaintenanceStat.class);
+        assertEquals(4, range.size());
+        assertTrue(range.get(0L).isEmpty());
+        assertEquals(3.0, total(range.get(1L)));
+        assertEquals(11.0, total(range.get(2L)));
+
+        Map<Long, List<MaintenanceStat>> some = store.retrieve(List.of(2L, 3L), MaintenanceStat.class);
+        assertEquals(1, some.size());
+        assertEquals(11.0, total(some.get(2L)));
+
+        assertEquals(1, store.retrieve(1, 1, ElectricityUsageStat.class).get(1L).size());
+
+        store.close();
+    }
+
+    @Test
+    void recoverAfterTornWrite() throws IOException {
+        LogEntryDataStore store = new LogEntryDataStore(directory);
+        store.store(1, MaintenanceStat.class, stats(1, 2));
+        store.store(2, MaintenanceStat.class, stats(3));
+        store.close();
+
+        // Simulate a crash part way through appending a record
+        File segment = segments()[0];
+        long length = segment.length();
+        try (FileOutputStream out = new FileOutputStream(segment, true)) {
+            out.write(new byte[]{0, 0, 1, 0, 42, 42});
+        }
+
+        store = new LogEntryDataStore(directory);
+        assertEquals(length, segment.length());
+        assertEquals(3.0, total(store.retrieve(1, 1, MaintenanceStat.class).get(1L)));
+        assertEquals(3.0, total(store.retrieve(2, 2, MaintenanceStat.class).get(2L)));
+
+        // Appending continues after the last good record
+        store.store(3, MaintenanceStat.class, stats(4));
+        store.close();
+
+        store = new LogEntryDataStore(directory);
+        assertEquals(4.0, total(store.retrieve(3, 3, MaintenanceStat.class).get(3L)));
+        store.close();
+    }
+
+    @Test
+    void compactIntoPages() throws IOException {
+        // Seal a segment after every record
+        LogEntryDataStore store = new LogEntryDataStore(directory, 1);
+
+        for (int i = 0; i < 100; i++) {
+            store.store(i, MaintenanceStat.class, stats(i));
+        }
+        store.store(7, MaintenanceStat.class, stats(70));
+
+        store.compact();
+        assertEquals(1, segments().length);  // Only the empty active segment is left
+
+        Map<Long, List<MaintenanceStat>> all = store.retrieve(0, 99, MaintenanceStat.class);
+        assertEquals(99.0, total(all.get(99L)));
+        assertEquals(70.0, total(all.get(7L)));
+        store.close();
+
+        // The pages can be read without the log
+        FileEntryDataStore pages = new FileEntryDataStore(directory);
+        assertEquals(42.0, total(pages.retrieve(42, 42, MaintenanceStat.class).get(42L)));
+        assertEquals(70.0, total(pages.retrieve(7, 7, MaintenanceStat.class).get(7L)));
+    }
+
+    @Test
+    void retrieveAllFromLogAndPages() {
+        FileEntryDataStore pages = new FileEntryDataStore(directory);
+        pages.storeAll(MaintenanceStat.class, Map.of(1L, stats(1), 2L, stats(2))).join();
+        pages.storeAll(ElectricityUsageStat.class, Map.of(2L, List.of(new ElectricityUsageStat(3)))).join();
+
+        // The log replaces index 2 of one class, and adds index 3
+        LogEntryDataStore store = new LogEntryDataStore(directory);
+        store.store(2, MaintenanceStat.class, stats(20));
+        store.store(3, MaintenanceStat.class, stats(30));
+
+        BitSet indices = new BitSet();
+        indices.set(0, 4);
+        Map<Long, List<ExpenseStat>> result = store.retrieveAll(1, indices,
+                List.of(MaintenanceStat.class, ElectricityUsageStat.class), ExpenseStat.class);
+
+        assertEquals(3, result.size());
+        assertEquals(1.0, result.get(1L).stream().mapToDouble(ExpenseStat::getExpense).sum());
+        assertEquals(23.0, result.get(2L).stream().mapToDouble(ExpenseStat::getExpense).sum());
+        assertEquals(30.0, result.get(3L).stream().mapToDouble(ExpenseStat::getExpense).sum());
+        store.close();
+    }
+
+    @Test
+    void hierarchy() {
+        LogEntryDataStore store = new LogEntryDataStore(directory);
+        StatEntry.HIERARCHY.map(MaintenanceStat.class);
+        store.storeHierarchy(StatEntry.HIERARCHY);
+        assertTrue(store.retrieveHierarchy().getAllLeafClasses().contains(MaintenanceStat.class));
+        store.close();
+    }
+
+}
@@ -0,0 +1,80 @@
+package persistence.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.DataStorage;
+import persistence.impl.file.MappedAggregateDataStore;
+import persistence.impl.file.MappedEntryDataStore;
+import stats.aggregate.ExpenseAggregate;
+import stats.entry.impl.expense.ElectricityUsageStat;
+import stats.entry.impl.expense.MaintenanceStat;
+import util.AsyncWriteIOProvider;
+import util.DeflateCompressionProvider;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedEntryDataStoreTest {
+
+    @TempDir
+    File directory;
+
+    @BeforeEach
+    void setUp() {
+        DataStorage.init(
+                new AsyncWriteIOProvider(),
+                new DeflateCompressionProvider()
+        );
+    }
+
+    @Test
+    void storeAndRetrieve() {
+        MappedEntryDataStore store = new MappedEntryDataStore(directory);
+
+        store.store(1, MaintenanceStat.class, List.of(new MaintenanceStat(1), new MaintenanceStat(2)));
+        store.store(70, MaintenanceStat.class, List.of(new MaintenanceStat(3)));
+        store.store(1, ElectricityUsageStat.class, List.of(new ElectricityUsageStat(4)));
+
+        Map<Long, List<MaintenanceStat>> range = store.retrieve(0, 100, MaintenanceStat.class);
+        assertEquals(101, range.size());
+        assertEquals(2, range.get(1L).size());
+        assertEquals(3, range.get(70L).get(0).getExpense());
+        assertTrue(range.get(2L).isEmpty());
+
+        Map<Long, List<ElectricityUsageStat>> indices = store.retrieve(List.of(1L, 2L), ElectricityUsageStat.class);
+        assertEquals(Map.of(1L, 1), Map.of(1L, indices.get(1L).size()));
+        assertEquals(1, indices.size());
+
+        // Reading a range with no pages does not create any
+        assertTrue(store.retrieve(10_000, 20_000, MaintenanceStat.class).get(15_000L).isEmpty());
+        assertEquals(2, new File(directory, "MaintenanceStat").list().length);
+
+        store.close();
+
+        // The pages survive reopening
+        MappedEntryDataStore reopened = new MappedEntryDataStore(directory);
+        assertEquals(2, reopened.retrieve(1, 1, MaintenanceStat.class).get(1L).size());
+        reopened.close();
+    }
+
+    @Test
+    void storeAndRetrieveAggregates() {
+        MappedAggregateDataStore store = new MappedAggregateDataStore(directory);
+
+        store.store(5, MaintenanceStat.class, ExpenseAggregate.class, new ExpenseAggregate(5));
+        store.store(300, MaintenanceStat.class, ExpenseAggregate.class, new ExpenseAggregate(300));
+        store.store(5, ElectricityUsageStat.class, ExpenseAggregate.class, new ExpenseAggregate(6));
+
+        Map<Long, ExpenseAggregate> aggregates = store.retrieve(0, 1000, MaintenanceStat.class, ExpenseAggregate.class);
+        assertEquals(Map.of(5L, new ExpenseAggregate(5), 300L, new ExpenseAggregate(300)), aggregates);
+        assertEquals(Map.of(5L, new ExpenseAggregate(6)),
+                store.retrieve(5, 5, ElectricityUsageStat.class, ExpenseAggregate.class));
+
+        store.close();
+    }
+
+}
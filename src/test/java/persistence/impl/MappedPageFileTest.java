@@ -0,0 +1,134 @@
+package persistence.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import persistence.DataStorage;
+import persistence.codec.DoubleCodec;
+import persistence.codec.SerializableCodec;
+import persistence.impl.file.MappedPageFile;
+import stats.entry.impl.expense.MaintenanceStat;
+import util.AsyncWriteIOProvider;
+import util.DeflateCompressionProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedPageFileTest {
+
+    @TempDir
+    File directory;
+
+    @BeforeEach
+    void setUp() {
+        DataStorage.init(
+                new AsyncWriteIOProvider(),
+                new DeflateCompressionProvider()
+        );
+    }
+
+    @Test
+    void writeAndRead() throws IOException {
+        File file = new File(directory, "0.mpage");
+        try (MappedPageFile<String> page = new MappedPageFile<>(file, new SerializableCodec<>(String.class), 10, 8)) {
+            assertNull(page.read(10));
+
+            page.write(10, "a");
+            page.write(12, "b");
+            page.write(10, "c");
+
+            assertEquals("c", page.read(10));
+            assertNull(page.read(11));
+            assertEquals(Map.of(10L, "c", 12L, "b"), page.read(0, 100));
+            assertEquals(Map.of(12L, "b"), page.read(11, 12));
+
+            assertThrows(IllegalArgumentException.class, () -> page.read(18));
+            assertThrows(IllegalArgumentException.class, () -> page.write(9, "d"));
+        }
+
+        // The values survive reopening
+        try (MappedPageFile<String> page = new MappedPageFile<>(file, new SerializableCodec<>(String.class), 10, 8)) {
+            assertEquals("c", page.read(10));
+            assertEquals("b", page.read(12));
+        }
+    }
+
+    @Test
+    void tornWriteKeepsPreviousValue() throws IOException {
+        File file = new File(directory, "0.mpage");
+        try (MappedPageFile<String> page = new MappedPageFile<>(file, new SerializableCodec<>(String.class), 0, 4)) {
+            page.write(1, "kept");
+        }
+
+        // A value appended without its slot being pointed at it is ignored
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length());
+            raf.write(new byte[]{1, 2, 3});
+        }
+
+        try (MappedPageFile<String> page = new MappedPageFile<>(file, new SerializableCodec<>(String.class), 0, 4)) {
+            assertEquals("kept", page.read(1));
+            page.write(2, "next");
+            assertEquals("next", page.read(2));
+        }
+    }
+
+    @Test
+    void differentCodecIsRejected() throws IOException {
+        File file = new File(directory, "0.mpage");
+        try (MappedPageFile<String> page = new MappedPageFile<>(file, new SerializableCodec<>(String.class), 0, 4)) {
+            page.write(0, "a");
+        }
+
+        DoubleCodec<MaintenanceStat> codec =
+                new DoubleCodec<>(MaintenanceStat.class, MaintenanceStat::getExpense, MaintenanceStat::new);
+        assertThrows(IOException.class, () -> new MappedPageFile<>(file, codec, 0, 4));
+        assertThrows(IOException.class, () -> new MappedPageFile<>(file, new SerializableCodec<>(String.class), 0, 8));
+
+        // The page is left as it was
+        try (MappedPageFile<String> page = new MappedPageFile<>(file, new SerializableCodec<>(String.class), 0, 4)) {
+            assertEquals("a", page.read(0));
+        }
+    }
+
+    @Test
+    void openExistingForReading() throws IOException {
+        File file = new File(directory, "0.mpage");
+        assertNull(MappedPageFile.openExisting(file, new SerializableCodec<>(String.class), 0, 4));
+        assertFalse(file.exists());
+
+        try (MappedPageFile<String> page = new MappedPageFile<>(file, new SerializableCodec<>(String.class), 0, 4)) {
+            page.write(3, "b");
+        }
+
+        long length = file.length();
+        try (MappedPageFile<String> page = MappedPageFile.openExisting(file, new SerializableCodec<>(String.class), 0, 4)) {
+            assertNotNull(page);
+            assertFalse(page.isWritable());
+            assertEquals("b", page.read(3));
+            assertThrows(IllegalStateException.class, () -> page.write(0, "c"));
+        }
+        assertEquals(length, file.length());
+    }
+
+    @Test
+    void mappingGrowsForLaterWrites() throws IOException {
+        File file = new File(directory, "0.mpage");
+        try (MappedPageFile<String> page = new MappedPageFile<>(file, new SerializableCodec<>(String.class), 0, 4);
+             MappedPageFile<String> reader = MappedPageFile.openExisting(file, new SerializableCodec<>(String.class), 0, 4)) {
+            assertNotNull(reader);
+
+            // Reads between writes see each value appended since the file was mapped
+            for (int i = 0; i < 20; i++) {
+                page.write(i % 4, "v" + i);
+                assertEquals("v" + i, page.read(i % 4));
+                assertEquals("v" + i, reader.read(i % 4));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+package persistence.impl.cache;
+
+import entity.ticket.Ticket;
+import entity.ticket.TicketType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import persistence.impl.memory.MemoryTicketDataStore;
+import util.Clocks;
+import util.SimulatedClock;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link CachedTicketDataStore}
+ */
+class CachedTicketDataStoreTest {
+
+    /**
+     * A memory store counting the lookups that reach it
+     */
+    private static class CountingStore extends MemoryTicketDataStore {
+
+        /**
+         * The number of lookups
+         */
+        int finds = 0;
+
+        /**
+         * Whether saving fails
+         */
+        boolean failSaves = false;
+
+        @Override
+        public void save(Ticket entity) {
+            if (failSaves) throw new IllegalStateException("Save failed");
+            super.save(entity);
+        }
+
+        @Override
+        public Optional<Ticket> find(int id) {
+            finds++;
+            return super.find(id);
+        }
+    }
+
+    /**
+     * The clock the tickets expire by
+     */
+    private SimulatedClock clock;
+
+    @BeforeEach
+    void setUp() {
+        clock = new SimulatedClock(1000);
+        Clocks.set(clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Clocks.reset();
+    }
+
+    /**
+     * Test that repeated lookups are served from the cache
+     */
+    @Test
+    void readThrough() {
+        CountingStore store = new CountingStore();
+        store.save(new Ticket(1, TicketType.ADULT));
+        CachedTicketDataStore cache = new CachedTicketDataStore(store, 4);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(cache.find(1).isPresent());
+        }
+        assertFalse(cache.find(2).isPresent());
+
+        assertEquals(2, store.finds);
+        assertEquals(9, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(9.0 / 11, cache.getHitRate(), 1e-9);
+    }
+
+    /**
+     * Test that writes go to both the cache and the store
+     */
+    @Test
+    void writeThrough() {
+        CountingStore store = new CountingStore();
+        CachedTicketDataStore cache = new CachedTicketDataStore(store, 4);
+
+        Ticket ticket = new Ticket(1, TicketType.CHILD);
+        cache.save(ticket);
+        assertTrue(store.existsById(1));
+
+        Ticket cached = cache.find(1).orElseThrow();
+        assertEquals(ticket.getType(), cached.getType());
+        assertEquals(ticket.isActivated(), cached.isActivated());
+        assertEquals(ticket.getExpiry(), cached.getExpiry());
+        assertEquals(ticket.getCreatedAt(), cached.getCreatedAt());
+        assertEquals(0, store.finds);
+
+        cache.delete(1);
+        assertFalse(store.existsById(1));
+        assertFalse(cache.find(1).isPresent());
+    }
+
+    /**
+     * Test that changes to a ticket are only served once it has been saved
+     */
+    @Test
+    void serveCopies() {
+        CountingStore store = new CountingStore();
+        CachedTicketDataStore cache = new CachedTicketDataStore(store, 4);
+        cache.save(new Ticket(1, TicketType.ADULT));
+
+        // Changing a ticket without saving it doesn't change the cached copy
+        cache.find(1).orElseThrow().activate();
+        assertFalse(cache.find(1).orElseThrow().isActivated());
+
+        // Nor does a save that fails
+        store.failSaves = true;
+        Ticket ticket = cache.find(1).orElseThrow();
+        ticket.activate();
+        assertThrows(IllegalStateException.class, () -> cache.save(ticket));
+        assertFalse(cache.find(1).orElseThrow().isActivated());
+
+        store.failSaves = false;
+        cache.save(ticket);
+        assertTrue(cache.find(1).orElseThrow().isActivated());
+    }
+
+    /**
+     * Test that tickets read often survive a scan over many others
+     */
+    @Test
+    void evictProbationFirst() {
+        CountingStore store = new CountingStore();
+        for (int id = 0; id < 100; id++) {
+            store.save(new Ticket(id, TicketType.ADULT));
+        }
+        CachedTicketDataStore cache = new CachedTicketDataStore(store, 10);
+
+        cache.find(0);
+        cache.find(0);
+        for (int id = 1; id < 100; id++) {
+            cache.find(id);
+        }
+
+        int finds = store.finds;
+        cache.find(0);
+        assertEquals(finds, store.finds);
+        assertEquals(10, cache.size());
+        assertEquals(90, cache.getEvictions());
+    }
+
+    /**
+     * Test that expired tickets are not served from the cache
+     */
+    @Test
+    void expireWithTicket() {
+        CountingStore store = new CountingStore();
+        CachedTicketDataStore cache = new CachedTicketDataStore(store, 4);
+
+        Ticket ticket = new Ticket(1, TicketType.SENIOR);
+        ticket.activate();
+        cache.save(ticket);
+        cache.find(1);
+        assertEquals(0, store.finds);
+
+        clock.advance(TicketType.SENIOR.getLifetime() + 1, TimeUnit.MILLISECONDS);
+        cache.cleanExpiredTickets();
+
+        assertEquals(0, cache.size());
+        assertFalse(cache.find(1).isPresent());
+        assertFalse(store.existsById(1));
+    }
+
+}
@@ -1,9 +1,13 @@
 package persistence.impl.memory;
 
 import org.junit.jupiter.api.Test;
+import stats.entry.impl.expense.ElectricityUsageStat;
+import stats.entry.impl.expense.ExpenseStat;
 import stats.entry.impl.expense.MaintenanceStat;
 
+import java.util.BitSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Test for {@link MemoryEntryDataStore}
@@ -30,4 +34,24 @@ class MemoryEntryDataStoreTest {
         assert STORE.retrieve(1, 1, MaintenanceStat.class).size() == 1;
     }
 
-}
\ No newline at end of file
+    @Test
+    void retrieveAll() {
+        MemoryEntryDataStore store = new MemoryEntryDataStore();
+        store.store(10, MaintenanceStat.class, List.of(new MaintenanceStat(1)));
+        store.store(10, ElectricityUsageStat.class, List.of(new ElectricityUsageStat(2)));
+        store.store(12, ElectricityUsageStat.class, List.of(new ElectricityUsageStat(3)));
+        store.store(13, ElectricityUsageStat.class, List.of(new ElectricityUsageStat(4)));
+
+        BitSet indices = new BitSet();
+        indices.set(0);
+        indices.set(2);
+        indices.set(5);
+
+        Map<Long, List<ExpenseStat>> result = store.retrieveAll(10, indices,
+                List.of(MaintenanceStat.class, ElectricityUsageStat.class), ExpenseStat.class);
+        assert result.size() == 2;
+        assert result.get(10L).size() == 2;
+        assert result.get(12L).size() == 1;
+    }
+
+}
@@ -10,6 +10,7 @@ import persistence.impl.memory.MemoryEmployeeDataStore;
 import persistence.impl.memory.MemoryEntryDataStore;
 import persistence.impl.memory.MemoryTicketDataStore;
 import simulation.api.Simulator;
+import simulation.schedulers.FixedStepTickScheduler;
 import simulation.simulators.TrainSimulator;
 import stats.StatDataControllerImpl;
 import stats.aggregator.impl.ExpenseAggregator;
@@ -79,12 +80,38 @@ class SimulationTest {
 
         simulation.stop();
 
+        // Let the tick in progress finish before checking what it recorded
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+
         assert started.get();
         assert ticked.get();
 
         assert stats.aggregateCurrent(new ExpenseAggregator())
                 .isPresent();
+        stats.close();
+
+    }
+
+    @Test
+    void testStopBeforeStart() {
+        var stats = new StatDataControllerImpl(
+                new BasicTimeIndexingStrategy(999999),
+                new MemoryEntryDataStore(),
+                new MemoryAggregateDataStore()
+        );
+
+        Simulation simulation = new Simulation(new TransitModel(), null, stats,
+                new FixedStepTickScheduler(Simulation.TICK_SPEED));
+
+        simulation.stop();
+        simulation.start();
 
+        assert simulation.getTickMetrics().getTickCount() == 0;
+        stats.close();
     }
 
-}
\ No newline at end of file
+}
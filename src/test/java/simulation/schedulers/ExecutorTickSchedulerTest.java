@@ -0,0 +1,85 @@
+package simulation.schedulers;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExecutorTickSchedulerTest {
+
+    @Test
+    public void testStopBeforeRun() {
+        ExecutorTickScheduler scheduler = new ExecutorTickScheduler(100);
+        scheduler.stop();
+        scheduler.run(delta -> Assertions.fail("Should not tick"));
+        Assertions.assertEquals(0, scheduler.getMetrics().getTickCount());
+    }
+
+    @Test
+    public void testRunsOnExecutor() {
+        ExecutorTickScheduler scheduler = new ExecutorTickScheduler(100);
+        Thread caller = Thread.currentThread();
+        AtomicInteger ticks = new AtomicInteger();
+
+        scheduler.run(delta -> {
+            Assertions.assertNotSame(caller, Thread.currentThread());
+            Assertions.assertEquals(0.01, delta);
+            if (ticks.incrementAndGet() == 10) scheduler.stop();
+        });
+
+        Assertions.assertTrue(ticks.get() >= 10);
+        Assertions.assertEquals(ticks.get(), scheduler.getMetrics().getTickCount());
+    }
+
+    @Test
+    public void testTickFailureRethrown() {
+        ExecutorTickScheduler scheduler = new ExecutorTickScheduler(100);
+        Assertions.assertThrows(RuntimeException.class, () -> scheduler.run(delta -> {
+            throw new IllegalStateException();
+        }));
+    }
+
+    @Test
+    public void testCatchUpCap() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        ExecutorTickScheduler scheduler = new ExecutorTickScheduler(executor, 1000, 3);
+        AtomicInteger ticks = new AtomicInteger();
+        long start = System.nanoTime();
+        long[] stopped = new long[1];
+        long[] owed = new long[1];
+
+        scheduler.run(delta -> {
+            int tick = ticks.incrementAndGet();
+            if (tick == 1) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            } else if (tick == 2) {
+                // The steps neither run nor dropped by the first tick after the stall
+                long elapsedSteps = (System.nanoTime() - start) / 1_000_000 + 1;
+                owed[0] = elapsedSteps - tick - scheduler.getMetrics().getDroppedTickCount();
+            } else if (tick == 5) {
+                stopped[0] = System.nanoTime();
+                scheduler.stop();
+            }
+        });
+
+        executor.shutdownNow();
+
+        Assertions.assertEquals(5, ticks.get());
+        Assertions.assertTrue(scheduler.getMetrics().getOverrunCount() >= 1);
+        Assertions.assertTrue(scheduler.getMetrics().getDroppedTickCount() > 10);
+
+        // Only the steps past the cap are dropped, the rest are run as catch-up ticks
+        Assertions.assertTrue(owed[0] >= 2);
+
+        // The dropped ticks are not run afterwards, so the simulation never gets ahead of wall time
+        long elapsedSteps = (stopped[0] - start) / 1_000_000 + 1;
+        Assertions.assertTrue(ticks.get() + scheduler.getMetrics().getDroppedTickCount() <= elapsedSteps);
+    }
+
+}
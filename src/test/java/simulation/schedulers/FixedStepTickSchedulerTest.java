@@ -0,0 +1,82 @@
+package simulation.schedulers;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FixedStepTickSchedulerTest {
+
+    @Test
+    public void testInvalidArguments() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new FixedStepTickScheduler(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new FixedStepTickScheduler(100, 0));
+    }
+
+    @Test
+    public void testStopBeforeRun() {
+        FixedStepTickScheduler scheduler = new FixedStepTickScheduler(100);
+        scheduler.stop();
+        scheduler.run(delta -> Assertions.fail("Should not tick"));
+        Assertions.assertEquals(0, scheduler.getMetrics().getTickCount());
+    }
+
+    @Test
+    public void testFixedDelta() {
+        FixedStepTickScheduler scheduler = new FixedStepTickScheduler(100);
+        List<Double> deltas = new ArrayList<>();
+
+        scheduler.run(delta -> {
+            deltas.add(delta);
+            if (deltas.size() == 20) scheduler.stop();
+        });
+
+        Assertions.assertEquals(20, deltas.size());
+        for (double delta : deltas) {
+            Assertions.assertEquals(0.01, delta);
+        }
+        Assertions.assertEquals(20, scheduler.getMetrics().getTickCount());
+    }
+
+    @Test
+    public void testPacedToRealTime() {
+        FixedStepTickScheduler scheduler = new FixedStepTickScheduler(100);
+        AtomicInteger ticks = new AtomicInteger();
+
+        long start = System.nanoTime();
+        scheduler.run(delta -> {
+            if (ticks.incrementAndGet() == 10) scheduler.stop();
+        });
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // The first tick runs immediately, the remaining 9 are 10ms apart
+        Assertions.assertTrue(elapsedMillis >= 80, "Ran too fast: " + elapsedMillis + "ms");
+    }
+
+    @Test
+    public void testCatchUpCap() throws InterruptedException {
+        FixedStepTickScheduler scheduler = new FixedStepTickScheduler(1000, 3);
+        AtomicInteger ticks = new AtomicInteger();
+
+        scheduler.run(delta -> {
+            int tick = ticks.incrementAndGet();
+            if (tick == 1) {
+                // Stall for many time steps
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            } else if (tick == 4) {
+                scheduler.stop();
+            }
+        });
+
+        Assertions.assertTrue(scheduler.getMetrics().getOverrunCount() >= 1);
+        Assertions.assertTrue(scheduler.getMetrics().getDroppedTickCount() > 10);
+        Assertions.assertTrue(scheduler.getMetrics().getMaxTickNanos() >= 50_000_000L);
+    }
+
+}
@@ -0,0 +1,56 @@
+package simulation.schedulers;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import stats.timing.BasicTimeIndexingStrategy;
+import util.SimulatedClock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SimulatedTickSchedulerTest {
+
+    @Test
+    public void testRunsForSimulatedDuration() {
+        SimulatedClock clock = new SimulatedClock(0);
+        SimulatedTickScheduler scheduler = new SimulatedTickScheduler(clock, 100, 1, TimeUnit.HOURS);
+        AtomicInteger ticks = new AtomicInteger();
+
+        long start = System.nanoTime();
+        scheduler.run(delta -> {
+            Assertions.assertEquals(0.01, delta);
+            ticks.incrementAndGet();
+        });
+
+        // An hour of ticks, in much less than an hour
+        Assertions.assertEquals(360_000, ticks.get());
+        Assertions.assertEquals(TimeUnit.HOURS.toMillis(1), clock.millis());
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.MINUTES.toNanos(1));
+    }
+
+    @Test
+    public void testDrivesTimeIndex() {
+        SimulatedClock clock = new SimulatedClock(0);
+        BasicTimeIndexingStrategy indexing = new BasicTimeIndexingStrategy(1000, clock);
+        SimulatedTickScheduler scheduler = new SimulatedTickScheduler(clock, 10, 5, TimeUnit.SECONDS);
+
+        scheduler.run(delta -> {
+        });
+
+        Assertions.assertEquals(5, indexing.getTimeIndex());
+    }
+
+    @Test
+    public void testStop() {
+        SimulatedTickScheduler scheduler = new SimulatedTickScheduler(new SimulatedClock(0), 100, 1, TimeUnit.DAYS);
+        AtomicInteger ticks = new AtomicInteger();
+
+        scheduler.run(delta -> {
+            if (ticks.incrementAndGet() == 10) scheduler.stop();
+        });
+
+        Assertions.assertEquals(10, ticks.get());
+        Assertions.assertEquals(10, scheduler.getMetrics().getTickCount());
+    }
+
+}
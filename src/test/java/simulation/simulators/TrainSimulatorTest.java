@@ -0,0 +1,96 @@
+package simulation.simulators;
+
+import entity.model.Direction;
+import entity.model.control.TransitModel;
+import entity.model.control.builder.TransitModelBuilder;
+import entity.model.train.Train;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import persistence.impl.memory.MemoryAggregateDataStore;
+import persistence.impl.memory.MemoryEntryDataStore;
+import stats.StatDataControllerImpl;
+import stats.StatTracker;
+import stats.timing.BasicTimeIndexingStrategy;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class TrainSimulatorTest {
+
+    private static TransitModel buildModel() {
+        TransitModelBuilder builder = new TransitModelBuilder();
+        builder.station("A", 0, 0);
+        builder.station("B", 10, 0);
+        builder.station("C", 20, 0);
+        builder.station("D", 0, 10);
+        builder.station("E", 10, 10);
+        builder.station("F", 20, 10);
+        builder.line(1, "A", "B", "C");
+        builder.line(2, "D", "E", "F");
+        return builder.build();
+    }
+
+    private static StatTracker stats() {
+        return new StatDataControllerImpl(
+                new BasicTimeIndexingStrategy(999999),
+                new MemoryEntryDataStore(),
+                new MemoryAggregateDataStore()
+        );
+    }
+
+    @Test
+    public void testParallelMatchesSerial() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        StatTracker parallelStats = stats();
+        StatTracker serialStats = stats();
+
+        TransitModel parallelModel = buildModel();
+        TrainSimulator parallel = new TrainSimulator(parallelStats, pool);
+        parallel.onStart(parallelModel);
+
+        // Recreate the same trains on an identical model, ticked serially
+        TransitModel serialModel = buildModel();
+        TrainSimulator serial = new TrainSimulator(serialStats);
+        for (Train train : parallelModel.getTrainList()) {
+            String trackId = train.getPosition().getTrack().getId();
+            serialModel.createTrain(serialModel.getTrackRepo().getTrack(trackId).orElseThrow(),
+                    train.getName(), train.getCapacity());
+        }
+
+        Assertions.assertTrue(parallelModel.getTrainList().size() > 1);
+
+        for (int i = 0; i < 500; i++) {
+            parallel.tick(parallelModel, 0.05);
+            serial.tick(serialModel, 0.05);
+        }
+
+        for (Train train : parallelModel.getTrainList()) {
+            Train other = serialModel.getTrain(train.getName());
+            Assertions.assertEquals(other.getPosition().getTrack().getId(), train.getPosition().getTrack().getId());
+            Assertions.assertEquals(other.getPosition().getPositionOnTrack(), train.getPosition().getPositionOnTrack());
+        }
+
+        pool.shutdown();
+        parallelStats.close();
+        serialStats.close();
+    }
+
+    @Test
+    public void testUnmappedTrainsFallBackToSerial() {
+        TransitModel model = buildModel();
+        StatTracker stats = stats();
+        TrainSimulator simulator = new TrainSimulator(stats, ForkJoinPool.commonPool());
+
+        // Trains are created without recreateTrains, so no loops are mapped
+        model.createTrain(model.getNodes().get("A").getLineProfiles().iterator().next()
+                .getTrack(Direction.FORWARD), "Train 1", Train.DEFAULT_CAPACITY);
+
+        double before = model.getTrain("Train 1").getPosition().getPositionOnTrack();
+        simulator.tick(model, 0.01);
+        double after = model.getTrain("Train 1").getPosition().getPositionOnTrack();
+
+        Assertions.assertNotEquals(before, after);
+        stats.close();
+    }
+
+}
@@ -0,0 +1,71 @@
+package stats.aggregator;
+
+import org.junit.jupiter.api.Test;
+import persistence.impl.memory.MemoryAggregateDataStore;
+import persistence.impl.memory.MemoryEntryDataStore;
+import stats.StatDataControllerImpl;
+import stats.StatTracker;
+import stats.aggregate.ExpenseAggregate;
+import stats.aggregator.impl.ExpenseAggregator;
+import stats.entry.impl.expense.ExpenseStat;
+import stats.entry.impl.expense.MaintenanceStat;
+import stats.timing.BasicTimeIndexingStrategy;
+import util.SimulatedClock;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollupTierTest {
+
+    private static void record(StatTracker stats, long index, double cost) {
+        stats.record(new MaintenanceStat(cost));
+        stats.flush(index);
+    }
+
+    @Test
+    void levels() {
+        assertEquals(1, RollupLevel.INDEX.getIndicesPerBucket(4000));
+        assertEquals(15, RollupLevel.MINUTE.getIndicesPerBucket(4000));
+        assertEquals(900, RollupLevel.HOUR.getIndicesPerBucket(4000));
+        assertEquals(21600, RollupLevel.DAY.getIndicesPerBucket(4000));
+
+        // Indices longer than a minute make minutes as long as them
+        assertEquals(1, RollupLevel.MINUTE.getIndicesPerBucket(120_000));
+
+        assertEquals(RollupLevel.HOUR, RollupLevel.coarsestFor(21600 * 7, 4000, 60));
+        assertEquals(RollupLevel.MINUTE, RollupLevel.coarsestFor(21600, 4000, 60));
+        assertEquals(RollupLevel.INDEX, RollupLevel.coarsestFor(100, 4000, 60));
+        assertThrows(IllegalStateException.class, RollupLevel.INDEX::finer);
+    }
+
+    @Test
+    void rollUp() {
+        SimulatedClock clock = new SimulatedClock(0);
+        StatTracker stats = new StatDataControllerImpl(
+                new BasicTimeIndexingStrategy(4000, clock), new MemoryEntryDataStore(), new MemoryAggregateDataStore()
+        );
+
+        record(stats, 0, 1);
+        record(stats, 14, 2);
+        record(stats, 15, 4);
+        record(stats, 900, 8);
+        clock.advance(4000 * 2000, TimeUnit.MILLISECONDS);
+
+        RollupTier<ExpenseStat, ExpenseAggregate> tier = new RollupTier<>(stats, new ExpenseAggregator());
+
+        Map<Long, ExpenseAggregate> minutes = tier.getRollups(RollupLevel.MINUTE, 0, 60);
+        assertEquals(Map.of(0L, new ExpenseAggregate(3), 1L, new ExpenseAggregate(4), 60L, new ExpenseAggregate(8)),
+                minutes);
+
+        Map<Long, ExpenseAggregate> hours = tier.getRollups(RollupLevel.HOUR, 0, 2);
+        assertEquals(Map.of(0L, new ExpenseAggregate(7), 1L, new ExpenseAggregate(8)), hours);
+
+        // Complete buckets are kept, and coarser levels roll up from them
+        assertEquals(hours, tier.getRollups(RollupLevel.HOUR, 0, 2));
+        assertEquals(Map.of(0L, new ExpenseAggregate(15)), tier.getRollups(RollupLevel.DAY, 0, 0));
+        stats.close();
+    }
+
+}
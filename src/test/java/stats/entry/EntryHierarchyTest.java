@@ -39,4 +39,25 @@ class EntryHierarchyTest {
         assertEquals(1, hierarchy.getInheritors(TestSubEntry.class).size());
         assertEquals(1, hierarchy.getInheritors(TestSubEntry2.class).size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCachedInheritors() {
+        EntryHierarchy hierarchy = new EntryHierarchy();
+        hierarchy.map(TestEntryImpl.class);
+
+        List<Class<? extends TestEntry>> before = hierarchy.getInheritors(TestEntry.class);
+        assertSame(before, hierarchy.getInheritors(TestEntry.class));
+        assertThrows(UnsupportedOperationException.class, () -> before.add(TestSubEntryImpl.class));
+
+        // Mapping a new class invalidates the cache
+        long version = hierarchy.getVersion();
+        hierarchy.map(TestSubEntryImpl.class);
+        assertNotEquals(version, hierarchy.getVersion());
+        assertEquals(2, hierarchy.getInheritors(TestEntry.class).size());
+
+        // Mapping a class again does not
+        version = hierarchy.getVersion();
+        hierarchy.map(TestSubEntryImpl.class);
+        assertEquals(version, hierarchy.getVersion());
+    }
+}
@@ -0,0 +1,53 @@
+package stats.entry;
+
+import org.junit.jupiter.api.Test;
+import stats.entry.impl.expense.MaintenanceStat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NumericColumnTest {
+
+    @Test
+    public void testGrowAndClear() {
+        NumericColumn column = new NumericColumn();
+        for (int i = 0; i < 100; i++) {
+            column.add(i);
+        }
+
+        assertEquals(100, column.size());
+        assertEquals(42.0, column.get(42));
+        assertEquals(4950.0, column.sum());
+        assertThrows(IndexOutOfBoundsException.class, () -> column.get(100));
+
+        column.clear();
+        assertEquals(0, column.size());
+        assertEquals(0.0, column.sum());
+
+        column.add(3.0);
+        assertEquals(3.0, column.get(0));
+    }
+
+    @Test
+    public void testAddEntriesTo() {
+        NumericColumn column = new NumericColumn();
+        column.add(1.5);
+        column.add(2.5);
+
+        List<StatEntry> entries = new ArrayList<>();
+        column.addEntriesTo(value -> NumericEntries.create(MaintenanceStat.class, value), entries);
+
+        assertEquals(2, entries.size());
+        assertEquals(1.5, ((MaintenanceStat) entries.get(0)).getExpense());
+        assertEquals(2.5, ((MaintenanceStat) entries.get(1)).getExpense());
+    }
+
+    @Test
+    public void testUnregisteredClass() {
+        assertFalse(NumericEntries.isRegistered(NumericStatEntry.class));
+        assertThrows(IllegalArgumentException.class, () -> NumericEntries.create(NumericStatEntry.class, 1.0));
+    }
+
+}
@@ -1,15 +1,22 @@
 package stats.persistence;
 
 import persistence.DataStorage;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import stats.StatDataControllerImpl;
 import stats.StatTracker;
 import stats.aggregate.ExpenseAggregate;
 import stats.aggregator.impl.ExpenseAggregator;
+import stats.entry.StatEntry;
+import stats.entry.impl.expense.ElectricityUsageStat;
+import stats.entry.impl.expense.ExpenseStat;
 import stats.entry.impl.expense.MaintenanceStat;
+import stats.entry.impl.revenue.TicketSaleStat;
 import persistence.impl.file.FileAggregateDataStore;
 import persistence.impl.file.FileEntryDataStore;
+import persistence.impl.memory.MemoryAggregateDataStore;
+import persistence.impl.memory.MemoryEntryDataStore;
 import stats.timing.BasicTimeIndexingStrategy;
 import util.AsyncWriteIOProvider;
 import util.DeflateCompressionProvider;
@@ -17,7 +24,15 @@ import util.DeflateCompressionProvider;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -66,6 +81,11 @@ class StatTrackerTest {
         controller.record(new MaintenanceStat(1.0));
     }
 
+    @AfterAll
+    static void teardown() {
+        controller.close();
+    }
+
     @Test
     void record() {
         controller.flush(3902389);
@@ -101,4 +121,232 @@ class StatTrackerTest {
 
         assertEquals(1000.0, aggregate.getValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    void recordConcurrently() throws Exception {
+        StatTracker tracker = new StatDataControllerImpl(
+                new BasicTimeIndexingStrategy(1000), new MemoryEntryDataStore(), new MemoryAggregateDataStore()
+        );
+
+        int threads = 8;
+        int perThread = 10000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        tracker.record(new MaintenanceStat(1.0));
+                        if (i % 1000 == 0) tracker.aggregateCurrent(new ExpenseAggregator());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ExpenseAggregate current = tracker.aggregateCurrent(new ExpenseAggregator()).orElseThrow();
+        assertEquals(threads * perThread, current.getValue());
+
+        tracker.flush(5);
+        assertEquals(threads * perThread, tracker.getEntries(MaintenanceStat.class, 5).size());
+        assertTrue(tracker.aggregateCurrent(new ExpenseAggregator()).isEmpty());
+        tracker.close();
+    }
+
+    @Test
+    void recordNumeric() {
+        StatTracker tracker = new StatDataControllerImpl(
+                new BasicTimeIndexingStrategy(1000), new MemoryEntryDataStore(), new MemoryAggregateDataStore()
+        );
+
+        tracker.record(MaintenanceStat.class, 2.0);
+        tracker.record(ElectricityUsageStat.class, 3.0);
+        tracker.record(new MaintenanceStat(4.0));
+
+        assertEquals(9.0, tracker.aggregateCurrent(new ExpenseAggregator()).orElseThrow().getValue());
+
+        tracker.flush(7);
+        assertEquals(2, tracker.getEntries(MaintenanceStat.class, 7).size());
+        assertEquals(3, tracker.getEntries(ExpenseStat.class, 7).size());
+
+        // The columns are reused for the next index
+        tracker.record(MaintenanceStat.class, 5.0);
+        tracker.flush(8);
+        List<MaintenanceStat> entries = tracker.getEntries(MaintenanceStat.class, 8);
+        assertEquals(1, entries.size());
+        assertEquals(5.0, entries.get(0).getValue());
+        tracker.close();
+    }
+
+    @Test
+    void aggregateCurrentIncrementally() throws Exception {
+        StatTracker tracker = new StatDataControllerImpl(
+                new BasicTimeIndexingStrategy(1000), new MemoryEntryDataStore(), new MemoryAggregateDataStore()
+        );
+
+        // Entries recorded before registering are caught up on
+        tracker.record(new MaintenanceStat(1.0));
+        tracker.registerAggregator(new ExpenseAggregator());
+
+        tracker.record(MaintenanceStat.class, 2.0);
+        tracker.record(new ElectricityUsageStat(3.0));
+        tracker.record(new TicketSaleStat(100.0));
+
+        Thread thread = new Thread(() -> tracker.record(new MaintenanceStat(4.0)));
+        thread.start();
+        thread.join();
+
+        assertEquals(10.0, tracker.aggregateCurrent(new ExpenseAggregator()).orElseThrow().getValue());
+
+        // The running aggregates are reset by flushing
+        tracker.flush(3);
+        assertTrue(tracker.aggregateCurrent(new ExpenseAggregator()).isEmpty());
+        assertEquals(4, tracker.getEntries(ExpenseStat.class, 3).size());
+        tracker.close();
+
+        tracker.record(MaintenanceStat.class, 5.0);
+        assertEquals(5.0, tracker.aggregateCurrent(new ExpenseAggregator()).orElseThrow().getValue());
+    }
+
+    @Test
+    void flushInBackground() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        MemoryEntryDataStore slowStore = new MemoryEntryDataStore() {
+            @Override
+            public <E extends StatEntry> void store(long index, Class<? extends StatEntry> clazz, List<E> entries) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.store(index, clazz, entries);
+            }
+        };
+        StatDataControllerImpl tracker = new StatDataControllerImpl(
+                new BasicTimeIndexingStrategy(1000), slowStore, new MemoryAggregateDataStore(), 1
+        );
+
+        // Flushing returns while the store is still being written to
+        tracker.record(new MaintenanceStat(1.0));
+        tracker.flush(1);
+        tracker.record(new MaintenanceStat(2.0));
+        tracker.flush(2);
+        assertEquals(0, tracker.getFlushMetrics().getFlushCount());
+        assertEquals(1, tracker.getFlushMetrics().getMaxQueueDepth());
+
+        // Once the queue is full, flushing waits for room
+        Thread blocked = new Thread(() -> tracker.flush(3));
+        blocked.start();
+
+        release.countDown();
+        blocked.join(5000);
+        assertEquals(1, tracker.getEntries(MaintenanceStat.class, 2).size());
+
+        // Closing seals one last batch of whatever was recorded since
+        tracker.close();
+        assertEquals(4, tracker.getFlushMetrics().getFlushCount());
+        assertEquals(0, tracker.getQueueDepth());
+
+        // Later flushes are written inline rather than queued for the stopped flusher
+        tracker.record(new MaintenanceStat(5.0));
+        tracker.flush(5);
+        assertEquals(1, tracker.getEntries(MaintenanceStat.class, 5).size());
+        assertEquals(5, tracker.getFlushMetrics().getFlushCount());
+    }
+
+    @Test
+    void retryFailedFlush() {
+        AtomicInteger failures = new AtomicInteger(1);
+        MemoryEntryDataStore failingStore = new MemoryEntryDataStore() {
+            @Override
+            public <E extends StatEntry> void store(long index, Class<? extends StatEntry> clazz, List<E> entries) {
+                if (!entries.isEmpty() && failures.getAndDecrement() > 0) throw new IllegalStateException("Disk full");
+                super.store(index, clazz, entries);
+            }
+        };
+        StatDataControllerImpl tracker = new StatDataControllerImpl(
+                new BasicTimeIndexingStrategy(1000), failingStore, new MemoryAggregateDataStore()
+        );
+
+        // The batch that failed is kept rather than lost
+        tracker.record(new MaintenanceStat(1.0));
+        tracker.flush(1);
+        assertTrue(tracker.getEntries(MaintenanceStat.class, 1).isEmpty());
+        assertEquals(1, tracker.getFlushMetrics().getFailureCount());
+
+        // and written again by the next flush
+        tracker.record(new MaintenanceStat(2.0));
+        tracker.flush(2);
+        assertEquals(1, tracker.getEntries(MaintenanceStat.class, 1).size());
+        assertEquals(1, tracker.getEntries(MaintenanceStat.class, 2).size());
+
+        // Closing writes a batch that failed on the flusher, or throws if it fails again
+        failures.set(1);
+        tracker.record(new MaintenanceStat(3.0));
+        tracker.flush(3);
+        tracker.awaitFlushed();
+        failures.set(2);
+        assertThrows(IllegalStateException.class, tracker::close);
+        assertTrue(tracker.getEntries(MaintenanceStat.class, 3).isEmpty());
+
+        // Once closed, the next flush writes it inline
+        tracker.flush(4);
+        assertEquals(1, tracker.getEntries(MaintenanceStat.class, 3).size());
+        assertEquals(4, tracker.getFlushMetrics().getFailureCount());
+    }
+
+    @Test
+    void getOrAggregateAsync() {
+        StatTracker tracker = new StatDataControllerImpl(
+                new BasicTimeIndexingStrategy(1000), new MemoryEntryDataStore(), new MemoryAggregateDataStore()
+        );
+
+        // Spread over several backfill chunks
+        for (long index = 0; index < 300; index += 7) {
+            tracker.record(new MaintenanceStat(index));
+            tracker.flush(index);
+        }
+
+        Map<Long, ExpenseAggregate> async = tracker.getOrAggregateAsync(new ExpenseAggregator(), 0, 299).join();
+        assertEquals(43, async.size());
+        assertEquals(294.0, async.get(294L).getValue());
+
+        // The aggregates were stored, and the synchronous path agrees
+        assertEquals(async, tracker.getAggregates(ExpenseStat.class, ExpenseAggregate.class, 0, 299));
+        assertEquals(async, tracker.getOrAggregate(new ExpenseAggregator(), 0, 299));
+        tracker.close();
+    }
+
+    @Test
+    void closeWritesAggregates() {
+        File aggregateFolder = new File("test-close-aggregates");
+        deleteDirectory(aggregateFolder);
+
+        StatTracker tracker = new StatDataControllerImpl(
+                new BasicTimeIndexingStrategy(1000), new MemoryEntryDataStore(),
+                new FileAggregateDataStore(aggregateFolder)
+        );
+        tracker.record(new MaintenanceStat(2.0));
+        tracker.flush(4);
+
+        // Aggregated after the last batch was written, so only closing writes the page back
+        assertEquals(2.0, tracker.getOrAggregate(new ExpenseAggregator(), 4, 4).get(4L).getValue());
+        tracker.close();
+        assertEquals(2.0, new FileAggregateDataStore(aggregateFolder)
+                .retrieve(4, 4, ExpenseStat.class, ExpenseAggregate.class).get(4L).getValue());
+
+        // Aggregates stored once closed are written through
+        tracker.record(new MaintenanceStat(3.0));
+        tracker.flush(5);
+        tracker.getOrAggregate(new ExpenseAggregator(), 5, 5);
+        assertEquals(3.0, new FileAggregateDataStore(aggregateFolder)
+                .retrieve(5, 5, ExpenseStat.class, ExpenseAggregate.class).get(5L).getValue());
+
+        deleteDirectory(aggregateFolder);
+    }
+}
@@ -4,7 +4,10 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 
 @SuppressWarnings("BlockingMethodInNonBlockingContext")
 class AsyncWriteIOProviderTest {
@@ -52,6 +55,24 @@ class AsyncWriteIOProviderTest {
         assert !file.exists();
     }
 
+    @Test
+    void openChannel() throws IOException {
+        FileIOProvider ioProvider = new AsyncWriteIOProvider();
+        File file = new File("test.txt");
+        try {
+            Files.delete(file.toPath());
+        } catch (IOException ignored) {}
+
+        // The channel is opened once the pending write is on disk
+        ioProvider.write(file, "Hello world!".getBytes());
+        try (FileChannel channel = ioProvider.openChannel(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(5);
+            channel.read(buffer, 6);
+            assert new String(buffer.array()).equals("world");
+        }
+        ioProvider.delete(file).join();
+    }
+
     @Test
     @SuppressWarnings("ResultOfMethodCallIgnored")
     void listFiles() {
@@ -0,0 +1,45 @@
+package util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class SimulatedClockTest {
+
+    @Test
+    public void testAdvance() {
+        SimulatedClock clock = new SimulatedClock(5000);
+        Assertions.assertEquals(5000, clock.millis());
+        Assertions.assertEquals(0, clock.nanos());
+
+        clock.advance(1500, TimeUnit.MICROSECONDS);
+        Assertions.assertEquals(5001, clock.millis());
+        Assertions.assertEquals(1_500_000, clock.nanos());
+
+        clock.advance(2, TimeUnit.HOURS);
+        Assertions.assertEquals(5001 + TimeUnit.HOURS.toMillis(2), clock.millis());
+    }
+
+    @Test
+    public void testAdvanceBackwards() {
+        SimulatedClock clock = new SimulatedClock(0);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> clock.advance(-1));
+    }
+
+    @Test
+    public void testClocks() {
+        SimulatedClock clock = new SimulatedClock(42);
+        Clocks.set(clock);
+        try {
+            Assertions.assertSame(clock, Clocks.get());
+            Assertions.assertEquals(42, Clocks.millis());
+            Assertions.assertEquals(42, Clocks.CURRENT.millis());
+        } finally {
+            Clocks.reset();
+        }
+        Assertions.assertSame(SystemClock.INSTANCE, Clocks.get());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Clocks.set(null));
+    }
+
+}